@@ -0,0 +1,112 @@
+package com.example.crud.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AdaptiveLimiter {
+
+    private static final double LONG_RTT_WINDOW = 600;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final AdmissionProperties.Budget budget;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private double longRttNanos;
+
+    public AdaptiveLimiter(String name, AdmissionProperties.Budget budget) {
+        this.name = name;
+        this.budget = budget;
+        this.limit = budget.getInitialLimit();
+    }
+
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+
+            if (waiting >= budget.getQueueSize()) {
+                return false;
+            }
+
+            waiting++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(budget.getMaxWaitMs());
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (dropped) {
+                limit = Math.max(budget.getMinLimit(), limit * BACKOFF_RATIO);
+            } else {
+                adjust(rttNanos);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long rttNanos) {
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_RTT_WINDOW;
+        }
+
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        boolean underused = inFlight < limit / 2;
+        if (underused) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, budget.getRttTolerance() * longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - budget.getSmoothing()) + newLimit * budget.getSmoothing();
+        limit = Math.max(budget.getMinLimit(), Math.min(budget.getMaxLimit(), newLimit));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.crud.admission;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(prefix = "app.admission", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        Map<String, AdaptiveLimiter> limiters = new LinkedHashMap<>();
+        properties.getBudgets().forEach((name, budget) -> limiters.put(name, new AdaptiveLimiter(name, budget)));
+        properties.getRoutes().forEach((name, route) -> {
+            if (limiters.containsKey(name)) {
+                throw new IllegalStateException("Маршрут app.admission.routes." + name
+                        + " совпадает по имени с бюджетом app.admission.budgets." + name);
+            }
+            limiters.put(name, new AdaptiveLimiter(name, route.getBudget()));
+        });
+
+        AdmissionControlFilter filter = new AdmissionControlFilter(new RouteClassifier(properties.getRoutes()),
+                limiters, properties.getRetryAfterSeconds(), exceptionResolver);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
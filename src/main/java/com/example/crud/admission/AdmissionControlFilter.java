@@ -0,0 +1,120 @@
+package com.example.crud.admission;
+
+import com.example.crud.exception.ServiceOverloadedException;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final RouteClassifier classifier;
+    private final Map<String, AdaptiveLimiter> limiters;
+    private final int retryAfterSeconds;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public AdmissionControlFilter(RouteClassifier classifier, Map<String, AdaptiveLimiter> limiters,
+                                  int retryAfterSeconds, HandlerExceptionResolver exceptionResolver) {
+        this.classifier = classifier;
+        this.limiters = limiters;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveLimiter limiter = limiters.get(classifier.classify(request));
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            log.warn("Запрос {} {} отклонён: бюджет '{}' исчерпан (лимит {})",
+                    request.getMethod(), request.getRequestURI(), limiter.getName(), limiter.getLimit());
+            reject(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            // Потоковый ответ пишется уже после выхода из фильтра, разрешение держится до завершения async-обработки
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limiter, response, start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limiter.release(System.nanoTime() - start, dropped);
+            }
+        }
+    }
+
+    // Тело ошибки собирает GlobalExceptionHandler, как и для ошибок из контроллеров
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ServiceOverloadedException error = new ServiceOverloadedException(retryAfterSeconds);
+        if (exceptionResolver.resolveException(request, response, null, error) == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), error.getMessage());
+        }
+    }
+
+    private static final class ReleaseOnComplete implements AsyncListener {
+
+        private final AdaptiveLimiter limiter;
+        private final HttpServletResponse response;
+        private final long start;
+        private volatile boolean failed;
+
+        private ReleaseOnComplete(AdaptiveLimiter limiter, HttpServletResponse response, long start) {
+            this.limiter = limiter;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(System.nanoTime() - start,
+                    failed || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
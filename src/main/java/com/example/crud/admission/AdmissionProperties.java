@@ -0,0 +1,57 @@
+package com.example.crud.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    private int retryAfterSeconds = 1;
+
+    private Map<String, Budget> budgets = new LinkedHashMap<>(Map.of(
+            RouteClassifier.DEFAULT, new Budget(50, 10, 200, 100, 50),
+            RouteClassifier.HEAVY, new Budget(8, 1, 32, 16, 200)
+    ));
+
+    // Маршруты с собственным лимитом; остальные запросы делят бюджет своего класса из budgets
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+        private String method;
+        // Параметр запроса, без которого маршрут не совпадает: GET /book и GET /book?ids=... делят путь
+        private String param;
+        private List<String> paths = new ArrayList<>();
+        private Budget budget = new Budget();
+    }
+
+    @Data
+    public static class Budget {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 100;
+        private int queueSize = 50;
+        private long maxWaitMs = 100;
+        private double smoothing = 0.2;
+        private double rttTolerance = 1.5;
+
+        public Budget() {
+        }
+
+        public Budget(int initialLimit, int minLimit, int maxLimit, int queueSize, long maxWaitMs) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.queueSize = queueSize;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.crud.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RouteClassifier {
+
+    public static final String DEFAULT = "default";
+    public static final String HEAVY = "heavy";
+
+    private static final Set<String> HEAVY_BOOK_ROUTES = Set.of(
+            "/book/all", "/book/search", "/book/author", "/book/year", "/book/title-author", "/book/duplicates"
+    );
+
+    // Пакетное чтение по списку идентификаторов: GET с параметром ids и POST :batchGet
+    private static final Set<String> BATCH_GET_BY_IDS_ROUTES = Set.of("/book", "/shelf");
+
+    private static final Set<String> BATCH_GET_ROUTES = Set.of("/book:batchGet", "/shelf:batchGet");
+
+    private final List<RouteMatcher> routes = new ArrayList<>();
+
+    public RouteClassifier() {
+    }
+
+    public RouteClassifier(Map<String, AdmissionProperties.Route> routes) {
+        routes.forEach((name, route) -> {
+            if (route.getPaths().isEmpty()) {
+                throw new IllegalStateException("Для маршрута app.admission.routes." + name + " не заданы paths");
+            }
+            List<PathPattern> patterns = route.getPaths().stream()
+                    .map(PathPatternParser.defaultInstance::parse)
+                    .toList();
+            this.routes.add(new RouteMatcher(name, route.getMethod(), route.getParam(), patterns));
+        });
+    }
+
+    // Сначала ищется маршрут с собственным лимитом, затем запрос относится к классу default или heavy
+    public String classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+
+        if (!routes.isEmpty()) {
+            PathContainer container = PathContainer.parsePath(path);
+            for (RouteMatcher route : routes) {
+                if (route.matches(request, container)) {
+                    return route.name();
+                }
+            }
+        }
+
+        if (request.getMethod().equals("POST") && BATCH_GET_ROUTES.contains(path)) {
+            return HEAVY;
+        }
+
+        if (!request.getMethod().equals("GET")) {
+            return DEFAULT;
+        }
+
+        if (HEAVY_BOOK_ROUTES.contains(path) || path.startsWith("/book/sorted/")
+                || (path.startsWith("/shelf/") && path.endsWith("/books/stream"))
+                || (BATCH_GET_BY_IDS_ROUTES.contains(path) && request.getParameter("ids") != null)) {
+            return HEAVY;
+        }
+
+        return DEFAULT;
+    }
+
+    private static final class RouteMatcher {
+
+        private final String name;
+        private final String method;
+        private final String param;
+        private final List<PathPattern> patterns;
+
+        private RouteMatcher(String name, String method, String param, List<PathPattern> patterns) {
+            this.name = name;
+            this.method = method;
+            this.param = param;
+            this.patterns = patterns;
+        }
+
+        String name() {
+            return name;
+        }
+
+        boolean matches(HttpServletRequest request, PathContainer path) {
+            if (method != null && !method.isBlank() && !method.equalsIgnoreCase(request.getMethod())) {
+                return false;
+            }
+            if (param != null && !param.isBlank() && request.getParameter(param) == null) {
+                return false;
+            }
+            return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+        }
+    }
+}
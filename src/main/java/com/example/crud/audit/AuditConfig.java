@@ -0,0 +1,22 @@
+package com.example.crud.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+@ConditionalOnProperty(prefix = "app.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AuditConfig {
+
+    @Bean
+    public AuditLog auditLog(AuditProperties properties) {
+        return new AuditLog(properties);
+    }
+
+    @Bean
+    public AuditLogReader auditLogReader(AuditProperties properties) {
+        return new AuditLogReader(properties);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.crud.audit;
+
+import com.example.crud.event.ChangeOperation;
+import com.example.crud.event.EntityType;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class AuditEntry {
+    Instant timestamp;
+    ChangeOperation operation;
+    EntityType entity;
+    Integer id;
+    Integer shelfBefore;
+    Integer shelfAfter;
+}
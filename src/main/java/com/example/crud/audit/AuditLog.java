@@ -0,0 +1,130 @@
+package com.example.crud.audit;
+
+import com.example.crud.event.CatalogChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+public class AuditLog {
+
+    private final AuditProperties properties;
+    private final Queue<CatalogChangedEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AuditLogWriter writer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLog(AuditProperties properties) {
+        validate(properties);
+        this.properties = properties;
+        this.writer = new AuditLogWriter(Path.of(properties.getDirectory()),
+                properties.getSegmentSizeBytes(), properties.getMaxSegments());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        publish(event);
+    }
+
+    public boolean publish(CatalogChangedEvent event) {
+        if (size.incrementAndGet() > properties.getQueueCapacity()) {
+            size.decrementAndGet();
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                log.warn("Очередь аудита переполнена, событий потеряно: {}", dropped.get());
+            }
+            return false;
+        }
+
+        queue.offer(event);
+        if (size.get() >= properties.getBatchSize()) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueuedCount() {
+        return size.get();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void runWriter() {
+        List<CatalogChangedEvent> batch = new ArrayList<>(properties.getBatchSize());
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+
+        while (running || !queue.isEmpty()) {
+            drain(batch);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, parkNanos);
+                continue;
+            }
+
+            try {
+                writer.write(batch);
+            } catch (Exception e) {
+                log.error("Не удалось записать {} событий аудита", batch.size(), e);
+            }
+            batch.clear();
+        }
+
+        writer.close();
+    }
+
+    private static void validate(AuditProperties properties) {
+        int minSegmentSize = AuditSegments.HEADER_SIZE + AuditSegments.RECORD_SIZE;
+        if (properties.getSegmentSizeBytes() < minSegmentSize) {
+            throw new IllegalStateException("app.audit.segment-size-bytes должен быть не меньше " + minSegmentSize);
+        }
+        if (properties.getMaxSegments() < 1) {
+            throw new IllegalStateException("app.audit.max-segments должен быть положительным");
+        }
+        if (properties.getQueueCapacity() < 1) {
+            throw new IllegalStateException("app.audit.queue-capacity должен быть положительным");
+        }
+        if (properties.getBatchSize() < 1 || properties.getBatchSize() > properties.getQueueCapacity()) {
+            throw new IllegalStateException("app.audit.batch-size должен быть от 1 до app.audit.queue-capacity");
+        }
+        if (properties.getFlushIntervalMs() < 1) {
+            throw new IllegalStateException("app.audit.flush-interval-ms должен быть положительным");
+        }
+    }
+
+    private void drain(List<CatalogChangedEvent> batch) {
+        CatalogChangedEvent event;
+        while (batch.size() < properties.getBatchSize() && (event = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(event);
+        }
+    }
+}
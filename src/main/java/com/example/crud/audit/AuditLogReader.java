@@ -0,0 +1,66 @@
+package com.example.crud.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AuditLogReader {
+
+    private final Path directory;
+
+    public AuditLogReader(AuditProperties properties) {
+        this.directory = Path.of(properties.getDirectory());
+    }
+
+    public List<AuditEntry> read(Instant from, Instant to, int limit) throws IOException {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        List<AuditEntry> entries = new ArrayList<>();
+
+        List<Path> segments = AuditSegments.list(directory);
+        for (int i = 0; i < segments.size() && entries.size() < limit; i++) {
+            Path segment = segments.get(i);
+            if (AuditSegments.createdAt(segment) > toMillis) {
+                break;
+            }
+            if (i + 1 < segments.size() && AuditSegments.createdAt(segments.get(i + 1)) < fromMillis) {
+                continue;
+            }
+            scan(segment, fromMillis, toMillis, limit, entries);
+        }
+
+        return entries;
+    }
+
+    private void scan(Path segment, long fromMillis, long toMillis, int limit, List<AuditEntry> entries)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return;
+        }
+
+        if (!AuditSegments.hasValidHeader(buffer)) {
+            return;
+        }
+
+        for (int offset = AuditSegments.HEADER_SIZE;
+             offset + AuditSegments.RECORD_SIZE <= buffer.limit() && entries.size() < limit;
+             offset += AuditSegments.RECORD_SIZE) {
+            long timestamp = AuditSegments.readTimestamp(buffer, offset);
+            if (timestamp == 0) {
+                break;
+            }
+            if (timestamp >= fromMillis && timestamp <= toMillis) {
+                entries.add(AuditSegments.readRecord(buffer, offset));
+            }
+        }
+    }
+}
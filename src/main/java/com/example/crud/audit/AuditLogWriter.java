@@ -0,0 +1,98 @@
+package com.example.crud.audit;
+
+import com.example.crud.event.CatalogChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+class AuditLogWriter {
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private MappedByteBuffer segment;
+    private int position;
+    private long sequence = -1;
+    private long lastCreatedAt;
+
+    AuditLogWriter(Path directory, int segmentSize, int maxSegments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    void write(List<CatalogChangedEvent> batch) throws IOException {
+        for (CatalogChangedEvent event : batch) {
+            if (segment == null || position + AuditSegments.RECORD_SIZE > segmentSize) {
+                roll();
+            }
+            AuditSegments.writeRecord(segment, position, event);
+            position += AuditSegments.RECORD_SIZE;
+        }
+
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    void close() {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        if (sequence < 0) {
+            resume();
+        }
+
+        // Время сегмента не идёт назад, иначе после перевода часов новый сегмент встал бы раньше старых
+        long now = Math.max(System.currentTimeMillis(), lastCreatedAt);
+        lastCreatedAt = now;
+        Path file = directory.resolve(AuditSegments.fileName(now, sequence++));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+
+        AuditSegments.writeHeader(segment, now);
+        position = AuditSegments.HEADER_SIZE;
+        log.debug("Открыт новый сегмент журнала аудита {}", file.getFileName());
+
+        deleteOldSegments();
+    }
+
+    // Нумерация продолжается с последнего сегмента, оставшегося от прошлого запуска
+    private void resume() throws IOException {
+        List<Path> segments = AuditSegments.list(directory);
+        if (segments.isEmpty()) {
+            sequence = 0;
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        sequence = AuditSegments.sequence(last) + 1;
+        lastCreatedAt = AuditSegments.createdAt(last);
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = new ArrayList<>(AuditSegments.list(directory));
+        while (segments.size() > maxSegments) {
+            Path oldest = segments.remove(0);
+            Files.deleteIfExists(oldest);
+            log.info("Удалён устаревший сегмент журнала аудита {}", oldest.getFileName());
+        }
+    }
+}
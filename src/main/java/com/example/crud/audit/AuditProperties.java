@@ -0,0 +1,23 @@
+package com.example.crud.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.audit")
+public class AuditProperties {
+
+    private boolean enabled = true;
+
+    private String directory = "audit";
+
+    private int segmentSizeBytes = 16 * 1024 * 1024;
+
+    private int maxSegments = 64;
+
+    private int queueCapacity = 65536;
+
+    private int batchSize = 512;
+
+    private long flushIntervalMs = 50;
+}
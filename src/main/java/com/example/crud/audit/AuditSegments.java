@@ -0,0 +1,103 @@
+package com.example.crud.audit;
+
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
+import com.example.crud.event.EntityType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+final class AuditSegments {
+
+    static final int MAGIC = 0x41554454;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 24;
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".seg";
+    private static final int NONE = -1;
+
+    private AuditSegments() {
+    }
+
+    static String fileName(long createdAtMillis, long sequence) {
+        return String.format("%s%019d-%06d%s", PREFIX, createdAtMillis, sequence, SUFFIX);
+    }
+
+    static long createdAt(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), PREFIX.length() + 19));
+    }
+
+    static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length() + 20, name.length() - SUFFIX.length()));
+    }
+
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    static void writeHeader(ByteBuffer buffer, long createdAtMillis) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, createdAtMillis);
+    }
+
+    static boolean hasValidHeader(ByteBuffer buffer) {
+        return buffer.limit() >= HEADER_SIZE && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+    }
+
+    static void writeRecord(ByteBuffer buffer, int offset, CatalogChangedEvent event) {
+        buffer.put(offset + 8, (byte) event.getOperation().ordinal());
+        buffer.put(offset + 9, (byte) event.getEntity().ordinal());
+        buffer.putShort(offset + 10, (short) 0);
+        buffer.putInt(offset + 12, orNone(event.getId()));
+        buffer.putInt(offset + 16, orNone(event.getShelfBefore()));
+        buffer.putInt(offset + 20, orNone(event.getShelfAfter()));
+        buffer.putLong(offset, event.getTimestamp().toEpochMilli());
+    }
+
+    static long readTimestamp(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset);
+    }
+
+    static AuditEntry readRecord(ByteBuffer buffer, int offset) {
+        return new AuditEntry(
+                Instant.ofEpochMilli(buffer.getLong(offset)),
+                ChangeOperation.values()[buffer.get(offset + 8)],
+                EntityType.values()[buffer.get(offset + 9)],
+                fromNone(buffer.getInt(offset + 12)),
+                fromNone(buffer.getInt(offset + 16)),
+                fromNone(buffer.getInt(offset + 20))
+        );
+    }
+
+    private static int orNone(Integer value) {
+        return value != null ? value : NONE;
+    }
+
+    private static Integer fromNone(int value) {
+        return value == NONE ? null : value;
+    }
+}
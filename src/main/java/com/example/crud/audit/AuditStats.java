@@ -0,0 +1,10 @@
+package com.example.crud.audit;
+
+import lombok.Value;
+
+@Value
+public class AuditStats {
+    int queuedEvents;
+    long droppedEvents;
+    long droppedLogLines;
+}
@@ -0,0 +1,149 @@
+package com.example.crud.audit;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Асинхронный журнал, который никогда не блокирует поток запроса: строка кладётся в очередь через offer, и отказ
+// очереди сразу попадает в счётчик. AsyncAppender из logback прячет результат offer, поэтому очередь и поток записи свои
+public class CountingAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private int queueSize = 256;
+    private int maxFlushTimeMs = 1000;
+    private boolean includeCallerData = false;
+    private BlockingQueue<ILoggingEvent> queue;
+    private Thread worker;
+
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setMaxFlushTimeMs(int maxFlushTimeMs) {
+        this.maxFlushTimeMs = maxFlushTimeMs;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 1) {
+            addError("Размер очереди файлового журнала должен быть положительным: " + queueSize);
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::drain, "async-log-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+
+        super.stop();
+        worker.interrupt();
+        try {
+            worker.join(maxFlushTimeMs);
+            if (worker.isAlive()) {
+                addWarn("Поток файлового журнала не успел дописать очередь за " + maxFlushTimeMs + " мс, осталось строк: "
+                        + queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // Поля события фиксируются в потоке запроса: MDC и аргументы сообщения к моменту записи могут измениться
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+
+        if (!queue.offer(event)) {
+            long dropped = DROPPED.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                addWarn("Очередь файлового журнала переполнена, строк отброшено: " + dropped);
+            }
+        }
+    }
+
+    private void drain() {
+        List<ILoggingEvent> batch = new ArrayList<>();
+        try {
+            while (isStarted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                batch.forEach(appenders::appendLoopOnAppenders);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Остановка: остаток очереди дописывается ниже
+        }
+
+        queue.drainTo(batch);
+        batch.forEach(appenders::appendLoopOnAppenders);
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.crud.catalog;
+
+import lombok.Value;
+
+@Value
+public class BookRecord {
+    int id;
+    String title;
+    String author;
+    Integer year;
+    Integer shelfId;
+}
@@ -0,0 +1,37 @@
+package com.example.crud.catalog;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+
+// Порядок строк в памяти должен совпадать с ORDER BY LOWER(...) в базе. Без локали строки сравниваются
+// двоично, как в H2 и в PostgreSQL с LC_COLLATE=C; для базы с языковой сортировкой задаётся её локаль
+public final class CatalogCollation implements Comparator<String> {
+
+    public static final CatalogCollation BINARY = new CatalogCollation(null);
+
+    private final Collator collator;
+
+    private CatalogCollation(Collator collator) {
+        this.collator = collator;
+    }
+
+    public static CatalogCollation of(String languageTag) {
+        if (languageTag == null || languageTag.isBlank()) {
+            return BINARY;
+        }
+        Collator collator = Collator.getInstance(Locale.forLanguageTag(languageTag.trim()));
+        collator.setStrength(Collator.TERTIARY);
+        return new CatalogCollation(collator);
+    }
+
+    // LOWER в базе не зависит от локали JVM, поэтому и здесь регистр снимается по Locale.ROOT
+    public static String key(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    @Override
+    public int compare(String left, String right) {
+        return collator != null ? collator.compare(left, right) : left.compareTo(right);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.crud.catalog;
+
+import com.example.crud.repository.BookRepository;
+import com.example.crud.repository.OutboxEventRepository;
+import com.example.crud.repository.ShelfRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(CatalogProperties.class)
+@ConditionalOnExpression("${app.catalog.enabled:true} and ${app.outbox.enabled:true}")
+public class CatalogConfig {
+
+    @Bean
+    public SortedBookViews sortedBookViews(CatalogProperties properties) {
+        return new SortedBookViews(CatalogCollation.of(properties.getCollation()));
+    }
+
+    @Bean
+    public CatalogIndex catalogIndex(SortedBookViews sortedBookViews) {
+        CatalogIndex index = new CatalogIndex();
+        index.addListener(sortedBookViews);
+        return index;
+    }
+
+    @Bean
+    public CatalogSynchronizer catalogSynchronizer(CatalogIndex catalogIndex, BookRepository bookRepository,
+                                                   ShelfRepository shelfRepository,
+                                                   OutboxEventRepository outboxEventRepository,
+                                                   PlatformTransactionManager transactionManager,
+                                                   CatalogProperties properties) {
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+
+        return new CatalogSynchronizer(catalogIndex, new CatalogSnapshotFile(Path.of(properties.getSnapshotFile())),
+                bookRepository, shelfRepository, outboxEventRepository, readTransaction, properties);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.crud.catalog;
+
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CatalogIndex {
+
+    private final Map<Integer, BookRecord> books = new ConcurrentHashMap<>();
+    private final Map<Integer, ShelfRecord> shelves = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long highWaterMark;
+    private volatile boolean ready;
+
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<BookRecord> findBook(int id) {
+        return Optional.ofNullable(books.get(id));
+    }
+
+    public Optional<ShelfRecord> findShelf(int id) {
+        return Optional.ofNullable(shelves.get(id));
+    }
+
+    public Book toBook(BookRecord record) {
+        Book book = new Book();
+        book.setId(record.getId());
+        book.setTitle(record.getTitle());
+        book.setAuthor(record.getAuthor());
+        book.setYear(record.getYear());
+
+        if (record.getShelfId() != null) {
+            ShelfRecord shelfRecord = shelves.get(record.getShelfId());
+            Shelf shelf = new Shelf();
+            shelf.setId(record.getShelfId());
+            if (shelfRecord != null) {
+                shelf.setName(shelfRecord.getName());
+                shelf.setDescription(shelfRecord.getDescription());
+            }
+            book.setShelf(shelf);
+        }
+
+        return book;
+    }
+
+    public List<BookRecord> books() {
+        return new ArrayList<>(books.values());
+    }
+
+    public List<ShelfRecord> shelves() {
+        return new ArrayList<>(shelves.values());
+    }
+
+    public int bookCount() {
+        return books.size();
+    }
+
+    public synchronized void replaceAll(Iterable<BookRecord> newBooks, Iterable<ShelfRecord> newShelves,
+                                        long newHighWaterMark) {
+        books.clear();
+        shelves.clear();
+        newShelves.forEach(shelf -> shelves.put(shelf.getId(), shelf));
+        newBooks.forEach(book -> books.put(book.getId(), book));
+        highWaterMark = newHighWaterMark;
+        ready = true;
+        version.incrementAndGet();
+        listeners.forEach(listener -> listener.onBooksReplaced(books.values()));
+    }
+
+    public synchronized void applyBooks(Collection<Integer> ids, Collection<BookRecord> current) {
+        Map<Integer, BookRecord> byId = new HashMap<>();
+        current.forEach(book -> byId.put(book.getId(), book));
+
+        for (Integer id : ids) {
+            BookRecord book = byId.get(id);
+            BookRecord previous = book == null ? books.remove(id) : books.put(id, book);
+            if (previous != null || book != null) {
+                listeners.forEach(listener -> listener.onBookChanged(previous, book));
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    public synchronized void applyShelves(Collection<Integer> ids, Collection<ShelfRecord> current) {
+        Map<Integer, ShelfRecord> byId = new HashMap<>();
+        current.forEach(shelf -> byId.put(shelf.getId(), shelf));
+
+        for (Integer id : ids) {
+            ShelfRecord shelf = byId.get(id);
+            if (shelf == null) {
+                shelves.remove(id);
+            } else {
+                shelves.put(id, shelf);
+            }
+        }
+        version.incrementAndGet();
+    }
+
+    public void advanceHighWaterMark(long newHighWaterMark) {
+        if (newHighWaterMark > highWaterMark) {
+            highWaterMark = newHighWaterMark;
+        }
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.crud.catalog;
+
+import java.util.Collection;
+
+public interface CatalogListener {
+
+    void onBooksReplaced(Collection<BookRecord> books);
+
+    void onBookChanged(BookRecord before, BookRecord after);
+}
@@ -0,0 +1,31 @@
+package com.example.crud.catalog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.catalog")
+public class CatalogProperties {
+
+    private boolean enabled = true;
+
+    private String snapshotFile = "catalog.snapshot";
+
+    private long snapshotIntervalMs = 300000;
+
+    private long refreshIntervalMs = 5000;
+
+    // Сколько ждать пропущенный номер изменения outbox: незафиксированная транзакция или откат
+    private long gapTimeoutMs = 60000;
+
+    private long reloadDelayMs = 50;
+
+    private long maxCatchUpAgeMs = 43200000;
+
+    private int catchUpBatchSize = 1000;
+
+    private int reloadChunkSize = 500;
+
+    // Локаль сортировки базы (например, ru-RU); пусто, если база сравнивает строки двоично
+    private String collation = "";
+}
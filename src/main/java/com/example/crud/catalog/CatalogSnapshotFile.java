@@ -0,0 +1,240 @@
+package com.example.crud.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class CatalogSnapshotFile {
+
+    static final int MAGIC = 0x43415453;
+    static final int VERSION = 2;
+    // Магия и версия не входят в контрольную сумму, всё остальное, включая счётчики, входит
+    static final int CHECKED_FROM = 8;
+    static final int HEADER_SIZE = 32;
+    static final int TRAILER_SIZE = 8;
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final Path file;
+
+    public CatalogSnapshotFile(Path file) {
+        this.file = file;
+    }
+
+    public void write(Collection<BookRecord> books, Collection<ShelfRecord> shelves, long highWaterMark)
+            throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+        try {
+            try (OutputStream fileOut = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                CRC32 crc = new CRC32();
+                DataOutputStream body = new DataOutputStream(new CheckedOutputStream(out, crc));
+                body.writeLong(System.currentTimeMillis());
+                body.writeLong(highWaterMark);
+                body.writeInt(shelves.size());
+                body.writeInt(books.size());
+                for (ShelfRecord shelf : shelves) {
+                    body.writeInt(shelf.getId());
+                    writeString(body, shelf.getName());
+                    writeString(body, shelf.getDescription());
+                }
+                for (BookRecord book : books) {
+                    body.writeInt(book.getId());
+                    body.writeInt(book.getYear() != null ? book.getYear() : NONE);
+                    body.writeInt(book.getShelfId() != null ? book.getShelfId() : NONE);
+                    writeString(body, book.getTitle());
+                    writeString(body, book.getAuthor());
+                }
+                body.flush();
+                out.writeLong(crc.getValue());
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Записи не копируются в кучу заранее: снимок разбирается прямо из отображённого файла, когда индекс по нему идёт
+    public Snapshot read() throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < HEADER_SIZE + TRAILER_SIZE
+                || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Неподдерживаемый формат снимка каталога: " + file);
+        }
+
+        int bodyEnd = buffer.limit() - TRAILER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(CHECKED_FROM, bodyEnd - CHECKED_FROM));
+        if (crc.getValue() != buffer.getLong(bodyEnd)) {
+            throw new IOException("Контрольная сумма снимка каталога не совпадает: " + file);
+        }
+
+        long writtenAt = buffer.getLong(8);
+        long highWaterMark = buffer.getLong(16);
+        int shelfCount = buffer.getInt(24);
+        int bookCount = buffer.getInt(28);
+
+        // Разметка проверяется заранее, чтобы разбор по ходу загрузки индекса уже не мог оборваться на середине
+        ByteBuffer body = buffer.slice(HEADER_SIZE, bodyEnd - HEADER_SIZE);
+        int booksOffset;
+        try {
+            booksOffset = skip(body, 0, shelfCount, 1);
+            if (skip(body, booksOffset, bookCount, 3) != body.limit()) {
+                throw new IOException("Разметка снимка каталога не совпадает с заголовком: " + file);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Разметка снимка каталога не совпадает с заголовком: " + file, e);
+        }
+
+        return new Snapshot(body.slice(0, booksOffset), shelfCount, body.slice(booksOffset, body.limit() - booksOffset),
+                bookCount, writtenAt, highWaterMark);
+    }
+
+    private static int skip(ByteBuffer body, int offset, int count, int fixedInts) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count");
+        }
+        int position = offset;
+        for (int i = 0; i < count; i++) {
+            position += fixedInts * Integer.BYTES;
+            for (int s = 0; s < 2; s++) {
+                int length = body.getInt(position);
+                position += Integer.BYTES + Math.max(length, 0);
+            }
+        }
+        return position;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static class Snapshot {
+        private final ByteBuffer shelves;
+        private final int shelfCount;
+        private final ByteBuffer books;
+        private final int bookCount;
+        private final long writtenAt;
+        private final long highWaterMark;
+
+        Snapshot(ByteBuffer shelves, int shelfCount, ByteBuffer books, int bookCount, long writtenAt,
+                 long highWaterMark) {
+            this.shelves = shelves;
+            this.shelfCount = shelfCount;
+            this.books = books;
+            this.bookCount = bookCount;
+            this.writtenAt = writtenAt;
+            this.highWaterMark = highWaterMark;
+        }
+
+        public Iterable<ShelfRecord> getShelves() {
+            return () -> new Decoder<>(shelves, shelfCount) {
+                @Override
+                ShelfRecord decode(ByteBuffer buffer) {
+                    return new ShelfRecord(buffer.getInt(), readString(buffer), readString(buffer));
+                }
+            };
+        }
+
+        public Iterable<BookRecord> getBooks() {
+            return () -> new Decoder<>(books, bookCount) {
+                @Override
+                BookRecord decode(ByteBuffer buffer) {
+                    int id = buffer.getInt();
+                    int year = buffer.getInt();
+                    int shelfId = buffer.getInt();
+                    return new BookRecord(id, readString(buffer), readString(buffer),
+                            year == NONE ? null : year, shelfId == NONE ? null : shelfId);
+                }
+            };
+        }
+
+        public int getShelfCount() {
+            return shelfCount;
+        }
+
+        public int getBookCount() {
+            return bookCount;
+        }
+
+        public long getWrittenAt() {
+            return writtenAt;
+        }
+
+        public long getHighWaterMark() {
+            return highWaterMark;
+        }
+    }
+
+    private abstract static class Decoder<T> implements Iterator<T> {
+        private final ByteBuffer buffer;
+        private int remaining;
+
+        Decoder(ByteBuffer section, int count) {
+            this.buffer = section.duplicate();
+            this.remaining = count;
+        }
+
+        abstract T decode(ByteBuffer buffer);
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            return decode(buffer);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.crud.catalog;
+
+import com.example.crud.cluster.InvalidationHandler;
+import com.example.crud.entity.OutboxEvent;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.EntityType;
+import com.example.crud.repository.BookRepository;
+import com.example.crud.repository.OutboxEventRepository;
+import com.example.crud.repository.ShelfRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Slf4j
+public class CatalogSynchronizer implements SmartInitializingSingleton, InvalidationHandler {
+
+    private final CatalogIndex index;
+    private final CatalogSnapshotFile snapshotFile;
+    private final BookRepository bookRepository;
+    private final ShelfRepository shelfRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate readTransaction;
+    private final CatalogProperties properties;
+
+    // Локальные изменения перечитываются отдельным потоком пачкой за reload-delay-ms, а не в потоке запроса
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Integer> pendingBookIds = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> pendingShelfIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+
+    // Пропуски в номерах изменений ниже отметки: транзакции, которые ещё не зафиксированы или откатились. Значение — срок ожидания
+    private final Map<Long, Long> gaps = new ConcurrentHashMap<>();
+
+    private volatile long snapshotVersion = -1;
+
+    public CatalogSynchronizer(CatalogIndex index, CatalogSnapshotFile snapshotFile, BookRepository bookRepository,
+                               ShelfRepository shelfRepository, OutboxEventRepository outboxEventRepository,
+                               TransactionTemplate readTransaction, CatalogProperties properties) {
+        this.index = index;
+        this.snapshotFile = snapshotFile;
+        this.bookRepository = bookRepository;
+        this.shelfRepository = shelfRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.readTransaction = readTransaction;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.currentTimeMillis();
+        if (loadSnapshot()) {
+            int changed = catchUp();
+            log.info("Каталог загружен из снимка ({} книг), догружено изменений: {}, за {} мс",
+                    index.bookCount(), changed, System.currentTimeMillis() - start);
+        } else {
+            fullReload();
+            log.info("Каталог загружен из базы данных ({} книг) за {} мс",
+                    index.bookCount(), System.currentTimeMillis() - start);
+        }
+    }
+
+    public synchronized void fullReload() {
+        readTransaction.executeWithoutResult(status -> {
+            // Отметка берётся до чтения строк: всё, что зафиксировано позже, догонялка прочитает по номеру изменения
+            long highWaterMark = outboxEventRepository.findMaxChangeId();
+            index.replaceAll(bookRepository.findAllRecords(), shelfRepository.findAllRecords(), highWaterMark);
+        });
+        trackGapsBelow(index.getHighWaterMark());
+    }
+
+    // Догонялка читает только события после последнего прочитанного номера и отдельно — пропуски, которые ещё могут заполниться
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval-ms:5000}",
+            initialDelayString = "${app.catalog.refresh-interval-ms:5000}")
+    public synchronized int catchUp() {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(expiresAt -> expiresAt <= now);
+
+        Set<Integer> bookIds = new HashSet<>();
+        Set<Integer> shelfIds = new HashSet<>();
+        if (!gaps.isEmpty()) {
+            for (OutboxEvent event : loadChunked(gaps.keySet(), outboxEventRepository::findByChangeIdIn)) {
+                gaps.remove(event.getChangeId());
+                collect(event, bookIds, shelfIds);
+            }
+        }
+
+        long afterId = index.getHighWaterMark();
+        List<OutboxEvent> batch;
+        do {
+            long cursor = afterId;
+            batch = readTransaction.execute(status -> outboxEventRepository
+                    .findByChangeIdGreaterThanOrderByChangeIdAsc(cursor, Limit.of(properties.getCatchUpBatchSize())));
+            for (OutboxEvent event : batch) {
+                trackGaps(afterId, event.getChangeId(), now);
+                collect(event, bookIds, shelfIds);
+                afterId = event.getChangeId();
+            }
+        } while (batch.size() == properties.getCatchUpBatchSize());
+
+        reload(bookIds, shelfIds);
+        index.advanceHighWaterMark(afterId);
+        return bookIds.size() + shelfIds.size();
+    }
+
+    public void flushPending() {
+        reloadScheduled.set(false);
+        List<Integer> bookIds = drain(pendingBookIds);
+        List<Integer> shelfIds = drain(pendingShelfIds);
+        try {
+            reload(bookIds, shelfIds);
+        } catch (RuntimeException e) {
+            // Те же изменения есть в outbox, их перечитает следующий catchUp
+            log.warn("Не удалось обновить каталог после изменений, они будут подхвачены догонялкой: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(idsOf(event, EntityType.BOOK), idsOf(event, EntityType.SHELF));
+            return;
+        }
+
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        (event.getEntity() == EntityType.SHELF ? pending.shelfIds : pending.bookIds).add(event.getId());
+    }
+
+    @Override
+    public void invalidate(Set<Integer> bookIds, Set<Integer> shelfIds) {
+        reload(bookIds, shelfIds);
+    }
+
+    @Override
+    public void resync() {
+        fullReload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.snapshot-interval-ms:300000}",
+            initialDelayString = "${app.catalog.snapshot-interval-ms:300000}")
+    public void writeSnapshot() {
+        long version = index.getVersion();
+        if (!index.isReady() || version == snapshotVersion) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            // Отметка читается раньше строк, чтобы снимок не объявил прочитанными изменения, которых в нём нет
+            long highWaterMark = index.getHighWaterMark();
+            snapshotFile.write(index.books(), index.shelves(), highWaterMark);
+            snapshotVersion = version;
+            log.info("Снимок каталога записан ({} книг) за {} мс",
+                    index.bookCount(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Не удалось записать снимок каталога", e);
+        }
+    }
+
+    @PreDestroy
+    public void writeSnapshotOnShutdown() {
+        reloadExecutor.shutdownNow();
+        writeSnapshot();
+    }
+
+    private boolean loadSnapshot() {
+        CatalogSnapshotFile.Snapshot snapshot;
+        try {
+            snapshot = snapshotFile.read();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Снимок каталога повреждён и будет пересоздан: {}", e.getMessage());
+            return false;
+        }
+
+        if (snapshot == null) {
+            return false;
+        }
+
+        if (snapshot.getWrittenAt() < System.currentTimeMillis() - properties.getMaxCatchUpAgeMs()) {
+            log.info("Снимок каталога устарел, выполняется полная загрузка");
+            return false;
+        }
+
+        index.replaceAll(snapshot.getBooks(), snapshot.getShelves(), snapshot.getHighWaterMark());
+        snapshotVersion = index.getVersion();
+        trackGapsBelow(snapshot.getHighWaterMark());
+        return true;
+    }
+
+    private void reload(Collection<Integer> bookIds, Collection<Integer> shelfIds) {
+        if (!shelfIds.isEmpty()) {
+            index.applyShelves(shelfIds, loadChunked(shelfIds, shelfRepository::findRecordsByIdIn));
+        }
+        if (!bookIds.isEmpty()) {
+            index.applyBooks(bookIds, loadChunked(bookIds, bookRepository::findRecordsByIdIn));
+        }
+    }
+
+    private void enqueue(Collection<Integer> bookIds, Collection<Integer> shelfIds) {
+        pendingBookIds.addAll(bookIds);
+        pendingShelfIds.addAll(shelfIds);
+        if (reloadScheduled.compareAndSet(false, true)) {
+            try {
+                reloadExecutor.schedule(this::flushPending, properties.getReloadDelayMs(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Каталог останавливается, обновление после изменений пропущено");
+            }
+        }
+    }
+
+    private void trackGaps(long afterId, long id, long now) {
+        // Большой разрыв отслеживается только в пределах последней пачки номеров
+        long from = Math.max(afterId + 1, id - properties.getCatchUpBatchSize());
+        for (long missing = from; missing < id; missing++) {
+            gaps.put(missing, now + properties.getGapTimeoutMs());
+        }
+    }
+
+    private void trackGapsBelow(long highWaterMark) {
+        long from = Math.max(0, highWaterMark - properties.getCatchUpBatchSize());
+        List<Long> present = readTransaction.execute(status -> outboxEventRepository.findChangeIdsBetween(from, highWaterMark));
+        Set<Long> seen = present != null ? new HashSet<>(present) : Set.of();
+        long expiresAt = System.currentTimeMillis() + properties.getGapTimeoutMs();
+        for (long id = from + 1; id <= highWaterMark; id++) {
+            if (!seen.contains(id)) {
+                gaps.put(id, expiresAt);
+            }
+        }
+    }
+
+    private static void collect(OutboxEvent event, Set<Integer> bookIds, Set<Integer> shelfIds) {
+        if (event.getAggregateId() != null) {
+            (EntityType.SHELF.name().equals(event.getAggregateType()) ? shelfIds : bookIds).add(event.getAggregateId());
+        }
+    }
+
+    private static List<Integer> drain(Set<Integer> pending) {
+        List<Integer> drained = new ArrayList<>();
+        for (Iterator<Integer> iterator = pending.iterator(); iterator.hasNext(); ) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private <K, T> List<T> loadChunked(Collection<K> ids, Function<Collection<K>, List<T>> loader) {
+        List<K> all = new ArrayList<>(ids);
+        List<T> result = new ArrayList<>(all.size());
+        for (int from = 0; from < all.size(); from += properties.getReloadChunkSize()) {
+            List<K> chunk = all.subList(from, Math.min(from + properties.getReloadChunkSize(), all.size()));
+            List<T> loaded = readTransaction.execute(status -> loader.apply(chunk));
+            if (loaded != null) {
+                result.addAll(loaded);
+            }
+        }
+        return result;
+    }
+
+    private List<Integer> idsOf(CatalogChangedEvent event, EntityType type) {
+        return event.getEntity() == type && event.getId() != null ? List.of(event.getId()) : List.of();
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+        private final Set<Integer> bookIds = new HashSet<>();
+        private final Set<Integer> shelfIds = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CatalogSynchronizer.this);
+            if (status == STATUS_COMMITTED) {
+                enqueue(bookIds, shelfIds);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.crud.catalog;
+
+import lombok.Value;
+
+@Value
+public class ShelfRecord {
+    int id;
+    String name;
+    String description;
+}
@@ -0,0 +1,193 @@
+package com.example.crud.catalog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+public class SortedBookViews implements CatalogListener {
+
+    public enum Field {
+        TITLE(book -> CatalogCollation.key(book.getTitle()), true),
+        AUTHOR(book -> CatalogCollation.key(book.getAuthor()), true),
+        // Книги без года идут первыми, как COALESCE(year, MIN_VALUE) в запросе без индекса
+        YEAR(book -> book.getYear() != null ? book.getYear() : Integer.MIN_VALUE, false);
+
+        private final Function<BookRecord, Comparable<?>> key;
+        private final boolean text;
+
+        Field(Function<BookRecord, Comparable<?>> key, boolean text) {
+            this.key = key;
+            this.text = text;
+        }
+
+        public static Field fromProperty(String property) {
+            return switch (property.toLowerCase()) {
+                case "author" -> AUTHOR;
+                case "year" -> YEAR;
+                default -> TITLE;
+            };
+        }
+    }
+
+    private final Map<Field, View> views = new EnumMap<>(Field.class);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SortedBookViews(CatalogCollation collation) {
+        for (Field field : Field.values()) {
+            Comparator<Object> order = field.text ? (Comparator) collation : (Comparator) Comparator.naturalOrder();
+            views.put(field, new View(field.key, order));
+        }
+    }
+
+    @Override
+    public void onBooksReplaced(Collection<BookRecord> books) {
+        views.values().forEach(view -> view.rebuild(books));
+    }
+
+    @Override
+    public void onBookChanged(BookRecord before, BookRecord after) {
+        views.values().forEach(view -> view.update(before, after));
+    }
+
+    public int[] slice(Field field, boolean descending, int offset, Integer limit) {
+        return views.get(field).slice(descending, offset, limit);
+    }
+
+    public int size() {
+        return views.get(Field.TITLE).size();
+    }
+
+    static final class View {
+        private final Function<BookRecord, Comparable<?>> key;
+        private final Comparator<Object> order;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private int[] ids = new int[16];
+        private Comparable<?>[] keys = new Comparable<?>[16];
+        private int size;
+
+        View(Function<BookRecord, Comparable<?>> key, Comparator<Object> order) {
+            this.key = key;
+            this.order = order;
+        }
+
+        void rebuild(Collection<BookRecord> books) {
+            BookRecord[] sorted = books.toArray(new BookRecord[0]);
+            Arrays.sort(sorted, (a, b) -> compare(key.apply(a), a.getId(), key.apply(b), b.getId()));
+
+            int capacity = Math.max(16, sorted.length + sorted.length / 4);
+            int[] newIds = new int[capacity];
+            Comparable<?>[] newKeys = new Comparable<?>[capacity];
+            for (int i = 0; i < sorted.length; i++) {
+                newIds[i] = sorted[i].getId();
+                newKeys[i] = key.apply(sorted[i]);
+            }
+
+            lock.writeLock().lock();
+            try {
+                ids = newIds;
+                keys = newKeys;
+                size = sorted.length;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void update(BookRecord before, BookRecord after) {
+            lock.writeLock().lock();
+            try {
+                if (before != null) {
+                    remove(key.apply(before), before.getId());
+                }
+                if (after != null) {
+                    insert(key.apply(after), after.getId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int[] slice(boolean descending, int offset, Integer limit) {
+            lock.readLock().lock();
+            try {
+                int from = Math.min(offset, size);
+                int count = limit == null ? size - from : Math.min(limit, size - from);
+                int[] result = new int[count];
+                for (int i = 0; i < count; i++) {
+                    result[i] = descending ? ids[size - 1 - from - i] : ids[from + i];
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void insert(Comparable<?> newKey, int id) {
+            int position = search(newKey, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+
+            if (size == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+            }
+
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            ids[position] = id;
+            keys[position] = newKey;
+            size++;
+        }
+
+        private void remove(Comparable<?> oldKey, int id) {
+            int position = search(oldKey, id);
+            if (position < 0) {
+                return;
+            }
+
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            size--;
+            keys[size] = null;
+        }
+
+        private int search(Comparable<?> searchKey, int id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(keys[middle], ids[middle], searchKey, id);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private int compare(Comparable<?> leftKey, int leftId, Comparable<?> rightKey, int rightId) {
+            int comparison = order.compare(leftKey, rightKey);
+            return comparison != 0 ? comparison : Integer.compare(leftId, rightId);
+        }
+    }
+}
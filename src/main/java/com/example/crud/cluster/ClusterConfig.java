@@ -0,0 +1,77 @@
+package com.example.crud.cluster;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
+@ConditionalOnProperty(prefix = "app.cluster", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ClusterConfig {
+
+    private final String nodeId;
+
+    public ClusterConfig(ClusterProperties properties) {
+        // Случайный идентификатор по умолчанию: после перезапуска узел начинает новую последовательность
+        this.nodeId = properties.getNodeId().isBlank() ? UUID.randomUUID().toString() : properties.getNodeId();
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.cluster", name = "transport", havingValue = "in-process", matchIfMissing = true)
+    public InvalidationTransport inProcessInvalidationTransport(ClusterProperties properties) {
+        return new InProcessInvalidationTransport(properties.getChannel());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.cluster", name = "transport", havingValue = "postgres")
+    public InvalidationTransport postgresInvalidationTransport(DataSourceProperties dataSourceProperties,
+                                                               ClusterProperties properties) {
+        // Свой пул на два соединения: LISTEN держит одно постоянно, NOTIFY не ждёт соединения из основного пула
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("cluster-invalidation");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setMinimumIdle(2);
+        return new PostgresInvalidationTransport(dataSource, properties.getChannel(),
+                properties.getPollTimeoutMs(), properties.getReconnectDelayMs());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ClusterInvalidationPublisher clusterInvalidationPublisher(InvalidationTransport transport,
+                                                                     ClusterProperties properties) {
+        ThreadPoolExecutor sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(properties.getPublishQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "cluster-invalidation-publisher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        return new ClusterInvalidationPublisher(transport, nodeId, properties.getMaxInvalidationsPerMessage(), sender);
+    }
+
+    @Bean
+    public ClusterInvalidationApplier clusterInvalidationApplier(ObjectProvider<InvalidationHandler> handlers) {
+        return new ClusterInvalidationApplier(nodeId, () -> handlers.orderedStream().toList());
+    }
+
+    @Bean
+    public SmartInitializingSingleton clusterInvalidationSubscription(InvalidationTransport transport,
+                                                                      ClusterInvalidationApplier applier) {
+        return () -> {
+            transport.start(applier);
+            log.info("Узел {} подписан на инвалидации каталога", nodeId);
+        };
+    }
+}
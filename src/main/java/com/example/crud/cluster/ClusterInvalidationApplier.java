@@ -0,0 +1,94 @@
+package com.example.crud.cluster;
+
+import com.example.crud.event.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+@Slf4j
+public class ClusterInvalidationApplier implements InvalidationReceiver {
+
+    private final String nodeId;
+    private final Supplier<Collection<InvalidationHandler>> handlers;
+
+    private final Map<String, Long> lastSequences = new HashMap<>();
+    private final AtomicBoolean resyncRequested = new AtomicBoolean();
+    private Set<Integer> pendingBooks = new HashSet<>();
+    private Set<Integer> pendingShelves = new HashSet<>();
+
+    public ClusterInvalidationApplier(String nodeId, Supplier<Collection<InvalidationHandler>> handlers) {
+        this.nodeId = nodeId;
+        this.handlers = handlers;
+    }
+
+    @Override
+    public synchronized void onMessage(InvalidationMessage message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return;
+        }
+
+        Long last = lastSequences.get(message.getNodeId());
+        if (last != null && message.getSequence() <= last) {
+            return;
+        }
+        lastSequences.put(message.getNodeId(), message.getSequence());
+
+        // Первое сообщение от узла становится точкой отсчёта. Если оно не первое у самого узла, более ранние номера могли
+        // уйти между загрузкой каталога и подпиской. Часы узлов не сравниваются: при расхождении сообщение потерялось бы
+        if (last == null && message.getSequence() > 1) {
+            log.info("Первое сообщение от узла {} имеет номер #{}, каталог будет перечитан целиком",
+                    message.getNodeId(), message.getSequence());
+            resyncRequested.set(true);
+            return;
+        }
+
+        if (last != null && message.getSequence() != last + 1) {
+            log.warn("Разрыв последовательности инвалидаций от узла {}: ожидался #{}, получен #{}",
+                    message.getNodeId(), last + 1, message.getSequence());
+            resyncRequested.set(true);
+            return;
+        }
+
+        for (Invalidation invalidation : message.getInvalidations()) {
+            (invalidation.getEntity() == EntityType.SHELF ? pendingShelves : pendingBooks).add(invalidation.getId());
+        }
+    }
+
+    @Override
+    public synchronized void onTransportReset() {
+        log.warn("Канал инвалидации переподключён, каталог будет перечитан целиком");
+        lastSequences.clear();
+        resyncRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.apply-interval-ms:100}")
+    public void applyPending() {
+        Set<Integer> books;
+        Set<Integer> shelves;
+        synchronized (this) {
+            books = pendingBooks;
+            shelves = pendingShelves;
+            pendingBooks = new HashSet<>();
+            pendingShelves = new HashSet<>();
+        }
+
+        if (resyncRequested.getAndSet(false)) {
+            long start = System.currentTimeMillis();
+            handlers.get().forEach(InvalidationHandler::resync);
+            log.info("Кэши перечитаны после разрыва в потоке инвалидаций за {} мс", System.currentTimeMillis() - start);
+            return;
+        }
+
+        if (!books.isEmpty() || !shelves.isEmpty()) {
+            handlers.get().forEach(handler -> handler.invalidate(books, shelves));
+            log.debug("Применены инвалидации от соседних узлов: {} книг, {} полок", books.size(), shelves.size());
+        }
+    }
+}
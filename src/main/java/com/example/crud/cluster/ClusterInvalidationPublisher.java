@@ -0,0 +1,110 @@
+package com.example.crud.cluster;
+
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class ClusterInvalidationPublisher {
+
+    private final InvalidationTransport transport;
+    private final String nodeId;
+    private final int maxInvalidationsPerMessage;
+    private final Executor sender;
+
+    private long sequence;
+
+    public ClusterInvalidationPublisher(InvalidationTransport transport, String nodeId, int maxInvalidationsPerMessage,
+                                        Executor sender) {
+        this.transport = transport;
+        this.nodeId = nodeId;
+        this.maxInvalidationsPerMessage = maxInvalidationsPerMessage;
+        this.sender = sender;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getId() == null) {
+            return;
+        }
+
+        Invalidation invalidation = new Invalidation(event.getEntity(), event.getId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(invalidation));
+            return;
+        }
+
+        PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidations();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(invalidation);
+    }
+
+    // Под блокировкой только выдаются номера и ставится задача в очередь: NOTIFY уходит из отдельного потока,
+    // и afterCompletion коммитов не ждёт сеть. Одна очередь сохраняет порядок номеров при отправке
+    public synchronized void publish(List<Invalidation> invalidations) {
+        List<InvalidationMessage> messages = new ArrayList<>();
+        for (int from = 0; from < invalidations.size(); from += maxInvalidationsPerMessage) {
+            List<Invalidation> chunk = invalidations.subList(from,
+                    Math.min(from + maxInvalidationsPerMessage, invalidations.size()));
+            messages.add(new InvalidationMessage(nodeId, ++sequence, new ArrayList<>(chunk)));
+        }
+
+        try {
+            sender.execute(() -> messages.forEach(this::send));
+        } catch (RejectedExecutionException e) {
+            // Номера уже израсходованы: соседи увидят разрыв по следующему сообщению и перечитают каталог целиком
+            log.warn("Очередь отправки инвалидаций переполнена, {} сообщений отброшено", messages.size());
+        }
+    }
+
+    public void close() throws InterruptedException {
+        if (sender instanceof ExecutorService service) {
+            service.shutdown();
+            if (!service.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Не все инвалидации отправлены до остановки узла");
+            }
+        }
+    }
+
+    private void send(InvalidationMessage message) {
+        try {
+            transport.publish(message);
+        } catch (RuntimeException e) {
+            // Соседи заметят пропущенный номер по следующему сообщению и перечитают каталог целиком
+            log.warn("Не удалось отправить сообщение об инвалидации #{}: {}", message.getSequence(), e.getMessage());
+        }
+    }
+
+    private class PendingInvalidations implements TransactionSynchronization {
+        private final Map<String, Invalidation> invalidations = new LinkedHashMap<>();
+
+        void add(Invalidation invalidation) {
+            String key = (invalidation.getEntity() == EntityType.SHELF ? "S" : "B") + invalidation.getId();
+            invalidations.putIfAbsent(key, invalidation);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ClusterInvalidationPublisher.this);
+            if (status == STATUS_COMMITTED) {
+                publish(new ArrayList<>(invalidations.values()));
+            }
+        }
+    }
+}
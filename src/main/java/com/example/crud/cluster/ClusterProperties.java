@@ -0,0 +1,27 @@
+package com.example.crud.cluster;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.cluster")
+public class ClusterProperties {
+
+    private boolean enabled = true;
+
+    private String transport = "in-process";
+
+    private String channel = "catalog_invalidation";
+
+    private String nodeId = "";
+
+    private int maxInvalidationsPerMessage = 200;
+
+    private int publishQueueCapacity = 10000;
+
+    private long applyIntervalMs = 100;
+
+    private long pollTimeoutMs = 500;
+
+    private long reconnectDelayMs = 1000;
+}
@@ -0,0 +1,41 @@
+package com.example.crud.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class InProcessInvalidationTransport implements InvalidationTransport {
+
+    // Общая шина на всю JVM: несколько контекстов в одном процессе ведут себя как узлы кластера
+    private static final Map<String, List<InvalidationReceiver>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private volatile InvalidationReceiver receiver;
+
+    public InProcessInvalidationTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        String payload = message.encode();
+        for (InvalidationReceiver subscriber : CHANNELS.getOrDefault(channel, List.of())) {
+            subscriber.onMessage(InvalidationMessage.decode(payload));
+        }
+    }
+
+    @Override
+    public void start(InvalidationReceiver receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(receiver);
+    }
+
+    @Override
+    public void close() {
+        InvalidationReceiver current = receiver;
+        if (current != null) {
+            CHANNELS.getOrDefault(channel, List.of()).remove(current);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.crud.cluster;
+
+import com.example.crud.event.EntityType;
+import lombok.Value;
+
+@Value
+public class Invalidation {
+    EntityType entity;
+    int id;
+}
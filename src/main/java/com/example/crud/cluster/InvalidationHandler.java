@@ -0,0 +1,10 @@
+package com.example.crud.cluster;
+
+import java.util.Set;
+
+public interface InvalidationHandler {
+
+    void invalidate(Set<Integer> bookIds, Set<Integer> shelfIds);
+
+    void resync();
+}
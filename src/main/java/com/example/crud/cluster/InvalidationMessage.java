@@ -0,0 +1,48 @@
+package com.example.crud.cluster;
+
+import com.example.crud.event.EntityType;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Value
+public class InvalidationMessage {
+    String nodeId;
+    long sequence;
+    List<Invalidation> invalidations;
+
+    // Компактный формат "узел;номер;B:12,S:3" укладывается в лимит NOTIFY (8000 байт)
+    public String encode() {
+        StringBuilder payload = new StringBuilder(nodeId).append(';').append(sequence).append(';');
+        for (int i = 0; i < invalidations.size(); i++) {
+            Invalidation invalidation = invalidations.get(i);
+            if (i > 0) {
+                payload.append(',');
+            }
+            payload.append(invalidation.getEntity() == EntityType.SHELF ? 'S' : 'B')
+                    .append(':').append(invalidation.getId());
+        }
+        return payload.toString();
+    }
+
+    public static InvalidationMessage decode(String payload) {
+        String[] parts = payload.split(";", -1);
+        if (parts.length != 3 || parts[0].isEmpty()) {
+            throw new IllegalArgumentException("Некорректное сообщение об инвалидации: " + payload);
+        }
+
+        List<Invalidation> invalidations = new ArrayList<>();
+        if (!parts[2].isEmpty()) {
+            for (String item : parts[2].split(",")) {
+                String[] fields = item.split(":");
+                if (fields.length != 2 || !(fields[0].equals("B") || fields[0].equals("S"))) {
+                    throw new IllegalArgumentException("Некорректное сообщение об инвалидации: " + payload);
+                }
+                invalidations.add(new Invalidation(fields[0].equals("S") ? EntityType.SHELF : EntityType.BOOK,
+                        Integer.parseInt(fields[1])));
+            }
+        }
+        return new InvalidationMessage(parts[0], Long.parseLong(parts[1]), invalidations);
+    }
+}
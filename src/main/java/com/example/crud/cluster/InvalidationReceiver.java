@@ -0,0 +1,9 @@
+package com.example.crud.cluster;
+
+public interface InvalidationReceiver {
+
+    void onMessage(InvalidationMessage message);
+
+    // Транспорт переподключился и мог потерять сообщения
+    void onTransportReset();
+}
@@ -0,0 +1,10 @@
+package com.example.crud.cluster;
+
+public interface InvalidationTransport {
+
+    void publish(InvalidationMessage message);
+
+    void start(InvalidationReceiver receiver);
+
+    void close();
+}
@@ -0,0 +1,109 @@
+package com.example.crud.cluster;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+@Slf4j
+public class PostgresInvalidationTransport implements InvalidationTransport {
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+    private final long pollTimeoutMs;
+    private final long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresInvalidationTransport(HikariDataSource dataSource, String channel, long pollTimeoutMs,
+                                         long reconnectDelayMs) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Некорректное имя канала LISTEN/NOTIFY: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.channel = channel;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, message.encode());
+    }
+
+    @Override
+    public synchronized void start(InvalidationReceiver receiver) {
+        running = true;
+        listener = new Thread(() -> listen(receiver), "cluster-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        dataSource.close();
+    }
+
+    private void listen(InvalidationReceiver receiver) {
+        boolean connectedBefore = false;
+        while (running) {
+            // Соединение из собственного пула транспорта держится всё время работы узла: уведомления приходят только в сессию,
+            // выполнившую LISTEN
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    receiver.onTransportReset();
+                }
+                connectedBefore = true;
+                log.info("Подписка на канал инвалидации '{}' установлена", channel);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeoutMs);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(receiver, notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Подписка на канал инвалидации '{}' потеряна: {}", channel, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void deliver(InvalidationReceiver receiver, String payload) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(payload);
+        } catch (IllegalArgumentException e) {
+            log.warn("Пропущено сообщение об инвалидации: {}", e.getMessage());
+            return;
+        }
+        receiver.onMessage(message);
+    }
+}
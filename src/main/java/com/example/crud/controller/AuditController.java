@@ -0,0 +1,58 @@
+package com.example.crud.controller;
+
+import com.example.crud.audit.AuditEntry;
+import com.example.crud.audit.AuditLog;
+import com.example.crud.audit.AuditLogReader;
+import com.example.crud.audit.AuditStats;
+import com.example.crud.audit.CountingAsyncAppender;
+import com.example.crud.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/audit")
+@ConditionalOnProperty(prefix = "app.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AuditController {
+
+    @Autowired
+    private AuditLogReader auditLogReader;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @GetMapping
+    public ResponseEntity<List<AuditEntry>> readAudit(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "1000") int limit) throws IOException {
+
+        if (to == null) {
+            to = Instant.now();
+        }
+
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("Начало интервала не может быть позже конца");
+        }
+
+        List<AuditEntry> entries = auditLogReader.read(from, to, limit);
+        return new ResponseEntity<>(entries, HttpStatus.OK);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<AuditStats> readStats() {
+        AuditStats stats = new AuditStats(auditLog.getQueuedCount(), auditLog.getDroppedCount(),
+                CountingAsyncAppender.getDroppedCount());
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.crud.controller;
+
+import com.example.crud.dto.BatchGetRequest;
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class BatchGetController {
+
+    @Autowired
+    private BookService serviceBook;
+
+    @Autowired
+    private ShelfService serviceShelf;
+
+    @PostMapping("/book:batchGet")
+    public ResponseEntity<BatchGetResponse<Book>> batchGetBooks(@RequestBody BatchGetRequest request) {
+        return new ResponseEntity<>(serviceBook.getBooksByIds(request.getIds()), HttpStatus.OK);
+    }
+
+    @PostMapping("/shelf:batchGet")
+    public ResponseEntity<BatchGetResponse<Shelf>> batchGetShelves(@RequestBody BatchGetRequest request) {
+        return new ResponseEntity<>(serviceShelf.getShelvesByIds(request.getIds()), HttpStatus.OK);
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.crud.controller;
 
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.BookFields;
+import com.example.crud.dto.BookSearch;
 import com.example.crud.dto.BookWithShelfDTO;
+import com.example.crud.dto.DuplicateGroup;
 import com.example.crud.entity.Book;
 import com.example.crud.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/book")
@@ -53,11 +57,12 @@ public class BookController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks(
+    public ResponseEntity<List<Map<String, Object>>> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "title") String sortBy,
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String fields) {
 
         if (!isValidSortField(sortBy)) {
             sortBy = "title";
@@ -67,11 +72,24 @@ public class BookController {
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
 
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Book> booksPage = serviceBook.getAllBooks(pageable);
+        return findBooks(BookSearch.ALL, PageRequest.of(page, size, sort), fields);
+    }
 
-        List<Book> books = booksPage.getContent();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchGetResponse<Book>> getBooksByIds(@RequestParam List<Integer> ids) {
+        return new ResponseEntity<>(serviceBook.getBooksByIds(ids), HttpStatus.OK);
+    }
+
+    @GetMapping("/duplicates")
+    public ResponseEntity<List<DuplicateGroup>> findDuplicates(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
+        // after — fingerprint последней группы предыдущей страницы; группы тогда идут по fingerprint
+        if (after != null) {
+            return new ResponseEntity<>(serviceBook.findDuplicatesAfter(after, size), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(serviceBook.findDuplicates(page, size), HttpStatus.OK);
     }
 
     @GetMapping("/{id}/with-shelf")
@@ -95,109 +113,104 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(
+    public ResponseEntity<List<Map<String, Object>>> searchBooks(
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        if (keyword == null || keyword.trim().isEmpty()) {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Book> booksPage = serviceBook.getAllBooks(pageable);
-            return new ResponseEntity<>(booksPage.getContent(), HttpStatus.OK);
-        }
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> booksPage = serviceBook.searchBooks(keyword, pageable);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
 
-        List<Book> books = booksPage.getContent();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        BookSearch search = keyword == null || keyword.trim().isEmpty() ? BookSearch.ALL : BookSearch.keyword(keyword);
+        return findBooks(search, PageRequest.of(page, size), fields);
     }
 
     @GetMapping("/author")
-    public ResponseEntity<List<Book>> findByAuthor(
+    public ResponseEntity<List<Map<String, Object>>> findByAuthor(
             @RequestParam String author,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> booksPage = serviceBook.findByAuthor(author, pageable);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
 
-        List<Book> books = booksPage.getContent();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        return findBooks(BookSearch.author(author), PageRequest.of(page, size), fields);
     }
 
     @GetMapping("/year")
-    public ResponseEntity<List<Book>> findByYear(
+    public ResponseEntity<List<Map<String, Object>>> findByYear(
             @RequestParam Integer year,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> booksPage = serviceBook.findByYear(year, pageable);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
 
-        List<Book> books = booksPage.getContent();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        return findBooks(BookSearch.year(year), PageRequest.of(page, size), fields);
     }
 
     @GetMapping("/title-author")
-    public ResponseEntity<List<Book>> findByTitleAndAuthor(
+    public ResponseEntity<List<Map<String, Object>>> findByTitleAndAuthor(
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-
-        if (title == null && author == null) {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<Book> booksPage = serviceBook.getAllBooks(pageable);
-            return new ResponseEntity<>(booksPage.getContent(), HttpStatus.OK);
-        }
-
-        if (title == null) title = "";
-        if (author == null) author = "";
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> booksPage = serviceBook.findByTitleAndAuthor(title, author, pageable);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
 
-        List<Book> books = booksPage.getContent();
-        return new ResponseEntity<>(books, HttpStatus.OK);
+        BookSearch search = title == null && author == null
+                ? BookSearch.ALL
+                : BookSearch.titleAndAuthor(title == null ? "" : title, author == null ? "" : author);
+        return findBooks(search, PageRequest.of(page, size), fields);
     }
 
     @GetMapping("/sorted/title/asc")
-    public ResponseEntity<List<Book>> findAllSortedByTitleAsc() {
-        List<Book> books = serviceBook.findAllSortedByTitleAsc();
+    public ResponseEntity<List<Book>> findAllSortedByTitleAsc(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Book> books = serviceBook.findAllSorted("title", false, offset, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
     @GetMapping("/sorted/title/desc")
-    public ResponseEntity<List<Book>> findAllSortedByTitleDesc() {
-        List<Book> books = serviceBook.findAllSortedByTitleDesc();
+    public ResponseEntity<List<Book>> findAllSortedByTitleDesc(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Book> books = serviceBook.findAllSorted("title", true, offset, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
     @GetMapping("/sorted/author/asc")
-    public ResponseEntity<List<Book>> findAllSortedByAuthorAsc() {
-        List<Book> books = serviceBook.findAllSortedByAuthorAsc();
+    public ResponseEntity<List<Book>> findAllSortedByAuthorAsc(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Book> books = serviceBook.findAllSorted("author", false, offset, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
     @GetMapping("/sorted/author/desc")
-    public ResponseEntity<List<Book>> findAllSortedByAuthorDesc() {
-        List<Book> books = serviceBook.findAllSortedByAuthorDesc();
+    public ResponseEntity<List<Book>> findAllSortedByAuthorDesc(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Book> books = serviceBook.findAllSorted("author", true, offset, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
     @GetMapping("/sorted/year/asc")
-    public ResponseEntity<List<Book>> findAllSortedByYearAsc() {
-        List<Book> books = serviceBook.findAllSortedByYearAsc();
+    public ResponseEntity<List<Book>> findAllSortedByYearAsc(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Book> books = serviceBook.findAllSorted("year", false, offset, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
     @GetMapping("/sorted/year/desc")
-    public ResponseEntity<List<Book>> findAllSortedByYearDesc() {
-        List<Book> books = serviceBook.findAllSortedByYearDesc();
+    public ResponseEntity<List<Book>> findAllSortedByYearDesc(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        List<Book> books = serviceBook.findAllSorted("year", true, offset, limit);
         return new ResponseEntity<>(books, HttpStatus.OK);
     }
 
+    // Без fields отдаются все поля книги в той же форме, что и сущность Book
+    private ResponseEntity<List<Map<String, Object>>> findBooks(BookSearch search, Pageable pageable, String fields) {
+        BookFields selected = fields == null ? BookFields.ALL : BookFields.parse(fields);
+        return new ResponseEntity<>(serviceBook.findBooks(search, selected, pageable), HttpStatus.OK);
+    }
+
     private boolean isValidSortField(String field) {
         return field.equals("id") ||
                 field.equals("title") ||
@@ -0,0 +1,52 @@
+package com.example.crud.controller;
+
+import com.example.crud.diagnostics.DiagnosticsProperties;
+import com.example.crud.diagnostics.FlightRecorder;
+import com.example.crud.diagnostics.SlowRequest;
+import com.example.crud.exception.DiagnosticsAccessDeniedException;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+@RestController
+@RequestMapping("/diagnostics")
+@ConditionalOnProperty(prefix = "app.diagnostics", name = {"enabled", "endpoint-enabled"}, havingValue = "true")
+public class DiagnosticsController {
+
+    public static final String TOKEN_HEADER = "X-Diagnostics-Token";
+
+    @Autowired
+    private FlightRecorder flightRecorder;
+
+    @Autowired
+    private DiagnosticsProperties properties;
+
+    @PostConstruct
+    public void checkToken() {
+        if (properties.getEndpointToken() == null || properties.getEndpointToken().isBlank()) {
+            throw new IllegalStateException(
+                    "app.diagnostics.endpoint-enabled=true требует непустого app.diagnostics.endpoint-token");
+        }
+    }
+
+    @GetMapping("/slow-requests")
+    public ResponseEntity<List<SlowRequest>> getSlowRequests(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        // Сравнение за постоянное время, чтобы токен нельзя было подобрать по задержке ответа
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                properties.getEndpointToken().getBytes(StandardCharsets.UTF_8))) {
+            throw new DiagnosticsAccessDeniedException("Неверный или отсутствующий токен диагностики");
+        }
+        return new ResponseEntity<>(flightRecorder.getSlowRequests(), HttpStatus.OK);
+    }
+}
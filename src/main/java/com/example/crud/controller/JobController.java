@@ -0,0 +1,81 @@
+package com.example.crud.controller;
+
+import com.example.crud.dto.BookRequest;
+import com.example.crud.dto.DeleteBooksRequest;
+import com.example.crud.dto.JobResponse;
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobType;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.job.ImportBooksParameters;
+import com.example.crud.job.ImportDuplicateMode;
+import com.example.crud.job.JobService;
+import com.example.crud.service.ShelfService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/jobs")
+@ConditionalOnProperty(prefix = "app.jobs", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JobController {
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private ShelfService shelfService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PostMapping("/clear-shelf/{shelfId}")
+    public ResponseEntity<JobResponse> clearShelf(@PathVariable Integer shelfId) {
+        long total = shelfService.getShelfSummary(shelfId).getBookCount();
+        return accepted(jobService.submit(JobType.CLEAR_SHELF, String.valueOf(shelfId), total));
+    }
+
+    @PostMapping("/delete-books")
+    public ResponseEntity<JobResponse> deleteBooks(@RequestBody DeleteBooksRequest request)
+            throws JsonProcessingException {
+        List<Integer> bookIds = request.getBookIds();
+        if (bookIds == null || bookIds.isEmpty()) {
+            throw new InvalidRequestException("Список ID книг не может быть пустым");
+        }
+
+        String parameters = objectMapper.writeValueAsString(bookIds);
+        return accepted(jobService.submit(JobType.DELETE_BOOKS, parameters, bookIds.size()));
+    }
+
+    @PostMapping("/import-books")
+    public ResponseEntity<JobResponse> importBooks(@RequestBody List<BookRequest> books,
+                                                   @RequestParam(defaultValue = "skip") String duplicates)
+            throws JsonProcessingException {
+        if (books == null || books.isEmpty()) {
+            throw new InvalidRequestException("Список книг для импорта не может быть пустым");
+        }
+
+        ImportDuplicateMode mode = ImportDuplicateMode.fromParameter(duplicates);
+        String parameters = objectMapper.writeValueAsString(new ImportBooksParameters(mode, books));
+        return accepted(jobService.submit(JobType.IMPORT_BOOKS, parameters, books.size()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobResponse> getJob(@PathVariable String id) {
+        return new ResponseEntity<>(JobResponse.from(jobService.getJob(id)), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobResponse> cancelJob(@PathVariable String id) {
+        return new ResponseEntity<>(JobResponse.from(jobService.cancel(id)), HttpStatus.ACCEPTED);
+    }
+
+    private ResponseEntity<JobResponse> accepted(Job job) {
+        return new ResponseEntity<>(JobResponse.from(job), HttpStatus.ACCEPTED);
+    }
+}
@@ -1,22 +1,47 @@
 package com.example.crud.controller;
 
+import com.example.crud.deadline.Deadline;
+import com.example.crud.deadline.RequestDeadline;
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.dto.ShelfSummary;
 import com.example.crud.entity.Book;
 import com.example.crud.entity.Shelf;
 import com.example.crud.service.ShelfService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/shelf")
 public class ShelfController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private ShelfService serviceShelf;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @PostMapping
     public ResponseEntity<Shelf> createShelf(@RequestBody Shelf shelf) {
         Shelf createdShelf = serviceShelf.createShelf(shelf);
@@ -29,6 +54,23 @@ public class ShelfController {
         return new ResponseEntity<>(shelves, HttpStatus.OK);
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<List<ShelfSummary>> getShelfSummaries(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return new ResponseEntity<>(serviceShelf.getShelfSummaries(page, size), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<ShelfSummary> getShelfSummary(@PathVariable Integer id) {
+        return new ResponseEntity<>(serviceShelf.getShelfSummary(id), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchGetResponse<Shelf>> getShelvesByIds(@RequestParam List<Integer> ids) {
+        return new ResponseEntity<>(serviceShelf.getShelvesByIds(ids), HttpStatus.OK);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Shelf> updateShelf(@PathVariable Integer id, @RequestBody Shelf shelf) {
         Shelf updatedShelf = serviceShelf.updateShelf(id, shelf);
@@ -48,12 +90,74 @@ public class ShelfController {
     }
 
     @GetMapping("/{id}/books")
-    public ResponseEntity<List<Book>> getBooksForShelf(@PathVariable Integer id) {
-        List<Book> books = serviceShelf.getBooksForShelf(id);
-        if (books == null) {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<List<Book>> getBooksForShelf(
+            @PathVariable Integer id,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction) {
+
+        // Без page и size полка отдаётся целиком, как раньше
+        if (page == null && size == null) {
+            List<Book> books = serviceShelf.getBooksForShelf(id);
+            if (books == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(books, HttpStatus.OK);
+        }
+
+        BookSortKey sortKey = BookSortKey.fromProperty(sortBy);
+        Sort.Order order = new Sort.Order(
+                direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC, sortKey.getProperty());
+        if (sortKey.isText()) {
+            order = order.ignoreCase();
         }
-        return new ResponseEntity<>(books, HttpStatus.OK);
+
+        Pageable pageable = PageRequest.of(page != null ? page : 0, size != null ? size : 20, Sort.by(order));
+        Page<Book> booksPage = serviceShelf.getBooksForShelf(id, pageable);
+        return new ResponseEntity<>(booksPage.getContent(), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/books/cursor")
+    public ResponseEntity<CursorPage<Book>> getBooksForShelfAfter(
+            @PathVariable Integer id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction) {
+
+        // Курсор хранит сортировку первой страницы, параметры sortBy и direction для следующих страниц не нужны
+        BookCursor after = cursor != null ? BookCursor.decode(cursor) : null;
+        BookSortKey sortKey = after != null ? after.getSortKey() : BookSortKey.fromProperty(sortBy);
+        boolean descending = after != null ? after.isDescending() : direction.equalsIgnoreCase("desc");
+
+        return new ResponseEntity<>(
+                serviceShelf.getBooksForShelfAfter(id, sortKey, descending, after, limit), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/{id}/books/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamBooksForShelf(@PathVariable Integer id) {
+        ShelfSummary shelf = serviceShelf.getShelfSummary(id);
+        Deadline deadline = RequestDeadline.current();
+
+        StreamingResponseBody body = output -> {
+            // Тело пишется в потоке async-обработки, поэтому срок запроса захвачен ещё в потоке запроса
+            // Транзакция с таймаутом по сроку запроса ограничивает и сам SQL выгрузки
+            RequestDeadline.runWithin(deadline, () -> RequestDeadline.transactionTemplate(transactionManager, true)
+                    .executeWithoutResult(status -> serviceShelf.streamBooksForShelf(id, book -> {
+                        RequestDeadline.check("выгрузка книг полки");
+                        try {
+                            output.write(objectMapper.writeValueAsBytes(book));
+                            output.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })));
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header("X-Total-Count", String.valueOf(shelf.getBookCount()))
+                .body(body);
     }
 
     @DeleteMapping("/books/{bookId}")
@@ -0,0 +1,82 @@
+package com.example.crud.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.UUID;
+
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+    private final String clientHeader;
+    private final String clientCookie;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, String clientHeader, String clientCookie) {
+        this.tracker = tracker;
+        this.clientHeader = clientHeader;
+        this.clientCookie = clientCookie;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = isWrite(request.getMethod());
+        String client = resolveClient(request, response, write);
+
+        // Фильтр стоит после контроля допуска и идемпотентности: сброшенная или повторённая из кэша запись сюда
+        // не доходит. Запись отмечается до обработки: ответ может уйти клиенту раньше, чем фильтр получит управление
+        // обратно, и следующее чтение не должно опередить отметку
+        if (write) {
+            tracker.recordWrite(client);
+        }
+
+        tracker.setCurrentClient(client);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracker.clearCurrentClient();
+            // Окно отсчитывается от конца записи, а не от её начала
+            if (write && response.getStatus() < 400) {
+                tracker.recordWrite(client);
+            }
+        }
+    }
+
+    // Клиент определяется явным заголовком, иначе по cookie, которую фильтр выдаёт сам. Клиент без заголовка и cookie
+    // на каждом запросе получал бы новую cookie, поэтому его запись привязывается к адресу и User-Agent: за NAT такие
+    // клиенты делят ключ и читают с основной БД, но лишь в пределах окна после записи
+    private String resolveClient(HttpServletRequest request, HttpServletResponse response, boolean write) {
+        String client = request.getHeader(clientHeader);
+        if (client != null && !client.isBlank()) {
+            return client;
+        }
+
+        Cookie cookie = WebUtils.getCookie(request, clientCookie);
+        if (cookie != null && !cookie.getValue().isBlank()) {
+            return cookie.getValue();
+        }
+
+        String token = UUID.randomUUID().toString();
+        Cookie issued = new Cookie(clientCookie, token);
+        issued.setPath("/");
+        issued.setHttpOnly(true);
+        response.addCookie(issued);
+        // Клиент, сохранивший cookie, следующим запросом придёт уже с ней
+        if (write) {
+            tracker.recordWrite(token);
+        }
+        return "anonymous:" + request.getRemoteAddr() + "|" + Objects.toString(request.getHeader(HttpHeaders.USER_AGENT), "");
+    }
+
+    private boolean isWrite(String method) {
+        return !method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.crud.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ReadYourWritesTracker {
+
+    private final ThreadLocal<String> currentClient = new ThreadLocal<>();
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long windowMs;
+
+    public ReadYourWritesTracker(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void setCurrentClient(String client) {
+        currentClient.set(client);
+    }
+
+    public void clearCurrentClient() {
+        currentClient.remove();
+    }
+
+    public void recordWrite(String client) {
+        lastWrites.put(client, System.currentTimeMillis() + windowMs);
+    }
+
+    public boolean isSticky() {
+        String client = currentClient.get();
+        if (client == null) {
+            return false;
+        }
+
+        Long until = lastWrites.get(client);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        lastWrites.values().removeIf(until -> until <= now);
+    }
+}
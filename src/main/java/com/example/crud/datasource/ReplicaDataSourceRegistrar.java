@@ -0,0 +1,74 @@
+package com.example.crud.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Пулы основной БД и реплик регистрируются бинами, чтобы контекст закрывал их при остановке. Как и пулы шардов,
+// они не кандидаты на автосвязывание: наружу виден только маршрутизирующий dataSource из ReplicaRoutingConfig
+public class ReplicaDataSourceRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    public static final String PRIMARY_BEAN_NAME = "primaryDataSource";
+
+    private Environment environment;
+
+    public static String replicaBeanName(int index) {
+        return "replicaDataSource" + index;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        Binder binder = Binder.get(environment);
+        ReplicaRoutingProperties properties = binder.bind("app.datasource.routing", ReplicaRoutingProperties.class)
+                .orElseGet(ReplicaRoutingProperties::new);
+        DataSourceProperties dataSourceProperties = binder.bind("spring.datasource", DataSourceProperties.class)
+                .orElseGet(DataSourceProperties::new);
+
+        register(registry, PRIMARY_BEAN_NAME, () -> {
+            HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+            dataSource.setMaximumPoolSize(properties.getPrimaryMaxPoolSize());
+            return dataSource;
+        });
+
+        List<ReplicaRoutingProperties.Replica> replicas = properties.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            ReplicaRoutingProperties.Replica config = replicas.get(i);
+            String poolName = "replica-" + i;
+            register(registry, replicaBeanName(i), () -> {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName(poolName);
+                dataSource.setJdbcUrl(config.getUrl());
+                dataSource.setUsername(config.getUsername());
+                dataSource.setPassword(config.getPassword());
+                dataSource.setMaximumPoolSize(config.getMaxPoolSize());
+                dataSource.setReadOnly(true);
+                // Недоступная при старте реплика не мешает запуску, её исключит проверка здоровья
+                dataSource.setInitializationFailTimeout(-1);
+                return dataSource;
+            });
+        }
+    }
+
+    private void register(BeanDefinitionRegistry registry, String beanName, Supplier<HikariDataSource> supplier) {
+        RootBeanDefinition definition = new RootBeanDefinition(HikariDataSource.class, supplier);
+        definition.setDestroyMethodName("close");
+        definition.setAutowireCandidate(false);
+        registry.registerBeanDefinition(beanName, definition);
+    }
+}
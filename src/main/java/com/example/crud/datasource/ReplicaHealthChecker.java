@@ -0,0 +1,23 @@
+package com.example.crud.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+public class ReplicaHealthChecker {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final ReadYourWritesTracker tracker;
+    private final int timeoutSeconds;
+
+    public ReplicaHealthChecker(ReplicaRoutingDataSource routingDataSource, ReadYourWritesTracker tracker,
+                                int timeoutSeconds) {
+        this.routingDataSource = routingDataSource;
+        this.tracker = tracker;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval-ms:5000}")
+    public void check() {
+        routingDataSource.checkReplicas(timeoutSeconds);
+        tracker.evictExpired();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.crud.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private final ReplicaRoutingProperties properties;
+
+    public ReplicaRoutingConfig(ReplicaRoutingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(properties.getStickinessWindowMs());
+    }
+
+    @Bean
+    public static ReplicaDataSourceRegistrar replicaDataSourceRegistrar() {
+        return new ReplicaDataSourceRegistrar();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(BeanFactory beanFactory, ReadYourWritesTracker tracker) {
+        DataSource primary = beanFactory.getBean(ReplicaDataSourceRegistrar.PRIMARY_BEAN_NAME, DataSource.class);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            replicas.put("replica-" + i, beanFactory.getBean(ReplicaDataSourceRegistrar.replicaBeanName(i), DataSource.class));
+        }
+
+        log.info("Маршрутизация чтения включена: {} реплик", replicas.size());
+        return new ReplicaRoutingDataSource(primary, replicas, tracker);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWritesTracker tracker) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(tracker, properties.getClientHeader(), properties.getClientCookie()));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 25);
+        return registration;
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(ReplicaRoutingDataSource routingDataSource,
+                                                     ReadYourWritesTracker tracker) {
+        return new ReplicaHealthChecker(routingDataSource, tracker, properties.getHealthCheckTimeoutSeconds());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.crud.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> healthyReplicas = new CopyOnWriteArrayList<>();
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ReadYourWritesTracker tracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReadYourWritesTracker tracker) {
+        this.replicas = replicas;
+        this.tracker = tracker;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        healthyReplicas.addAll(replicas.keySet());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || tracker.isSticky()) {
+            return PRIMARY;
+        }
+
+        List<String> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+
+        int index = Math.floorMod(counter.getAndIncrement(), candidates.size());
+        try {
+            return candidates.get(index);
+        } catch (IndexOutOfBoundsException e) {
+            return PRIMARY;
+        }
+    }
+
+    public void checkReplicas(int timeoutSeconds) {
+        for (Map.Entry<String, DataSource> entry : replicas.entrySet()) {
+            String name = entry.getKey();
+            boolean healthy = isHealthy(entry.getValue(), timeoutSeconds);
+
+            if (healthy && !healthyReplicas.contains(name)) {
+                healthyReplicas.add(name);
+                log.info("Реплика '{}' снова доступна", name);
+            } else if (!healthy && healthyReplicas.remove(name)) {
+                log.warn("Реплика '{}' недоступна, чтение переключено на остальные источники", name);
+            }
+        }
+    }
+
+    public List<String> getHealthyReplicas() {
+        return List.copyOf(healthyReplicas);
+    }
+
+    private boolean isHealthy(DataSource dataSource, int timeoutSeconds) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(timeoutSeconds);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.crud.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled = false;
+
+    private int primaryMaxPoolSize = 10;
+
+    private long healthCheckIntervalMs = 5000;
+
+    private int healthCheckTimeoutSeconds = 2;
+
+    private long stickinessWindowMs = 3000;
+
+    private String clientHeader = "X-Client-Id";
+
+    private String clientCookie = "rw-client";
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maxPoolSize = 10;
+    }
+}
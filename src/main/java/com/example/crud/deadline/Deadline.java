@@ -0,0 +1,52 @@
+package com.example.crud.deadline;
+
+import com.example.crud.exception.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+public final class Deadline {
+
+    private final long startNanos;
+    private final long deadlineNanos;
+
+    private Deadline(long startNanos, long deadlineNanos) {
+        this.startNanos = startNanos;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(long timeoutMs) {
+        long now = System.nanoTime();
+        return new Deadline(now, now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs)));
+    }
+
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    public long timeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - startNanos);
+    }
+
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    public int remainingSeconds() {
+        long remaining = remainingMillis();
+        return remaining <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+    }
+
+    public boolean isExpired() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    public void check(String stage) {
+        if (isExpired()) {
+            throw exceeded(stage);
+        }
+    }
+
+    public DeadlineExceededException exceeded(String stage) {
+        return new DeadlineExceededException(stage, elapsedMillis(), timeoutMillis());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.crud.deadline;
+
+import com.example.crud.admission.RouteClassifier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+// Сроки запросов включаются явно. Общий потолок для SQL задают spring.transaction.default-timeout
+// и spring.jpa.properties.jakarta.persistence.query.timeout, срок конкретного запроса передаётся
+// через RequestDeadline.transactionTemplate и RequestDeadline.bounded
+@Configuration
+@EnableConfigurationProperties(DeadlineProperties.class)
+@ConditionalOnProperty(prefix = "app.deadline", name = "enabled", havingValue = "true")
+public class DeadlineConfig {
+
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(
+            DeadlineProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        FilterRegistrationBean<DeadlineFilter> registration = new FilterRegistrationBean<>(
+                new DeadlineFilter(new RouteClassifier(), properties, exceptionResolver));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 15);
+        return registration;
+    }
+}
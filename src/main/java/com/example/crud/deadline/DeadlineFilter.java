@@ -0,0 +1,103 @@
+package com.example.crud.deadline;
+
+import com.example.crud.admission.RouteClassifier;
+import com.example.crud.exception.DeadlineExceededException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+@Slf4j
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final RouteClassifier classifier;
+    private final DeadlineProperties properties;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public DeadlineFilter(RouteClassifier classifier, DeadlineProperties properties,
+                          HandlerExceptionResolver exceptionResolver) {
+        this.classifier = classifier;
+        this.properties = properties;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Deadline deadline = Deadline.after(resolveTimeoutMs(request));
+        if (deadline.isExpired()) {
+            log.warn("Запрос {} {} отклонён: срок выполнения истёк до начала обработки",
+                    request.getMethod(), request.getRequestURI());
+            reject(request, response, deadline);
+            return;
+        }
+
+        RequestDeadline.set(deadline);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private long resolveTimeoutMs(HttpServletRequest request) {
+        Long routeTimeout = properties.getRouteTimeoutsMs().get(classifier.classify(request));
+        long timeout = routeTimeout != null
+                ? routeTimeout
+                : properties.getRouteTimeoutsMs().getOrDefault(RouteClassifier.DEFAULT, properties.getMaxTimeoutMs());
+
+        Long requested = null;
+        String timeoutHeader = request.getHeader(properties.getTimeoutHeader());
+        if (timeoutHeader != null) {
+            try {
+                requested = Long.parseLong(timeoutHeader.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Некорректный заголовок {}: '{}', используется таймаут маршрута",
+                        properties.getTimeoutHeader(), timeoutHeader);
+            }
+        }
+
+        String deadlineHeader = request.getHeader(properties.getDeadlineHeader());
+        if (deadlineHeader != null) {
+            Long untilDeadline = parseDeadline(deadlineHeader.trim());
+            if (untilDeadline != null) {
+                requested = requested == null ? untilDeadline : Math.min(requested, untilDeadline);
+            }
+        }
+
+        if (requested != null) {
+            timeout = requested;
+        }
+        return Math.min(timeout, properties.getMaxTimeoutMs());
+    }
+
+    private Long parseDeadline(String value) {
+        try {
+            long epochMillis = value.chars().allMatch(Character::isDigit)
+                    ? Long.parseLong(value)
+                    : Instant.parse(value).toEpochMilli();
+            return epochMillis - System.currentTimeMillis();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            log.warn("Некорректный заголовок {}: '{}', используется таймаут маршрута",
+                    properties.getDeadlineHeader(), value);
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Deadline deadline)
+            throws IOException {
+        DeadlineExceededException error = new DeadlineExceededException("до начала обработки",
+                deadline.elapsedMillis(), deadline.timeoutMillis());
+        if (exceptionResolver.resolveException(request, response, null, error) == null) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.crud.deadline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = false;
+
+    private String deadlineHeader = "X-Request-Deadline";
+
+    private String timeoutHeader = "X-Request-Timeout";
+
+    private long maxTimeoutMs = 60000;
+
+    private Map<String, Long> routeTimeoutsMs = new LinkedHashMap<>(Map.of(
+            "default", 10000L,
+            "heavy", 5000L
+    ));
+}
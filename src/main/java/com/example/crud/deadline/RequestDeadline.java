@@ -0,0 +1,120 @@
+package com.example.crud.deadline;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    static void set(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void check(String stage) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check(stage);
+        }
+    }
+
+    // Таймаут транзакции по оставшемуся сроку запроса: Spring сам выставляет его в setQueryTimeout каждого запроса
+    // JPA и JdbcTemplate внутри неё, прокси над соединениями для этого не нужен
+    public static TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager,
+                                                          boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check("начало транзакции");
+            template.setTimeout(deadline.remainingSeconds());
+        }
+        return template;
+    }
+
+    // Чтение вне транзакции получает копию шаблона с таймаутом запроса по оставшемуся сроку
+    public static JdbcTemplate bounded(JdbcTemplate jdbcTemplate) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return jdbcTemplate;
+        }
+        deadline.check("запрос к базе данных");
+        JdbcTemplate bounded = new JdbcTemplate(jdbcTemplate.getDataSource());
+        bounded.setQueryTimeout(deadline.remainingSeconds());
+        return bounded;
+    }
+
+    public static <T> Predicate<T> checking(String stage, Predicate<T> predicate) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return predicate;
+        }
+        return item -> {
+            deadline.check(stage);
+            return predicate.test(item);
+        };
+    }
+
+    public static <T> Comparator<T> checking(String stage, Comparator<T> comparator) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return comparator;
+        }
+        return (left, right) -> {
+            deadline.check(stage);
+            return comparator.compare(left, right);
+        };
+    }
+
+    public static void runWithin(Deadline deadline, Runnable task) {
+        Deadline previous = CURRENT.get();
+        if (deadline != null) {
+            CURRENT.set(deadline);
+        }
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            Deadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                return task.call();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.crud.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crud.Controller")
+@Label("Вызов контроллера")
+@Category({"CRUD", "Web"})
+public class ControllerEvent extends Event {
+
+    @Label("Обработчик")
+    String handler;
+}
@@ -0,0 +1,51 @@
+package com.example.crud.diagnostics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+@EnableConfigurationProperties(DiagnosticsProperties.class)
+@ConditionalOnProperty(prefix = "app.diagnostics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DiagnosticsConfig {
+
+    @Bean
+    public FlightRecorder flightRecorder(DiagnosticsProperties properties) {
+        return new FlightRecorder(properties);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FlightRecorderFilter> flightRecorderFilter(FlightRecorder recorder,
+                                                                            DiagnosticsProperties properties) {
+        FilterRegistrationBean<FlightRecorderFilter> registration =
+                new FilterRegistrationBean<>(new FlightRecorderFilter(recorder, properties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    @Bean
+    public static FlightRecorderPostProcessor flightRecorderPostProcessor() {
+        return new FlightRecorderPostProcessor();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer flightRecorderStatementInspector(DiagnosticsProperties properties) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                new FlightRecorderStatementInspector(
+                        FlightRecorderStatementInspector.resolve(
+                                hibernateProperties.get(AvailableSettings.STATEMENT_INSPECTOR)),
+                        properties.getSqlMaxLength()));
+    }
+
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJacksonHttpMessageConverter(objectMapper);
+    }
+}
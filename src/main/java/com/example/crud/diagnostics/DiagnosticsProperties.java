@@ -0,0 +1,37 @@
+package com.example.crud.diagnostics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.diagnostics")
+public class DiagnosticsProperties {
+
+    private boolean enabled = true;
+
+    private long slowRequestThresholdMs = 1000;
+
+    private long eventThresholdMs = 1;
+
+    private int maxSlowRequests = 100;
+
+    private long recordingMaxAgeSeconds = 300;
+
+    private long recordingMaxSizeBytes = 64L * 1024 * 1024;
+
+    private String dumpDirectory = "diagnostics";
+
+    private int maxDumps = 20;
+
+    private long minDumpIntervalMs = 10000;
+
+    private int sqlMaxLength = 2000;
+
+    // SQL попадает в запись только для вызовов репозитория не быстрее порога
+    private long sqlThresholdMs = 50;
+
+    // Список медленных запросов раскрывает пути и SQL-статистику, поэтому по умолчанию не публикуется
+    private boolean endpointEnabled = false;
+
+    private String endpointToken = "";
+}
@@ -0,0 +1,184 @@
+package com.example.crud.diagnostics;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Slf4j
+public class FlightRecorder {
+
+    private final DiagnosticsProperties properties;
+    private final Path dumpDirectory;
+    private final Recording recording;
+    private final Deque<Entry> slowRequests = new ArrayDeque<>();
+    private final AtomicLong lastDumpAt = new AtomicLong();
+    private final ExecutorService dumper = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-recorder-dump");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FlightRecorder(DiagnosticsProperties properties) {
+        this.properties = properties;
+        this.dumpDirectory = Paths.get(properties.getDumpDirectory());
+        this.recording = startRecording();
+    }
+
+    private Recording startRecording() {
+        if (!jdk.jfr.FlightRecorder.isAvailable()) {
+            log.warn("JFR недоступен в этой JVM, дампы медленных запросов записываться не будут");
+            return null;
+        }
+        try {
+            // Только собственные события приложения: профиль JDK по умолчанию для постоянной записи слишком дорог
+            Recording started = new Recording();
+            started.setName("crud-flight-recorder");
+            started.setToDisk(true);
+            started.setMaxAge(Duration.ofSeconds(properties.getRecordingMaxAgeSeconds()));
+            started.setMaxSize(properties.getRecordingMaxSizeBytes());
+
+            Duration threshold = Duration.ofMillis(properties.getEventThresholdMs());
+            started.enable(RequestEvent.class).withoutThreshold();
+            started.enable(SqlEvent.class).withThreshold(Duration.ofMillis(properties.getSqlThresholdMs()));
+            started.enable(ControllerEvent.class).withThreshold(threshold);
+            started.enable(ServiceEvent.class).withThreshold(threshold);
+            started.enable(RepositoryEvent.class).withThreshold(threshold);
+            started.enable(SerializationEvent.class).withThreshold(threshold);
+            started.start();
+            log.info("Запущена непрерывная JFR-запись: хранится {} с, не более {} байт",
+                    properties.getRecordingMaxAgeSeconds(), properties.getRecordingMaxSizeBytes());
+            return started;
+        } catch (IllegalStateException | SecurityException e) {
+            log.warn("Не удалось запустить JFR-запись: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public void onSlowRequest(String method, String path, int status, long durationNanos, RequestProfile profile) {
+        CompletableFuture<Path> dump = scheduleDump();
+        SlowRequest slowRequest = new SlowRequest(Instant.now(), method, path, status, durationNanos / 1_000_000,
+                profile.phasesMs(), profile.getSqlStatements(), SlowRequest.DumpStatus.NONE, null, null);
+        log.warn("Медленный запрос {} {}: {} мс, статус {}, фазы {}, SQL-запросов {}", method, path,
+                slowRequest.getDurationMs(), status, slowRequest.getPhasesMs(), slowRequest.getSqlStatements());
+
+        synchronized (slowRequests) {
+            slowRequests.addFirst(new Entry(slowRequest, dump));
+            while (slowRequests.size() > properties.getMaxSlowRequests()) {
+                slowRequests.removeLast();
+            }
+        }
+    }
+
+    public List<SlowRequest> getSlowRequests() {
+        List<Entry> entries;
+        synchronized (slowRequests) {
+            entries = new ArrayList<>(slowRequests);
+        }
+        return entries.stream().map(Entry::toSlowRequest).toList();
+    }
+
+    // Не чаще одного дампа за интервал: всплеск медленных запросов попадает в один и тот же кольцевой буфер
+    private CompletableFuture<Path> scheduleDump() {
+        if (recording == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastDumpAt.get();
+        if (now - last < properties.getMinDumpIntervalMs() || !lastDumpAt.compareAndSet(last, now)) {
+            return null;
+        }
+
+        Path target = dumpDirectory.resolve("slow-request-" + now + ".jfr");
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        try {
+            dumper.execute(() -> dump(target, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("Очередь записи дампов закрыта", e));
+        }
+        return result;
+    }
+
+    private void dump(Path target, CompletableFuture<Path> result) {
+        try {
+            Files.createDirectories(dumpDirectory);
+            recording.dump(target);
+            log.info("JFR-дамп медленного запроса записан в {}", target);
+            result.complete(target);
+        } catch (IOException | IllegalStateException e) {
+            log.error("Не удалось записать JFR-дамп {}: {}", target, e.getMessage());
+            result.completeExceptionally(e);
+            return;
+        }
+        try {
+            pruneDumps();
+        } catch (IOException e) {
+            log.warn("Не удалось удалить старые JFR-дампы: {}", e.getMessage());
+        }
+    }
+
+    private void pruneDumps() throws IOException {
+        List<Path> dumps;
+        try (Stream<Path> files = Files.list(dumpDirectory)) {
+            dumps = files.filter(file -> file.getFileName().toString().startsWith("slow-request-"))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        }
+        for (Path stale : dumps.subList(Math.min(dumps.size(), properties.getMaxDumps()), dumps.size())) {
+            Files.deleteIfExists(stale);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        dumper.shutdown();
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private static final class Entry {
+        private final SlowRequest slowRequest;
+        private final CompletableFuture<Path> dump;
+
+        Entry(SlowRequest slowRequest, CompletableFuture<Path> dump) {
+            this.slowRequest = slowRequest;
+            this.dump = dump;
+        }
+
+        SlowRequest toSlowRequest() {
+            if (dump == null) {
+                return slowRequest;
+            }
+            if (!dump.isDone()) {
+                return slowRequest.withDumpStatus(SlowRequest.DumpStatus.PENDING);
+            }
+            try {
+                return slowRequest.withDumpStatus(SlowRequest.DumpStatus.WRITTEN)
+                        .withDumpFile(dump.join().toString());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                return slowRequest.withDumpStatus(SlowRequest.DumpStatus.FAILED)
+                        .withDumpError(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+            }
+        }
+    }
+}
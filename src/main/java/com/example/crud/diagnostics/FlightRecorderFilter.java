@@ -0,0 +1,47 @@
+package com.example.crud.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+public class FlightRecorderFilter extends OncePerRequestFilter {
+
+    private final FlightRecorder recorder;
+    private final long thresholdNanos;
+
+    public FlightRecorderFilter(FlightRecorder recorder, DiagnosticsProperties properties) {
+        this.recorder = recorder;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowRequestThresholdMs());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestProfile profile = RequestProfile.start();
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long duration = System.nanoTime() - started;
+            RequestProfile.clear();
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.path = request.getRequestURI();
+                event.status = response.getStatus();
+                event.commit();
+            }
+            if (duration >= thresholdNanos) {
+                recorder.onSlowRequest(request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        duration, profile);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.crud.diagnostics;
+
+import com.example.crud.dto.BookSearch;
+import com.example.crud.dto.BookSortKey;
+import jdk.jfr.Event;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FlightRecorderInterceptor implements MethodInterceptor {
+
+    private static final ParameterNameDiscoverer PARAMETER_NAMES = new DefaultParameterNameDiscoverer();
+
+    private final RequestProfile.Phase phase;
+    private final String beanName;
+    private final Map<Method, ServiceArguments> serviceArguments = new ConcurrentHashMap<>();
+
+    public FlightRecorderInterceptor(RequestProfile.Phase phase, String beanName) {
+        this.phase = phase;
+        this.beanName = beanName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        Event event = newEvent();
+        // SQL собирается только на время вызова репозитория и попадает в запись, если вызов оказался медленным
+        SqlEvent sqlEvent = phase == RequestProfile.Phase.REPOSITORY ? new SqlEvent() : null;
+        List<String> statements = sqlEvent != null && sqlEvent.isEnabled()
+                ? FlightRecorderStatementInspector.capture()
+                : null;
+        event.begin();
+        if (statements != null) {
+            sqlEvent.begin();
+        }
+        long started = RequestProfile.enter(phase);
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestProfile.exit(phase, started);
+            event.end();
+            if (event.shouldCommit()) {
+                describe(event, invocation.getMethod(), invocation.getArguments());
+                event.commit();
+            }
+            if (statements != null) {
+                FlightRecorderStatementInspector.release();
+                commitSql(sqlEvent, invocation.getMethod(), statements);
+            }
+        }
+    }
+
+    private Event newEvent() {
+        return switch (phase) {
+            case CONTROLLER -> new ControllerEvent();
+            case SERVICE -> new ServiceEvent();
+            case REPOSITORY -> new RepositoryEvent();
+            case SERIALIZATION -> throw new IllegalStateException("Сериализация профилируется конвертером сообщений");
+        };
+    }
+
+    private void commitSql(SqlEvent sqlEvent, Method method, List<String> statements) {
+        sqlEvent.end();
+        if (statements.isEmpty() || !sqlEvent.shouldCommit()) {
+            return;
+        }
+        sqlEvent.repository = beanName;
+        sqlEvent.method = method.getName();
+        sqlEvent.statements = statements.size();
+        sqlEvent.sql = String.join(";\n", statements);
+        sqlEvent.commit();
+    }
+
+    private void describe(Event event, Method method, Object[] arguments) {
+        switch (event) {
+            case ControllerEvent controller -> controller.handler = beanName + "." + method.getName();
+            case RepositoryEvent repository -> {
+                repository.repository = beanName;
+                repository.method = method.getName();
+            }
+            case ServiceEvent service -> describeService(service, method, arguments);
+            default -> {
+            }
+        }
+    }
+
+    private void describeService(ServiceEvent event, Method method, Object[] arguments) {
+        event.service = beanName;
+        event.method = method.getName();
+        event.keywordLength = -1;
+        event.page = -1;
+        event.pageSize = -1;
+        serviceArguments.computeIfAbsent(method, ServiceArguments::of).describe(event, arguments);
+    }
+
+    // Роли аргументов выводятся один раз на метод: по типу (Pageable, BookSearch, BookSortKey) или по имени параметра
+    private static final class ServiceArguments {
+
+        private int keyword = -1;
+        private int sortField = -1;
+        private int descending = -1;
+        private int page = -1;
+        private int pageSize = -1;
+
+        static ServiceArguments of(Method method) {
+            ServiceArguments roles = new ServiceArguments();
+            String[] names = PARAMETER_NAMES.getParameterNames(method);
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; names != null && i < names.length; i++) {
+                boolean number = types[i] == int.class || types[i] == Integer.class;
+                switch (names[i]) {
+                    case "keyword" -> roles.keyword = types[i] == String.class ? i : roles.keyword;
+                    case "field", "sortBy" -> roles.sortField = types[i] == String.class ? i : roles.sortField;
+                    case "descending" -> roles.descending = types[i] == boolean.class ? i : roles.descending;
+                    case "page" -> roles.page = number ? i : roles.page;
+                    case "size", "limit" -> roles.pageSize = number ? i : roles.pageSize;
+                    default -> {
+                    }
+                }
+            }
+            return roles;
+        }
+
+        void describe(ServiceEvent event, Object[] arguments) {
+            for (Object argument : arguments) {
+                if (argument instanceof Pageable pageable && pageable.isPaged()) {
+                    event.page = pageable.getPageNumber();
+                    event.pageSize = pageable.getPageSize();
+                    if (pageable.getSort().isSorted()) {
+                        event.sort = pageable.getSort().toString();
+                    }
+                } else if (argument instanceof BookSearch search && search.getKeyword() != null) {
+                    event.keywordLength = search.getKeyword().length();
+                } else if (argument instanceof BookSortKey sortKey) {
+                    event.sort = sortKey.name();
+                }
+            }
+
+            if (keyword >= 0 && arguments[keyword] instanceof String value) {
+                event.keywordLength = value.length();
+            }
+            if (sortField >= 0 && arguments[sortField] instanceof String field) {
+                event.sort = field;
+            }
+            if (event.sort != null && descending >= 0 && arguments[descending] instanceof Boolean desc) {
+                event.sort += desc ? ": DESC" : ": ASC";
+            }
+            if (page >= 0 && arguments[page] instanceof Integer value) {
+                event.page = value;
+            }
+            if (pageSize >= 0 && arguments[pageSize] instanceof Integer value) {
+                event.pageSize = value;
+            }
+        }
+    }
+}
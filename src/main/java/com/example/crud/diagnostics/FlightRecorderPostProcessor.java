@@ -0,0 +1,48 @@
+package com.example.crud.diagnostics;
+
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RestController;
+
+public class FlightRecorderPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        RequestProfile.Phase phase = phaseOf(bean);
+        if (phase == null) {
+            return bean;
+        }
+
+        FlightRecorderInterceptor interceptor = new FlightRecorderInterceptor(phase, beanName);
+        // Транзакционные сервисы и репозитории Spring Data уже проксированы: перехватчик ставится первым в цепочку,
+        // иначе вызов репозитория завершится раньше, чем дойдёт до него
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(phase != RequestProfile.Phase.REPOSITORY);
+        factory.addAdvice(interceptor);
+        return factory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    private RequestProfile.Phase phaseOf(Object bean) {
+        if (bean instanceof Repository<?, ?>) {
+            return RequestProfile.Phase.REPOSITORY;
+        }
+        if (bean instanceof BookService || bean instanceof ShelfService) {
+            return RequestProfile.Phase.SERVICE;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(ClassUtils.getUserClass(bean), RestController.class)) {
+            return RequestProfile.Phase.CONTROLLER;
+        }
+        return null;
+    }
+}
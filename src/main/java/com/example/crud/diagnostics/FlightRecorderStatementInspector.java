@@ -0,0 +1,64 @@
+package com.example.crud.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FlightRecorderStatementInspector implements StatementInspector {
+
+    static final int MAX_CAPTURED_STATEMENTS = 50;
+
+    // SQL текущего вызова репозитория; собирается, только пока кто-то выше по стеку его ждёт
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    private final StatementInspector delegate;
+    private final int sqlMaxLength;
+
+    public FlightRecorderStatementInspector(StatementInspector delegate, int sqlMaxLength) {
+        this.delegate = delegate;
+        this.sqlMaxLength = sqlMaxLength;
+    }
+
+    // Уже настроенный инспектор (класс, имя класса или экземпляр) сохраняется и вызывается первым
+    public static StatementInspector resolve(Object configured) {
+        if (configured == null) {
+            return null;
+        }
+        if (configured instanceof StatementInspector inspector) {
+            return inspector;
+        }
+        Class<?> type = configured instanceof Class<?> clazz
+                ? clazz
+                : ClassUtils.resolveClassName(configured.toString().trim(), ClassUtils.getDefaultClassLoader());
+        return (StatementInspector) BeanUtils.instantiateClass(type);
+    }
+
+    // Вложенный вызов не перехватывает сбор: все запросы достаются внешнему вызову, он же возвращает null
+    static List<String> capture() {
+        if (CAPTURED.get() != null) {
+            return null;
+        }
+        List<String> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+        return statements;
+    }
+
+    static void release() {
+        CAPTURED.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String inspected = delegate != null ? delegate.inspect(sql) : sql;
+        RequestProfile.sqlStatement();
+
+        List<String> statements = CAPTURED.get();
+        if (statements != null && statements.size() < MAX_CAPTURED_STATEMENTS) {
+            statements.add(inspected.length() > sqlMaxLength ? inspected.substring(0, sqlMaxLength) + "..." : inspected);
+        }
+        return inspected;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.crud.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crud.Repository")
+@Label("Вызов репозитория")
+@Category({"CRUD", "Repository"})
+public class RepositoryEvent extends Event {
+
+    @Label("Репозиторий")
+    String repository;
+
+    @Label("Метод")
+    String method;
+}
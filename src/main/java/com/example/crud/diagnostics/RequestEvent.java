@@ -0,0 +1,21 @@
+package com.example.crud.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crud.Request")
+@Label("HTTP-запрос")
+@Category({"CRUD", "HTTP"})
+public class RequestEvent extends Event {
+
+    @Label("Метод")
+    String method;
+
+    @Label("Путь")
+    String path;
+
+    @Label("Статус")
+    int status;
+}
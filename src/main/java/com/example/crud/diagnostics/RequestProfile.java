@@ -0,0 +1,71 @@
+package com.example.crud.diagnostics;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public final class RequestProfile {
+
+    public enum Phase {
+        CONTROLLER, SERVICE, REPOSITORY, SERIALIZATION
+    }
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+    private final int[] depth = new int[Phase.values().length];
+    private int sqlStatements;
+
+    private RequestProfile() {
+    }
+
+    public static RequestProfile start() {
+        RequestProfile profile = new RequestProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // Время фазы учитывается только по внешнему вызову: сервис, вызывающий сам себя через прокси, не удваивает сумму
+    public static long enter(Phase phase) {
+        RequestProfile profile = CURRENT.get();
+        if (profile == null || profile.depth[phase.ordinal()]++ > 0) {
+            return -1;
+        }
+        return System.nanoTime();
+    }
+
+    public static void exit(Phase phase, long started) {
+        RequestProfile profile = CURRENT.get();
+        if (profile == null) {
+            return;
+        }
+        profile.depth[phase.ordinal()]--;
+        if (started >= 0) {
+            profile.nanos.merge(phase, System.nanoTime() - started, Long::sum);
+        }
+    }
+
+    public static void sqlStatement() {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.sqlStatements++;
+        }
+    }
+
+    public Map<String, Long> phasesMs() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            phases.put(phase.name().toLowerCase(Locale.ROOT), nanos.getOrDefault(phase, 0L) / 1_000_000);
+        }
+        return phases;
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+}
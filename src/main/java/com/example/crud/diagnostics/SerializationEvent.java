@@ -0,0 +1,15 @@
+package com.example.crud.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crud.Serialization")
+@Label("Сериализация JSON")
+@Category({"CRUD", "Web"})
+public class SerializationEvent extends Event {
+
+    @Label("Тип")
+    String type;
+}
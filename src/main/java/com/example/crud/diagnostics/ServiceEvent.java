@@ -0,0 +1,30 @@
+package com.example.crud.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("crud.Service")
+@Label("Вызов сервиса")
+@Category({"CRUD", "Service"})
+public class ServiceEvent extends Event {
+
+    @Label("Сервис")
+    String service;
+
+    @Label("Метод")
+    String method;
+
+    @Label("Длина ключевого слова")
+    int keywordLength;
+
+    @Label("Страница")
+    int page;
+
+    @Label("Размер страницы")
+    int pageSize;
+
+    @Label("Сортировка")
+    String sort;
+}
@@ -0,0 +1,33 @@
+package com.example.crud.diagnostics;
+
+import lombok.Value;
+import lombok.With;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Value
+public class SlowRequest {
+    Instant timestamp;
+    String method;
+    String path;
+    int status;
+    long durationMs;
+    Map<String, Long> phasesMs;
+    int sqlStatements;
+    @With
+    DumpStatus dumpStatus;
+    // Путь заполняется только после того, как дамп действительно записан
+    @With
+    String dumpFile;
+    @With
+    String dumpError;
+
+    public enum DumpStatus {
+        // Дамп не запрашивался: JFR недоступен или предыдущий дамп был слишком недавно
+        NONE,
+        PENDING,
+        WRITTEN,
+        FAILED
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.crud.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Одно событие на медленный вызов репозитория со всеми его SQL; порог задаёт app.diagnostics.sql-threshold-ms
+@Name("crud.Sql")
+@Label("SQL медленного вызова репозитория")
+@Category({"CRUD", "Repository"})
+public class SqlEvent extends Event {
+
+    @Label("Репозиторий")
+    String repository;
+
+    @Label("Метод")
+    String method;
+
+    @Label("Число запросов")
+    int statements;
+
+    @Label("SQL")
+    String sql;
+}
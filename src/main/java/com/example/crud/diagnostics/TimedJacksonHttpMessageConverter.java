@@ -0,0 +1,34 @@
+package com.example.crud.diagnostics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        long started = RequestProfile.enter(RequestProfile.Phase.SERIALIZATION);
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestProfile.exit(RequestProfile.Phase.SERIALIZATION, started);
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = object.getClass().getName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.crud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetResponse<T> {
+    private List<T> found;
+    private List<Integer> missing;
+
+    public static <T> BatchGetResponse<T> of(List<Integer> requestedIds, Map<Integer, T> byId) {
+        List<T> found = new ArrayList<>(byId.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : requestedIds) {
+            T item = byId.get(id);
+            if (item != null) {
+                found.add(item);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchGetResponse<>(found, missing);
+    }
+}
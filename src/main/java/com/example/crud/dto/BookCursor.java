@@ -0,0 +1,44 @@
+package com.example.crud.dto;
+
+import com.example.crud.exception.InvalidRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+@Value
+public class BookCursor {
+
+    BookSortKey sortKey;
+    boolean descending;
+    // Значение ключа сортировки последней отданной книги: String для title/author, Integer для year, null для id
+    Object key;
+    int id;
+
+    public String encode() {
+        String keyPart = key == null ? "" : (key instanceof Integer ? "i" : "s") + key;
+        String raw = sortKey.name() + ":" + (descending ? "desc" : "asc") + ":" + id + ":" + keyPart;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String value) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split(":", 4);
+            if (parts.length != 4 || !(parts[1].equals("asc") || parts[1].equals("desc"))) {
+                throw new IllegalArgumentException(value);
+            }
+
+            BookSortKey sortKey = BookSortKey.valueOf(parts[0]);
+            Object key = null;
+            if (!parts[3].isEmpty()) {
+                key = parts[3].charAt(0) == 'i' ? Integer.valueOf(parts[3].substring(1)) : parts[3].substring(1);
+            }
+            if ((sortKey == BookSortKey.ID) != (key == null) || (sortKey == BookSortKey.YEAR) != (key instanceof Integer)) {
+                throw new IllegalArgumentException(value);
+            }
+            return new BookCursor(sortKey, parts[1].equals("desc"), key, Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Некорректный курсор: " + value);
+        }
+    }
+}
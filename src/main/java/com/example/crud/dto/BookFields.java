@@ -0,0 +1,119 @@
+package com.example.crud.dto;
+
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.exception.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public final class BookFields {
+
+    public enum Field {
+        ID("id"),
+        TITLE("title"),
+        AUTHOR("author"),
+        YEAR("year"),
+        SHELF_ID("shelf.id"),
+        SHELF_NAME("shelf.name"),
+        SHELF_DESCRIPTION("shelf.description");
+
+        private final String path;
+
+        Field(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public boolean isShelfField() {
+            return path.startsWith("shelf.");
+        }
+
+        public String getAttribute() {
+            return isShelfField() ? path.substring("shelf.".length()) : path;
+        }
+    }
+
+    public static final BookFields ALL = new BookFields(EnumSet.allOf(Field.class));
+
+    private final Set<Field> fields;
+
+    private BookFields(Set<Field> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    public static BookFields parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidRequestException("Список полей не может быть пустым");
+        }
+
+        EnumSet<Field> fields = EnumSet.noneOf(Field.class);
+        for (String name : value.split(",")) {
+            String path = name.trim();
+            if (path.equals("shelf")) {
+                fields.addAll(EnumSet.of(Field.SHELF_ID, Field.SHELF_NAME, Field.SHELF_DESCRIPTION));
+                continue;
+            }
+            Field field = Arrays.stream(Field.values())
+                    .filter(candidate -> candidate.path.equals(path))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidRequestException("Неизвестное поле '" + path + "'. Допустимые поля: " +
+                            Arrays.stream(Field.values()).map(Field::getPath).collect(Collectors.joining(", "))));
+            fields.add(field);
+        }
+        return new BookFields(fields);
+    }
+
+    public Set<Field> getFields() {
+        return fields;
+    }
+
+    public boolean includesShelf() {
+        return fields.stream().anyMatch(Field::isShelfField);
+    }
+
+    public boolean needsShelfJoin() {
+        return fields.contains(Field.SHELF_NAME) || fields.contains(Field.SHELF_DESCRIPTION);
+    }
+
+    public Map<String, Object> toMap(Book book) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Field field : fields) {
+            switch (field) {
+                case ID -> values.put("id", book.getId());
+                case TITLE -> values.put("title", book.getTitle());
+                case AUTHOR -> values.put("author", book.getAuthor());
+                case YEAR -> values.put("year", book.getYear());
+                default -> {
+                }
+            }
+        }
+        if (includesShelf()) {
+            Shelf shelf = book.getShelf();
+            values.put("shelf", shelf == null ? null : shelfMap(shelf.getId(), shelf.getName(), shelf.getDescription()));
+        }
+        return values;
+    }
+
+    public Map<String, Object> shelfMap(Integer id, String name, String description) {
+        Map<String, Object> shelf = new LinkedHashMap<>();
+        if (fields.contains(Field.SHELF_ID)) {
+            shelf.put("id", id);
+        }
+        if (fields.contains(Field.SHELF_NAME)) {
+            shelf.put("name", name);
+        }
+        if (fields.contains(Field.SHELF_DESCRIPTION)) {
+            shelf.put("description", description);
+        }
+        return shelf;
+    }
+}
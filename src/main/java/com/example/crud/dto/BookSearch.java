@@ -0,0 +1,30 @@
+package com.example.crud.dto;
+
+import lombok.Value;
+
+@Value
+public class BookSearch {
+
+    public static final BookSearch ALL = new BookSearch(null, null, null, null);
+
+    String keyword;
+    String title;
+    String author;
+    Integer year;
+
+    public static BookSearch keyword(String keyword) {
+        return new BookSearch(keyword, null, null, null);
+    }
+
+    public static BookSearch author(String author) {
+        return new BookSearch(null, null, author, null);
+    }
+
+    public static BookSearch year(Integer year) {
+        return new BookSearch(null, null, null, year);
+    }
+
+    public static BookSearch titleAndAuthor(String title, String author) {
+        return new BookSearch(null, title, author, null);
+    }
+}
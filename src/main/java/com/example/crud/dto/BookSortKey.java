@@ -0,0 +1,31 @@
+package com.example.crud.dto;
+
+public enum BookSortKey {
+    ID("id"),
+    TITLE("title"),
+    AUTHOR("author"),
+    YEAR("year");
+
+    private final String property;
+
+    BookSortKey(String property) {
+        this.property = property;
+    }
+
+    public static BookSortKey fromProperty(String property) {
+        for (BookSortKey key : values()) {
+            if (key.property.equalsIgnoreCase(property)) {
+                return key;
+            }
+        }
+        return ID;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isText() {
+        return this == TITLE || this == AUTHOR;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.crud.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class DeleteBooksRequest {
+    private List<Integer> bookIds;
+}
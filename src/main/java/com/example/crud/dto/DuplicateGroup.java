@@ -0,0 +1,16 @@
+package com.example.crud.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DuplicateGroup {
+    private String fingerprint;
+    private long count;
+    private String title;
+    private String author;
+    private Integer year;
+    private List<Integer> bookIds = new ArrayList<>();
+}
@@ -0,0 +1,58 @@
+package com.example.crud.dto;
+
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobStatus;
+import com.example.crud.entity.JobType;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Data
+public class JobResponse {
+    private String id;
+    private JobType type;
+    private JobStatus status;
+    private long processed;
+    private long skipped;
+    private Long total;
+    private Double progress;
+    private Double throughputPerSecond;
+    private boolean cancelRequested;
+    private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+
+    public static JobResponse from(Job job) {
+        JobResponse response = new JobResponse();
+        response.setId(job.getId());
+        response.setType(job.getType());
+        response.setStatus(job.getStatus());
+        response.setProcessed(job.getProcessed());
+        response.setSkipped(job.getSkipped());
+        response.setTotal(job.getTotal());
+        response.setCancelRequested(job.isCancelRequested());
+        response.setError(job.getError());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setUpdatedAt(job.getUpdatedAt());
+        response.setFinishedAt(job.getFinishedAt());
+
+        if (job.getTotal() != null && job.getTotal() > 0) {
+            response.setProgress(Math.min(1.0, (double) job.getProcessed() / job.getTotal()));
+        } else if (job.getStatus() == JobStatus.COMPLETED) {
+            response.setProgress(1.0);
+        }
+
+        if (job.getStartedAt() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : Instant.now();
+            long millis = Duration.between(job.getStartedAt(), end).toMillis();
+            if (millis > 0) {
+                response.setThroughputPerSecond(job.getProcessed() * 1000.0 / millis);
+            }
+        }
+        return response;
+    }
+}
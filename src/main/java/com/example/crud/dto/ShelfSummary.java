@@ -0,0 +1,15 @@
+package com.example.crud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShelfSummary {
+    private int id;
+    private String name;
+    private String description;
+    private long bookCount;
+}
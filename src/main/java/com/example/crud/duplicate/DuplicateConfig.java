@@ -0,0 +1,21 @@
+package com.example.crud.duplicate;
+
+import com.example.crud.repository.BookRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(DuplicateProperties.class)
+public class DuplicateConfig {
+
+    @Bean
+    public FingerprintBackfill fingerprintBackfill(BookRepository bookRepository,
+                                                   PlatformTransactionManager transactionManager,
+                                                   DuplicateProperties properties) {
+        return new FingerprintBackfill(bookRepository, new TransactionTemplate(transactionManager),
+                properties.getBackfillBatchSize());
+    }
+}
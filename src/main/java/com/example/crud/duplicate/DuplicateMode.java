@@ -0,0 +1,7 @@
+package com.example.crud.duplicate;
+
+public enum DuplicateMode {
+    REJECT,
+    UPSERT,
+    ALLOW
+}
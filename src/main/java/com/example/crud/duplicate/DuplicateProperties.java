@@ -0,0 +1,13 @@
+package com.example.crud.duplicate;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.duplicates")
+public class DuplicateProperties {
+
+    private DuplicateMode mode = DuplicateMode.ALLOW;
+
+    private int backfillBatchSize = 500;
+}
@@ -0,0 +1,52 @@
+package com.example.crud.duplicate;
+
+import com.example.crud.catalog.BookRecord;
+import com.example.crud.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Книги, сохранённые до появления отпечатков, получают их при старте пачками по возрастанию ID
+@Slf4j
+public class FingerprintBackfill {
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public FingerprintBackfill(BookRepository bookRepository, TransactionTemplate transactionTemplate, int batchSize) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int afterId = 0;
+        long updated = 0;
+        while (true) {
+            int from = afterId;
+            List<BookRecord> batch = transactionTemplate.execute(status -> {
+                List<BookRecord> records = bookRepository.findRecordsWithoutFingerprint(from, Limit.of(batchSize));
+                for (BookRecord record : records) {
+                    bookRepository.setFingerprint(record.getId(),
+                            BookFingerprint.of(record.getTitle(), record.getAuthor(), record.getYear()));
+                }
+                return records;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            updated += batch.size();
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+
+        if (updated > 0) {
+            log.info("Отпечатки рассчитаны для {} книг, сохранённых без них", updated);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.example.crud.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "book")
+@Table(name = "book", indexes = @Index(name = "book_fingerprint_idx", columnList = "fingerprint"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,4 +25,8 @@ public class Book {
     @JoinColumn(name = "shelf_id", nullable = true)
     @JsonIgnoreProperties({"books", "hibernateLazyInitializer", "handler"})
     private Shelf shelf;
+
+    @JsonIgnore
+    @Column(length = 64)
+    private String fingerprint;
 }
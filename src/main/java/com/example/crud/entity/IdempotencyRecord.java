@@ -0,0 +1,53 @@
+package com.example.crud.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idempotency_record_expires_at_idx", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "body")
+public class IdempotencyRecord implements Persistable<String> {
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    private int status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(length = 1048576)
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private IdempotencyRecordState state;
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    // Записи только вставляются: повторное сохранение того же ключа должно упасть на первичном ключе,
+    // а не перезаписать первый ответ
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.crud.entity;
+
+public enum IdempotencyRecordState {
+    PENDING,
+    COMPLETED
+}
@@ -0,0 +1,63 @@
+package com.example.crud.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "job", indexes = @Index(name = "job_status_idx", columnList = "status"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "parameters")
+public class Job {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Version
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+
+    // Экземпляр приложения, который сейчас выполняет задачу
+    @Column(length = 36)
+    private String owner;
+
+    @Column(length = 1000000)
+    private String parameters;
+
+    private String checkpoint;
+
+    private long processed;
+
+    private long skipped;
+
+    private Long total;
+
+    @Column(name = "cancel_requested")
+    private boolean cancelRequested;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
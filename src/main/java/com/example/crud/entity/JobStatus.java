@@ -0,0 +1,9 @@
+package com.example.crud.entity;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,7 @@
+package com.example.crud.entity;
+
+public enum JobType {
+    CLEAR_SHELF,
+    DELETE_BOOKS,
+    IMPORT_BOOKS
+}
@@ -0,0 +1,47 @@
+package com.example.crud.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "outbox_event", indexes = {
+        @Index(name = "outbox_event_created_at_idx", columnList = "created_at"),
+        @Index(name = "outbox_event_processed_at_idx", columnList = "processed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "payload")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 32)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id")
+    private Integer aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    @Column(name = "claimed_until")
+    private Instant claimedUntil;
+
+    // Заполняется базой при вставке; ID из блоков последовательности разных узлов не годится для порядка чтения
+    @Column(name = "change_id", insertable = false, updatable = false)
+    private Long changeId;
+}
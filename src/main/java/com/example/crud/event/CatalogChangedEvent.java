@@ -0,0 +1,23 @@
+package com.example.crud.event;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class CatalogChangedEvent {
+    ChangeOperation operation;
+    EntityType entity;
+    Integer id;
+    Integer shelfBefore;
+    Integer shelfAfter;
+    Instant timestamp;
+
+    public static CatalogChangedEvent book(ChangeOperation operation, Integer id, Integer shelfBefore, Integer shelfAfter) {
+        return new CatalogChangedEvent(operation, EntityType.BOOK, id, shelfBefore, shelfAfter, Instant.now());
+    }
+
+    public static CatalogChangedEvent shelf(ChangeOperation operation, Integer id) {
+        return new CatalogChangedEvent(operation, EntityType.SHELF, id, null, null, Instant.now());
+    }
+}
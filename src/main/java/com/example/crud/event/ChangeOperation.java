@@ -0,0 +1,8 @@
+package com.example.crud.event;
+
+public enum ChangeOperation {
+    CREATE,
+    UPDATE,
+    DELETE,
+    MOVE
+}
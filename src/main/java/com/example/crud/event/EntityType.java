@@ -0,0 +1,6 @@
+package com.example.crud.event;
+
+public enum EntityType {
+    BOOK,
+    SHELF
+}
@@ -0,0 +1,27 @@
+package com.example.crud.exception;
+
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+    private final long elapsedMs;
+    private final long timeoutMs;
+
+    public DeadlineExceededException(String stage, long elapsedMs, long timeoutMs) {
+        super("Превышен срок выполнения запроса (" + stage + "): прошло " + elapsedMs + " мс из " + timeoutMs + " мс");
+        this.stage = stage;
+        this.elapsedMs = elapsedMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.crud.exception;
+
+public class DiagnosticsAccessDeniedException extends RuntimeException {
+    public DiagnosticsAccessDeniedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.crud.exception;
+
+public class DuplicateBookException extends RuntimeException {
+    public DuplicateBookException(String message) {
+        super(message);
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.crud.exception;
 
+import com.example.crud.deadline.Deadline;
+import com.example.crud.deadline.RequestDeadline;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
@@ -23,11 +28,78 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     }
 
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleJobNotFound(JobNotFoundException ex, WebRequest request) {
+        return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(DuplicateBookException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateBook(DuplicateBookException ex, WebRequest request) {
+        return buildErrorResponse(HttpStatus.CONFLICT, ex.getMessage(), request);
+    }
+
     @ExceptionHandler(InvalidRequestException.class)
     public ResponseEntity<Map<String, Object>> handleInvalidRequest(InvalidRequestException ex, WebRequest request) {
         return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     }
 
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyInUse(IdempotencyKeyInUseException ex,
+                                                                         WebRequest request) {
+        return buildErrorResponse(HttpStatus.CONFLICT, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex,
+                                                                            WebRequest request) {
+        return buildErrorResponse(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(RequestBodyTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handleRequestBodyTooLarge(RequestBodyTooLargeException ex,
+                                                                         WebRequest request) {
+        return buildErrorResponse(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(DiagnosticsAccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleDiagnosticsAccessDenied(DiagnosticsAccessDeniedException ex,
+                                                                             WebRequest request) {
+        return buildErrorResponse(HttpStatus.FORBIDDEN, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceOverloaded(ServiceOverloadedException ex,
+                                                                       WebRequest request) {
+        ResponseEntity<Map<String, Object>> response =
+                buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), request);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleDeadlineExceeded(DeadlineExceededException ex, WebRequest request) {
+        Map<String, Object> extras = new HashMap<>();
+        extras.put("stage", ex.getStage());
+        extras.put("elapsedMs", ex.getElapsedMs());
+        extras.put("timeoutMs", ex.getTimeoutMs());
+        return buildErrorResponse(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage(), request, extras);
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class,
+            jakarta.persistence.QueryTimeoutException.class})
+    public ResponseEntity<Map<String, Object>> handleQueryTimeout(Exception ex, WebRequest request) {
+        Map<String, Object> extras = new HashMap<>();
+        extras.put("stage", "база данных");
+        Deadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            extras.put("elapsedMs", deadline.elapsedMillis());
+            extras.put("timeoutMs", deadline.timeoutMillis());
+        }
+        return buildErrorResponse(HttpStatus.GATEWAY_TIMEOUT,
+                "Превышен срок выполнения запроса к базе данных", request, extras);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex, WebRequest request) {
         return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Внутренняя ошибка сервера", request);
@@ -35,6 +107,11 @@ public class GlobalExceptionHandler {
 
     private ResponseEntity<Map<String, Object>> buildErrorResponse(
             HttpStatus status, String message, WebRequest request) {
+        return buildErrorResponse(status, message, request, Map.of());
+    }
+
+    private ResponseEntity<Map<String, Object>> buildErrorResponse(
+            HttpStatus status, String message, WebRequest request, Map<String, Object> extras) {
 
         Map<String, Object> body = new HashMap<>();
         body.put("timestamp", LocalDateTime.now());
@@ -42,6 +119,7 @@ public class GlobalExceptionHandler {
         body.put("error", status.getReasonPhrase());
         body.put("message", message);
         body.put("path", request.getDescription(false).replace("uri=", ""));
+        body.putAll(extras);
 
         return new ResponseEntity<>(body, status);
     }
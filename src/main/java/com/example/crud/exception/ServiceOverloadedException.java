@@ -0,0 +1,15 @@
+package com.example.crud.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceOverloadedException(int retryAfterSeconds) {
+        super("Сервер перегружен, повторите запрос позже");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.crud.idempotency;
+
+import com.example.crud.entity.IdempotencyRecord;
+import com.example.crud.entity.IdempotencyRecordState;
+import com.example.crud.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Slf4j
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatabaseIdempotencyStore(IdempotencyRecordRepository repository, TransactionTemplate transactionTemplate) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public Optional<StoredResponse> find(String key) {
+        return repository.findById(key)
+                .filter(record -> record.getState() == IdempotencyRecordState.COMPLETED)
+                .filter(record -> record.getExpiresAt().isAfter(Instant.now()))
+                .map(record -> new StoredResponse(record.getRequestHash(), record.getStatus(),
+                        record.getContentType(), record.getBody(), record.getExpiresAt()));
+    }
+
+    // Заявку вставляет ровно один узел: остальные упираются в первичный ключ. Просроченная запись,
+    // в том числе заявка упавшего узла, удаляется в той же транзакции
+    @Override
+    public boolean claim(String key, String requestHash, Instant claimedUntil) {
+        IdempotencyRecord record = new IdempotencyRecord(key, requestHash, 0, null, null, Instant.now(), claimedUntil,
+                IdempotencyRecordState.PENDING);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.deleteExpiredByKey(key, Instant.now());
+                repository.saveAndFlush(record);
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void save(String key, StoredResponse response) {
+        Integer updated = transactionTemplate.execute(status -> repository.complete(key, response.getStatus(),
+                response.getContentType(), response.getBody(), response.getExpiresAt()));
+        if (updated == null || updated == 0) {
+            // Заявка истекла и досталась другому узлу: его результат и остаётся
+            log.warn("Заявка по ключу идемпотентности {} истекла до сохранения ответа", key);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        transactionTemplate.executeWithoutResult(status -> repository.deletePending(key));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status -> repository.deleteExpired(Instant.now()));
+        if (deleted != null && deleted > 0) {
+            log.debug("Удалено {} просроченных ответов по ключам идемпотентности", deleted);
+        }
+    }
+}
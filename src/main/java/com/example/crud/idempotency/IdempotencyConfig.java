@@ -0,0 +1,43 @@
+package com.example.crud.idempotency;
+
+import com.example.crud.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+@ConditionalOnProperty(prefix = "app.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+    public IdempotencyStore inMemoryIdempotencyStore(IdempotencyProperties properties) {
+        return new InMemoryIdempotencyStore(properties.getMaxEntries());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.idempotency", name = "store", havingValue = "database")
+    public IdempotencyStore databaseIdempotencyStore(IdempotencyRecordRepository repository,
+                                                     PlatformTransactionManager transactionManager) {
+        return new DatabaseIdempotencyStore(repository, new TransactionTemplate(transactionManager));
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            IdempotencyStore store, IdempotencyProperties properties,
+            @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(store, properties, exceptionResolver));
+        // После фильтра сроков, но до admission control: повтор отдаётся из хранилища, не занимая лимит
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 17);
+        return registration;
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.crud.idempotency;
+
+import com.example.crud.deadline.Deadline;
+import com.example.crud.deadline.RequestDeadline;
+import com.example.crud.exception.IdempotencyKeyInUseException;
+import com.example.crud.exception.IdempotencyKeyMismatchException;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.exception.RequestBodyTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyStore store;
+    private final IdempotencyProperties properties;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties,
+                             HandlerExceptionResolver exceptionResolver) {
+        this.store = store;
+        this.properties = properties;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITE_METHODS.contains(request.getMethod()) || request.getHeader(properties.getHeader()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(properties.getHeader()).trim();
+        if (header.isEmpty() || header.length() > properties.getMaxKeyLength()
+                || header.chars().anyMatch(Character::isISOControl)) {
+            writeError(request, response, new InvalidRequestException("Заголовок " + properties.getHeader()
+                    + " должен содержать от 1 до " + properties.getMaxKeyLength() + " печатных символов"));
+            return;
+        }
+        String key = scopedKey(request, header);
+
+        byte[] body = readBody(request);
+        if (body == null) {
+            writeError(request, response, new RequestBodyTooLargeException("Тело запроса с ключом идемпотентности "
+                    + "не должно превышать " + properties.getMaxRequestBodyBytes() + " байт"));
+            return;
+        }
+        String requestHash = hash(request, body);
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+
+        while (true) {
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+            if (running == null) {
+                execute(cachedRequest, response, filterChain, key, requestHash, execution);
+                return;
+            }
+
+            // Повтор пришёл на этот же узел, пока первый запрос ещё выполняется: ждём его результат без опроса хранилища
+            try {
+                StoredResponse result = running.get(waitMillis(), TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    replay(request, response, requestHash, result);
+                    return;
+                }
+            } catch (TimeoutException e) {
+                log.warn("Не дождались завершения запроса с ключом идемпотентности {}", key);
+                writeError(request, response, new IdempotencyKeyInUseException(
+                        "Запрос с этим ключом идемпотентности ещё выполняется, повторите позже"));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeError(request, response, new IdempotencyKeyInUseException(
+                        "Запрос с этим ключом идемпотентности ещё выполняется, повторите позже"));
+                return;
+            } catch (ExecutionException e) {
+                log.debug("Первое выполнение запроса с ключом {} завершилось ошибкой", key, e.getCause());
+            }
+            // Первое выполнение не дало сохраняемого результата (ошибка сервера) — пробуем выполнить сами
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String key, String requestHash, CompletableFuture<StoredResponse> execution)
+            throws ServletException, IOException {
+        StoredResponse result = null;
+        try {
+            // Внутри узла ключ уже захвачен; между узлами его делит заявка в общем хранилище
+            StoredResponse stored;
+            try {
+                stored = awaitClaim(key, requestHash);
+            } catch (IdempotencyKeyInUseException e) {
+                writeError(request, response, e);
+                return;
+            }
+            if (stored != null) {
+                result = stored;
+                replay(request, response, requestHash, result);
+                return;
+            }
+
+            boolean completed = false;
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            try {
+                filterChain.doFilter(request, wrapper);
+                // Сохраняются только успешные ответы: после 4xx клиент может исправить запрос и повторить
+                // его с тем же ключом, после 5xx повтор должен выполниться заново
+                if (HttpStatusCode.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                    result = new StoredResponse(requestHash, wrapper.getStatus(), wrapper.getContentType(),
+                            wrapper.getContentAsByteArray(), Instant.now().plusMillis(properties.getTtlMs()));
+                    completed = save(key, result);
+                }
+            } finally {
+                if (!completed) {
+                    release(key);
+                }
+                wrapper.copyBodyToResponse();
+            }
+        } finally {
+            execution.complete(result);
+            inFlight.remove(key, execution);
+        }
+    }
+
+    // Сохранённый ответ другого узла или null, если заявку на выполнение получил этот запрос.
+    // Пока заявка чужая, хранилище опрашивается до её завершения, снятия или истечения срока ожидания
+    private StoredResponse awaitClaim(String key, String requestHash) {
+        long waitUntil = System.currentTimeMillis() + waitMillis();
+        while (true) {
+            Optional<StoredResponse> stored = store.find(key);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            if (store.claim(key, requestHash, Instant.now().plusMillis(properties.getClaimTtlMs()))) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= waitUntil) {
+                log.warn("Не дождались ответа другого узла по ключу идемпотентности {}", key);
+                throw new IdempotencyKeyInUseException(
+                        "Запрос с этим ключом идемпотентности ещё выполняется, повторите позже");
+            }
+            try {
+                Thread.sleep(properties.getClaimPollMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyKeyInUseException(
+                        "Запрос с этим ключом идемпотентности ещё выполняется, повторите позже");
+            }
+        }
+    }
+
+    private boolean save(String key, StoredResponse result) {
+        if (result.getBody().length > properties.getMaxBodyBytes()) {
+            log.warn("Ответ по ключу идемпотентности {} не сохранён: {} байт при лимите {}",
+                    key, result.getBody().length, properties.getMaxBodyBytes());
+            return false;
+        }
+
+        try {
+            store.save(key, result);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить ответ по ключу идемпотентности {}: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(String key) {
+        try {
+            store.release(key);
+        } catch (RuntimeException e) {
+            // Заявка освободится сама по истечении claim-ttl-ms
+            log.warn("Не удалось снять заявку по ключу идемпотентности {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Content-Length проверяется до чтения, но клиент может его не прислать, поэтому копирование тоже ограничено
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        int limit = properties.getMaxRequestBodyBytes();
+        if (request.getContentLengthLong() > limit) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(limit + 1);
+        return body.length > limit ? null : body;
+    }
+
+    private void replay(HttpServletRequest request, HttpServletResponse response, String requestHash,
+                        StoredResponse stored) throws IOException {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            writeError(request, response, new IdempotencyKeyMismatchException(
+                    "Ключ идемпотентности уже использован для другого запроса"));
+            return;
+        }
+
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    // Одинаковые ключи разных клиентов не должны видеть ответы друг друга. Заголовок клиента — секрет,
+    // который клиент выбирает сам, а не изоляция арендаторов; без него общей анонимной области нет,
+    // ключи разделяются по адресу, который клиент подделать не может
+    private String scopedKey(HttpServletRequest request, String key) {
+        Principal principal = request.getUserPrincipal();
+        String client = request.getHeader(properties.getClientHeader());
+        String scope = principal != null ? "user:" + principal.getName()
+                : client != null && !client.isBlank() ? "client:" + client.trim()
+                : "address:" + request.getRemoteAddr();
+        return HexFormat.of().formatHex(sha256().digest((scope + "\n" + key).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long waitMillis() {
+        Deadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return properties.getInFlightWaitMs();
+        }
+        return Math.min(properties.getInFlightWaitMs(), Math.max(deadline.remainingMillis(), 0));
+    }
+
+    private static String hash(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256();
+        String target = request.getMethod() + " " + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "") + "\n";
+        digest.update(target.getBytes(StandardCharsets.UTF_8));
+        digest.update(body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    // Тело ошибки собирает GlobalExceptionHandler, как и для ошибок из контроллеров
+    private void writeError(HttpServletRequest request, HttpServletResponse response, RuntimeException error)
+            throws IOException {
+        if (exceptionResolver.resolveException(request, response, null, error) == null) {
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), error.getMessage());
+        }
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Тело уже в памяти: слушатель сразу получает и данные, и их конец
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.crud.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    private String header = "Idempotency-Key";
+
+    // Ключи действуют в пределах клиента: пользователя, а без аутентификации — значения этого заголовка.
+    // Заголовок задаёт сам клиент, поэтому это не изоляция арендаторов: значение должно быть случайным и
+    // храниться как секрет. Без пользователя и заголовка ключи разделяются по адресу клиента
+    private String clientHeader = "X-Client-Id";
+
+    private String store = "memory";
+
+    private long ttlMs = 86400000;
+
+    private int maxEntries = 10000;
+
+    private int maxKeyLength = 255;
+
+    private int maxBodyBytes = 1048576;
+
+    // Тело запроса с ключом буферизуется целиком для хеша, поэтому больше этого отклоняется с 413
+    private int maxRequestBodyBytes = 1048576;
+
+    private long inFlightWaitMs = 30000;
+
+    // Заявка на выполнение ключа держится не дольше этого: заявку упавшего узла подхватывает повтор
+    private long claimTtlMs = 60000;
+
+    // Как часто узел, проигравший заявку, проверяет хранилище, ожидая ответ другого узла
+    private long claimPollMs = 100;
+
+    private long purgeIntervalMs = 60000;
+}
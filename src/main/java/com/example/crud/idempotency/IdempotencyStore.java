@@ -0,0 +1,21 @@
+package com.example.crud.idempotency;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyStore {
+
+    // Только завершённые ответы; заявка, которая ещё выполняется, здесь не видна
+    Optional<StoredResponse> find(String key);
+
+    // Заявка на выполнение ключа до claimedUntil. false — ключ уже занят или выполнен, выполнять нельзя
+    boolean claim(String key, String requestHash, Instant claimedUntil);
+
+    // Завершает заявку сохранённым ответом
+    void save(String key, StoredResponse response);
+
+    // Снимает заявку без ответа, чтобы повтор мог выполниться заново
+    void release(String key);
+
+    void purgeExpired();
+}
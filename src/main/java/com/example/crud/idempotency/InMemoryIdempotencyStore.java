@@ -0,0 +1,74 @@
+package com.example.crud.idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Map<String, StoredResponse> responses;
+    private final Map<String, Instant> claims = new HashMap<>();
+
+    public InMemoryIdempotencyStore(int maxEntries) {
+        // LRU в порядке доступа: при переполнении вытесняется давно не запрашиваемый ключ
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<StoredResponse> find(String key) {
+        StoredResponse response = responses.get(key);
+        if (response != null && response.isExpired(Instant.now())) {
+            responses.remove(key);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(response);
+    }
+
+    @Override
+    public synchronized boolean claim(String key, String requestHash, Instant claimedUntil) {
+        Instant now = Instant.now();
+        if (find(key).isPresent()) {
+            return false;
+        }
+        Instant claimed = claims.get(key);
+        if (claimed != null && claimed.isAfter(now)) {
+            return false;
+        }
+        claims.put(key, claimedUntil);
+        return true;
+    }
+
+    @Override
+    public synchronized void save(String key, StoredResponse response) {
+        claims.remove(key);
+        responses.put(key, response);
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        claims.remove(key);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        int before = responses.size();
+        responses.values().removeIf(response -> response.isExpired(now));
+        claims.values().removeIf(claimedUntil -> !claimedUntil.isAfter(now));
+        if (responses.size() < before) {
+            log.debug("Удалено {} просроченных ответов по ключам идемпотентности", before - responses.size());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.crud.idempotency;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class StoredResponse {
+    String requestHash;
+    int status;
+    String contentType;
+    byte[] body;
+    Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
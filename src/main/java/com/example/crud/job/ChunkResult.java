@@ -0,0 +1,11 @@
+package com.example.crud.job;
+
+import lombok.Value;
+
+@Value
+public class ChunkResult {
+    int processed;
+    int skipped;
+    String checkpoint;
+    boolean done;
+}
@@ -0,0 +1,44 @@
+package com.example.crud.job;
+
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobType;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
+import com.example.crud.repository.BookRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+public class ClearShelfJobHandler implements JobHandler {
+
+    private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ClearShelfJobHandler(BookRepository bookRepository, ApplicationEventPublisher eventPublisher) {
+        this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.CLEAR_SHELF;
+    }
+
+    @Override
+    public ChunkResult processChunk(Job job, int chunkSize) {
+        int shelfId = Integer.parseInt(job.getParameters());
+        int afterId = job.getCheckpoint() != null ? Integer.parseInt(job.getCheckpoint()) : 0;
+
+        List<Book> books = bookRepository.findOnShelfAfterForUpdate(shelfId, afterId, Limit.of(chunkSize));
+        for (Book book : books) {
+            book.setShelf(null);
+            eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.MOVE, book.getId(), shelfId, null));
+        }
+        bookRepository.saveAll(books);
+
+        String checkpoint = books.isEmpty() ? job.getCheckpoint() : String.valueOf(books.get(books.size() - 1).getId());
+        return new ChunkResult(books.size(), 0, checkpoint, books.size() < chunkSize);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.crud.job;
+
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobType;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
+import com.example.crud.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DeleteBooksJobHandler implements JobHandler {
+
+    private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Map<String, List<Integer>> parsed = new ConcurrentHashMap<>();
+
+    public DeleteBooksJobHandler(BookRepository bookRepository, ApplicationEventPublisher eventPublisher,
+                                 ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.DELETE_BOOKS;
+    }
+
+    @Override
+    public ChunkResult processChunk(Job job, int chunkSize) throws Exception {
+        List<Integer> bookIds = parsed.get(job.getId());
+        if (bookIds == null) {
+            bookIds = List.of(objectMapper.readValue(job.getParameters(), Integer[].class));
+            parsed.put(job.getId(), bookIds);
+        }
+        int from = job.getCheckpoint() != null ? Integer.parseInt(job.getCheckpoint()) : 0;
+        int to = Math.min(from + chunkSize, bookIds.size());
+
+        List<Book> books = bookRepository.findAllById(bookIds.subList(from, to));
+        for (Book book : books) {
+            Integer shelfId = book.getShelf() != null ? book.getShelf().getId() : null;
+            eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.DELETE, book.getId(), shelfId, null));
+        }
+        // Обработанными считаются реально удалённые строки, отсутствующие ID попадают в пропущенные
+        int deleted = books.isEmpty() ? 0 : bookRepository.deleteByIds(books.stream().map(Book::getId).toList());
+
+        return new ChunkResult(deleted, (to - from) - deleted, String.valueOf(to), to >= bookIds.size());
+    }
+
+    @Override
+    public void release(String jobId) {
+        parsed.remove(jobId);
+    }
+}
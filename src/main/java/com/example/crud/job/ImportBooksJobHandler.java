@@ -0,0 +1,90 @@
+package com.example.crud.job;
+
+import com.example.crud.dto.BookRequest;
+import com.example.crud.duplicate.DuplicateMode;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobType;
+import com.example.crud.entity.Shelf;
+import com.example.crud.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Режим дубликатов выбирается при постановке импорта и не зависит от app.duplicates.mode
+public class ImportBooksJobHandler implements JobHandler {
+
+    private final BookService bookService;
+    private final ObjectMapper objectMapper;
+    // Параметры разбираются один раз на задачу, а не на каждую пачку
+    private final Map<String, ImportBooksParameters> parsed = new ConcurrentHashMap<>();
+
+    public ImportBooksJobHandler(BookService bookService, ObjectMapper objectMapper) {
+        this.bookService = bookService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.IMPORT_BOOKS;
+    }
+
+    @Override
+    public ChunkResult processChunk(Job job, int chunkSize) throws Exception {
+        ImportBooksParameters parameters = parsed.get(job.getId());
+        if (parameters == null) {
+            parameters = parse(job.getParameters());
+            parsed.put(job.getId(), parameters);
+        }
+        List<BookRequest> requests = parameters.getBooks();
+        int from = job.getCheckpoint() != null ? Integer.parseInt(job.getCheckpoint()) : 0;
+        int to = Math.min(from + chunkSize, requests.size());
+
+        int skipped = 0;
+        for (int i = from; i < to; i++) {
+            Book book = toBook(requests.get(i));
+            if (parameters.getDuplicates() == ImportDuplicateMode.SKIP) {
+                if (bookService.findDuplicate(book).isPresent()) {
+                    skipped++;
+                    continue;
+                }
+                bookService.createBook(book, DuplicateMode.ALLOW);
+            } else {
+                bookService.createBook(book, DuplicateMode.UPSERT);
+            }
+        }
+
+        return new ChunkResult(to - from - skipped, skipped, String.valueOf(to), to >= requests.size());
+    }
+
+    @Override
+    public void release(String jobId) {
+        parsed.remove(jobId);
+    }
+
+    private ImportBooksParameters parse(String json) throws Exception {
+        JsonNode tree = objectMapper.readTree(json);
+        // Задачи, поставленные до появления режима дубликатов, хранят просто массив книг
+        if (tree.isArray()) {
+            return new ImportBooksParameters(ImportDuplicateMode.SKIP,
+                    List.of(objectMapper.treeToValue(tree, BookRequest[].class)));
+        }
+        return objectMapper.treeToValue(tree, ImportBooksParameters.class);
+    }
+
+    private static Book toBook(BookRequest request) {
+        Book book = new Book();
+        book.setTitle(request.getTitle());
+        book.setAuthor(request.getAuthor());
+        book.setYear(request.getYear());
+        if (request.getShelfId() != null) {
+            Shelf shelf = new Shelf();
+            shelf.setId(request.getShelfId());
+            book.setShelf(shelf);
+        }
+        return book;
+    }
+}
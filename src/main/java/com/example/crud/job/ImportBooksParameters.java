@@ -0,0 +1,16 @@
+package com.example.crud.job;
+
+import com.example.crud.dto.BookRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportBooksParameters {
+    private ImportDuplicateMode duplicates = ImportDuplicateMode.SKIP;
+    private List<BookRequest> books;
+}
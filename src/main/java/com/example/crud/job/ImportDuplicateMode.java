@@ -0,0 +1,20 @@
+package com.example.crud.job;
+
+import com.example.crud.exception.InvalidRequestException;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public enum ImportDuplicateMode {
+    SKIP,
+    UPSERT;
+
+    public static ImportDuplicateMode fromParameter(String value) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.name().equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestException("Неизвестный режим дубликатов '" + value
+                        + "'. Допустимые значения: " + Arrays.stream(values())
+                        .map(mode -> mode.name().toLowerCase()).collect(Collectors.joining(", "))));
+    }
+}
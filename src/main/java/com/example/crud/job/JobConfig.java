@@ -0,0 +1,63 @@
+package com.example.crud.job;
+
+import com.example.crud.repository.BookRepository;
+import com.example.crud.repository.JobRepository;
+import com.example.crud.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableConfigurationProperties(JobProperties.class)
+@ConditionalOnProperty(prefix = "app.jobs", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JobConfig {
+
+    @Bean
+    public ClearShelfJobHandler clearShelfJobHandler(BookRepository bookRepository,
+                                                     ApplicationEventPublisher eventPublisher) {
+        return new ClearShelfJobHandler(bookRepository, eventPublisher);
+    }
+
+    @Bean
+    public DeleteBooksJobHandler deleteBooksJobHandler(BookRepository bookRepository,
+                                                       ApplicationEventPublisher eventPublisher,
+                                                       ObjectMapper objectMapper) {
+        return new DeleteBooksJobHandler(bookRepository, eventPublisher, objectMapper);
+    }
+
+    @Bean
+    public ImportBooksJobHandler importBooksJobHandler(BookService bookService, ObjectMapper objectMapper) {
+        return new ImportBooksJobHandler(bookService, objectMapper);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService jobExecutor(JobProperties properties) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "job-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Bean
+    public JobService jobService(JobRepository jobRepository, List<JobHandler> handlers, ExecutorService jobExecutor,
+                                 PlatformTransactionManager transactionManager, JobProperties properties) {
+        return new JobService(jobRepository, handlers, jobExecutor, new TransactionTemplate(transactionManager),
+                properties);
+    }
+}
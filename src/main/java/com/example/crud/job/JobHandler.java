@@ -0,0 +1,14 @@
+package com.example.crud.job;
+
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobType;
+
+public interface JobHandler {
+
+    JobType getType();
+
+    ChunkResult processChunk(Job job, int chunkSize) throws Exception;
+
+    default void release(String jobId) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.crud.job;
+
+import com.example.crud.entity.JobType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.jobs")
+public class JobProperties {
+
+    private boolean enabled = true;
+
+    private int threads = 2;
+
+    private int queueCapacity = 100;
+
+    private int chunkSize = 200;
+
+    private long dispatchIntervalMs = 2000;
+
+    private long staleAfterMs = 30000;
+
+    private long heartbeatIntervalMs = 5000;
+
+    private Map<JobType, Integer> concurrency = new EnumMap<>(Map.of(
+            JobType.CLEAR_SHELF, 1,
+            JobType.DELETE_BOOKS, 1,
+            JobType.IMPORT_BOOKS, 1
+    ));
+}
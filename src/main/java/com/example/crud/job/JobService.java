@@ -0,0 +1,249 @@
+package com.example.crud.job;
+
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobStatus;
+import com.example.crud.entity.JobType;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.exception.JobNotFoundException;
+import com.example.crud.repository.JobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+@Slf4j
+public class JobService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JobRepository jobRepository;
+    private final Map<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+    private final Map<JobType, Semaphore> permits = new EnumMap<>(JobType.class);
+    private final ExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+    private final JobProperties properties;
+    private final String owner = UUID.randomUUID().toString();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public JobService(JobRepository jobRepository, List<JobHandler> handlers, ExecutorService executor,
+                      TransactionTemplate transactionTemplate, JobProperties properties) {
+        this.jobRepository = jobRepository;
+        this.executor = executor;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+
+        for (JobHandler handler : handlers) {
+            this.handlers.put(handler.getType(), handler);
+            int limit = properties.getConcurrency().getOrDefault(handler.getType(), 1);
+            this.permits.put(handler.getType(), new Semaphore(Math.max(1, limit)));
+        }
+    }
+
+    public Job submit(JobType type, String parameters, long total) {
+        Instant now = Instant.now();
+        Job job = new Job();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(type);
+        job.setStatus(JobStatus.QUEUED);
+        job.setParameters(parameters);
+        job.setTotal(total);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+
+        Job saved = jobRepository.save(job);
+        log.info("Задача {} ({}) поставлена в очередь, объём: {}", saved.getId(), type, total);
+        dispatch();
+        return saved;
+    }
+
+    public Job getJob(String id) {
+        return jobRepository.findById(id)
+                .orElseThrow(() -> new JobNotFoundException("Задача с ID " + id + " не найдена"));
+    }
+
+    public Job cancel(String id) {
+        return transactionTemplate.execute(status -> {
+            Job job = getJob(id);
+            switch (job.getStatus()) {
+                case QUEUED -> {
+                    job.setStatus(JobStatus.CANCELLED);
+                    job.setFinishedAt(Instant.now());
+                }
+                case RUNNING -> job.setCancelRequested(true);
+                default -> throw new InvalidRequestException(
+                        "Задача с ID " + id + " уже завершена со статусом " + job.getStatus());
+            }
+            job.setUpdatedAt(Instant.now());
+            log.info("Запрошена отмена задачи {}", id);
+            return job;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resume() {
+        requeueStale();
+        dispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.dispatch-interval-ms:2000}")
+    public void poll() {
+        try {
+            requeueStale();
+            dispatch();
+        } catch (Exception e) {
+            log.error("Ошибка диспетчера фоновых задач", e);
+        }
+    }
+
+    // Пока задача выполняется, её аренда продлевается независимо от длительности пачки
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            Set<String> ids = Set.copyOf(running);
+            transactionTemplate.execute(status -> jobRepository.heartbeat(ids, owner, Instant.now()));
+        } catch (Exception e) {
+            log.error("Не удалось продлить аренду фоновых задач", e);
+        }
+    }
+
+    private void requeueStale() {
+        Instant staleBefore = Instant.now().minusMillis(properties.getStaleAfterMs());
+        Integer requeued = transactionTemplate.execute(status -> jobRepository.requeueStale(staleBefore));
+        if (requeued != null && requeued > 0) {
+            log.warn("Возвращено в очередь {} зависших задач, выполнение продолжится с контрольной точки", requeued);
+        }
+    }
+
+    private synchronized void dispatch() {
+        Pageable batch = PageRequest.of(0, properties.getThreads() + properties.getQueueCapacity());
+        for (QueuedJob job : jobRepository.findQueued(batch)) {
+            Semaphore semaphore = permits.get(job.getType());
+            if (semaphore == null || !semaphore.tryAcquire()) {
+                continue;
+            }
+
+            Integer claimed = transactionTemplate.execute(status -> jobRepository.claim(job.getId(), owner, Instant.now()));
+            if (claimed == null || claimed == 0) {
+                semaphore.release();
+                continue;
+            }
+
+            try {
+                executor.execute(() -> run(job.getId(), handlers.get(job.getType()), semaphore));
+            } catch (RejectedExecutionException e) {
+                semaphore.release();
+                transactionTemplate.executeWithoutResult(status -> {
+                    Job rejected = getJob(job.getId());
+                    rejected.setStatus(JobStatus.QUEUED);
+                    rejected.setOwner(null);
+                });
+                log.warn("Очередь исполнителя фоновых задач заполнена, задача {} ждёт следующего цикла", job.getId());
+                return;
+            }
+        }
+    }
+
+    private void run(String jobId, JobHandler handler, Semaphore semaphore) {
+        running.add(jobId);
+        try {
+            boolean done = false;
+            while (!done) {
+                try {
+                    done = Boolean.TRUE.equals(transactionTemplate.execute(status -> processChunk(jobId, handler)));
+                } catch (OptimisticLockingFailureException e) {
+                    // Задачу изменили параллельно (отмена или перехват), пачка откатилась и будет перечитана
+                    log.debug("Пачка задачи {} откатилась из-за параллельного изменения", jobId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Задача {} завершилась с ошибкой", jobId, e);
+            transactionTemplate.executeWithoutResult(status -> {
+                Job job = getJob(jobId);
+                if (!isOwned(job)) {
+                    return;
+                }
+                job.setStatus(JobStatus.FAILED);
+                job.setError(truncate(e.getMessage()));
+                job.setUpdatedAt(Instant.now());
+                job.setFinishedAt(Instant.now());
+            });
+        } finally {
+            running.remove(jobId);
+            handler.release(jobId);
+            semaphore.release();
+        }
+    }
+
+    private boolean isOwned(Job job) {
+        return job.getStatus() == JobStatus.RUNNING && owner.equals(job.getOwner());
+    }
+
+    private boolean processChunk(String jobId, JobHandler handler) {
+        Job job = getJob(jobId);
+        // Аренда могла истечь, и задачу уже выполняет другой экземпляр. Если перехват случится позже,
+        // фиксация пачки упадёт по версии и откатит её вместе с работой обработчика
+        if (!isOwned(job)) {
+            log.warn("Задача {} больше не принадлежит этому экземпляру, обработка остановлена", jobId);
+            return true;
+        }
+
+        Instant now = Instant.now();
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(now);
+        }
+
+        if (job.isCancelRequested()) {
+            job.setStatus(JobStatus.CANCELLED);
+            job.setUpdatedAt(now);
+            job.setFinishedAt(now);
+            log.info("Задача {} отменена после обработки {} элементов", jobId, job.getProcessed());
+            return true;
+        }
+
+        ChunkResult result;
+        try {
+            result = handler.processChunk(job, properties.getChunkSize());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось разобрать параметры задачи " + jobId, e);
+        }
+
+        job.setProcessed(job.getProcessed() + result.getProcessed());
+        job.setSkipped(job.getSkipped() + result.getSkipped());
+        job.setCheckpoint(result.getCheckpoint());
+        job.setUpdatedAt(Instant.now());
+        if (result.isDone()) {
+            job.setStatus(JobStatus.COMPLETED);
+            job.setFinishedAt(job.getUpdatedAt());
+            log.info("Задача {} ({}) выполнена, обработано {} элементов, пропущено {}",
+                    jobId, job.getType(), job.getProcessed(), job.getSkipped());
+        }
+        return result.isDone();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.crud.job;
+
+import com.example.crud.entity.JobType;
+import lombok.Value;
+
+@Value
+public class QueuedJob {
+    String id;
+    JobType type;
+}
@@ -0,0 +1,34 @@
+package com.example.crud.outbox;
+
+import com.example.crud.entity.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Slf4j
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+
+    public FileOutboxSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEvent event : events) {
+                writer.write(event.getPayload());
+                writer.newLine();
+            }
+        }
+        log.debug("В {} записано {} событий", file, events.size());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.crud.outbox;
+
+import com.example.crud.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+@ConditionalOnProperty(prefix = "app.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxConfig {
+
+    @Bean
+    public OutboxWriter outboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        return new OutboxWriter(outboxEventRepository, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.outbox", name = "sink", havingValue = "file", matchIfMissing = true)
+    public OutboxSink fileOutboxSink(OutboxProperties properties) {
+        return new FileOutboxSink(Path.of(properties.getSinkFile()));
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink outboxSink,
+                                   PlatformTransactionManager transactionManager, OutboxProperties properties) {
+        return new OutboxRelay(outboxEventRepository, outboxSink, new TransactionTemplate(transactionManager),
+                properties);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.crud.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    private boolean enabled = true;
+
+    private int batchSize = 500;
+
+    private int maxBatchesPerPoll = 20;
+
+    private long pollIntervalMs = 1000;
+
+    private long claimTimeoutMs = 60000;
+
+    private long retentionMs = 86400000;
+
+    private long purgeIntervalMs = 600000;
+
+    private String sink = "file";
+
+    private String sinkFile = "outbox.log";
+}
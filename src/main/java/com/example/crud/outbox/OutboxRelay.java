@@ -0,0 +1,85 @@
+package com.example.crud.outbox;
+
+import com.example.crud.entity.OutboxEvent;
+import com.example.crud.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxSink sink,
+                       TransactionTemplate transactionTemplate, OutboxProperties properties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        for (int i = 0; i < properties.getMaxBatchesPerPoll(); i++) {
+            int relayed;
+            try {
+                relayed = relayBatch();
+            } catch (Exception e) {
+                log.error("Не удалось передать пакет событий outbox, повтор при следующем опросе", e);
+                return;
+            }
+
+            if (relayed < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:600000}")
+    public void purge() {
+        Instant before = Instant.now().minusMillis(properties.getRetentionMs());
+        Integer purged = transactionTemplate.execute(status -> outboxEventRepository.deleteProcessedBefore(before));
+        if (purged != null && purged > 0) {
+            log.info("Удалено {} обработанных событий outbox старше {}", purged, before);
+        }
+    }
+
+    // Пакет захватывается короткой транзакцией со сроком аренды, и приёмник вызывается уже без блокировок строк.
+    // Если узел упадёт посреди отправки, строки заберут после истечения аренды: доставка «хотя бы один раз»
+    public int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEvent> claimed = outboxEventRepository.findClaimable(properties.getBatchSize(), now);
+            if (!claimed.isEmpty()) {
+                outboxEventRepository.claim(ids(claimed), now.plusMillis(properties.getClaimTimeoutMs()));
+            }
+            return claimed;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = ids(batch);
+        try {
+            sink.publish(batch);
+        } catch (Exception e) {
+            // Аренда снимается сразу, чтобы следующий опрос повторил пакет, не дожидаясь её истечения
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.release(ids));
+            throw new IllegalStateException("Ошибка приёмника outbox", e);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markProcessed(ids, Instant.now()));
+        return batch.size();
+    }
+
+    private static List<Long> ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::getId).toList();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.crud.outbox;
+
+import com.example.crud.entity.OutboxEvent;
+
+import java.util.List;
+
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,40 @@
+package com.example.crud.outbox;
+
+import com.example.crud.entity.OutboxEvent;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Slf4j
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // Событие вне транзакции не теряется: изменение уже зафиксировано, поэтому запись сохраняется отдельно
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) throws JsonProcessingException {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.warn("Событие {} {} опубликовано вне транзакции, запись outbox сохраняется отдельно",
+                    event.getOperation(), event.getId());
+        }
+
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(event.getEntity().name());
+        outboxEvent.setAggregateId(event.getId());
+        outboxEvent.setEventType(event.getOperation().name());
+        outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        outboxEvent.setCreatedAt(event.getTimestamp());
+        outboxEventRepository.save(outboxEvent);
+    }
+}
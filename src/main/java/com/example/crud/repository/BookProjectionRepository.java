@@ -0,0 +1,13 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.BookFields;
+import com.example.crud.dto.BookSearch;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+public interface BookProjectionRepository {
+
+    List<Map<String, Object>> findFields(BookSearch search, BookFields fields, Pageable pageable);
+}
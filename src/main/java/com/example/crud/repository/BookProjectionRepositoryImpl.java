@@ -0,0 +1,137 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.BookFields;
+import com.example.crud.dto.BookSearch;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class BookProjectionRepositoryImpl implements BookProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(BookSearch search, BookFields fields, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+
+        List<BookFields.Field> bookFields = new ArrayList<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (BookFields.Field field : fields.getFields()) {
+            if (!field.isShelfField()) {
+                bookFields.add(field);
+                selections.add(book.get(field.getAttribute()));
+            }
+        }
+
+        // shelf.id берётся из внешнего ключа книги, JOIN нужен только для name/description
+        if (fields.includesShelf()) {
+            if (fields.needsShelfJoin()) {
+                Join<Book, Shelf> shelf = book.join("shelf", JoinType.LEFT);
+                selections.add(shelf.get("id"));
+                if (fields.getFields().contains(BookFields.Field.SHELF_NAME)) {
+                    selections.add(shelf.get("name"));
+                }
+                if (fields.getFields().contains(BookFields.Field.SHELF_DESCRIPTION)) {
+                    selections.add(shelf.get("description"));
+                }
+            } else {
+                selections.add(book.get("shelf").get("id"));
+            }
+        }
+
+        query.multiselect(selections);
+        query.where(toPredicates(cb, book, search));
+        query.orderBy(toOrders(cb, book, pageable.getSort()));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            int index = 0;
+            for (BookFields.Field field : bookFields) {
+                row.put(field.getPath(), tuple.get(index++));
+            }
+            if (fields.includesShelf()) {
+                Integer shelfId = (Integer) tuple.get(index++);
+                String name = fields.getFields().contains(BookFields.Field.SHELF_NAME) ? (String) tuple.get(index++) : null;
+                String description = fields.getFields().contains(BookFields.Field.SHELF_DESCRIPTION)
+                        ? (String) tuple.get(index) : null;
+                row.put("shelf", shelfId == null ? null : fields.shelfMap(shelfId, name, description));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private Predicate[] toPredicates(CriteriaBuilder cb, Root<Book> book, BookSearch search) {
+        List<Predicate> predicates = new ArrayList<>();
+        Expression<String> title = cb.lower(book.get("title"));
+        Expression<String> author = cb.lower(book.get("author"));
+
+        if (hasText(search.getKeyword())) {
+            String pattern = containsPattern(search.getKeyword());
+            predicates.add(cb.or(cb.like(title, pattern, '\\'), cb.like(author, pattern, '\\')));
+        }
+        if (hasText(search.getTitle())) {
+            predicates.add(cb.like(title, containsPattern(search.getTitle()), '\\'));
+        }
+        if (hasText(search.getAuthor())) {
+            predicates.add(cb.like(author, containsPattern(search.getAuthor()), '\\'));
+        }
+        if (search.getYear() != null) {
+            predicates.add(cb.equal(book.get("year"), search.getYear()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private List<Order> toOrders(CriteriaBuilder cb, Root<Book> book, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isDescending() ? cb.desc(book.get(order.getProperty())) : cb.asc(book.get(order.getProperty())));
+        }
+        if (orders.isEmpty()) {
+            orders.add(cb.asc(book.get("id")));
+        }
+        return orders;
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static String containsPattern(String value) {
+        String escaped = value.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
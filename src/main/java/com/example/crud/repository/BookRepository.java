@@ -1,30 +1,88 @@
 package com.example.crud.repository;
 
+import com.example.crud.catalog.BookRecord;
 import com.example.crud.entity.Book;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Integer> {
+public interface BookRepository extends JpaRepository<Book, Integer>, BookProjectionRepository,
+        ShelfContentsRepository, SortedBookRepository {
 
-    @Query("SELECT b FROM Book b ORDER BY LOWER(b.title) ASC")
-    List<Book> findAllSortedByTitleAsc();
+    @Override
+    @EntityGraph(attributePaths = "shelf")
+    List<Book> findAll();
 
-    @Query("SELECT b FROM Book b ORDER BY LOWER(b.title) DESC")
-    List<Book> findAllSortedByTitleDesc();
+    @Override
+    @EntityGraph(attributePaths = "shelf")
+    Page<Book> findAll(Pageable pageable);
 
-    @Query("SELECT b FROM Book b ORDER BY LOWER(b.author) ASC")
-    List<Book> findAllSortedByAuthorAsc();
+    @EntityGraph(attributePaths = "shelf")
+    List<Book> findByIdIn(Collection<Integer> ids);
 
-    @Query("SELECT b FROM Book b ORDER BY LOWER(b.author) DESC")
-    List<Book> findAllSortedByAuthorDesc();
+    @Query("SELECT new com.example.crud.catalog.BookRecord(b.id, b.title, b.author, b.year, s.id) FROM Book b LEFT JOIN b.shelf s")
+    List<BookRecord> findAllRecords();
 
-    @Query("SELECT b FROM Book b ORDER BY b.year ASC")
-    List<Book> findAllSortedByYearAsc();
+    @Query("SELECT new com.example.crud.catalog.BookRecord(b.id, b.title, b.author, b.year, s.id) FROM Book b LEFT JOIN b.shelf s WHERE b.id IN :ids")
+    List<BookRecord> findRecordsByIdIn(@Param("ids") Collection<Integer> ids);
 
-    @Query("SELECT b FROM Book b ORDER BY b.year DESC")
-    List<Book> findAllSortedByYearDesc();
-}
\ No newline at end of file
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.shelf.id = :shelfId")
+    List<Book> findByShelfIdForUpdate(@Param("shelfId") Integer shelfId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.shelf.id = :shelfId AND b.id > :afterId ORDER BY b.id")
+    List<Book> findOnShelfAfterForUpdate(@Param("shelfId") Integer shelfId, @Param("afterId") int afterId, Limit limit);
+
+    long countByShelfId(Integer shelfId);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
+
+    List<Book> findByShelfIdOrderByIdAsc(Integer shelfId);
+
+    @EntityGraph(attributePaths = "shelf")
+    Page<Book> findByShelfId(Integer shelfId, Pageable pageable);
+
+    Optional<Book> findFirstByFingerprintOrderByIdAsc(String fingerprint);
+
+    boolean existsByFingerprintAndIdNot(String fingerprint, int id);
+
+    @Query("SELECT b.fingerprint, COUNT(b) FROM Book b WHERE b.fingerprint IS NOT NULL " +
+            "GROUP BY b.fingerprint HAVING COUNT(b) > 1 ORDER BY COUNT(b) DESC, b.fingerprint")
+    List<Object[]> findDuplicateFingerprints(Pageable pageable);
+
+    // Продолжение отчёта по ключу: глубокая страница стоит столько же, сколько первая
+    @Query("SELECT b.fingerprint, COUNT(b) FROM Book b WHERE b.fingerprint > :after " +
+            "GROUP BY b.fingerprint HAVING COUNT(b) > 1 ORDER BY b.fingerprint")
+    List<Object[]> findDuplicateFingerprintsAfter(@Param("after") String after, Limit limit);
+
+    @Query("SELECT b.fingerprint, b.id, b.title, b.author, b.year FROM Book b WHERE b.fingerprint IN :fingerprints ORDER BY b.id")
+    List<Object[]> findByFingerprintIn(@Param("fingerprints") Collection<String> fingerprints);
+
+    @Query("SELECT new com.example.crud.catalog.BookRecord(b.id, b.title, b.author, b.year, s.id) FROM Book b LEFT JOIN b.shelf s " +
+            "WHERE b.fingerprint IS NULL AND b.id > :afterId ORDER BY b.id")
+    List<BookRecord> findRecordsWithoutFingerprint(@Param("afterId") int afterId, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.fingerprint = :fingerprint WHERE b.id = :id AND b.fingerprint IS NULL")
+    int setFingerprint(@Param("id") int id, @Param("fingerprint") String fingerprint);
+}
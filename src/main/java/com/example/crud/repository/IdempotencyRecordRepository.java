@@ -0,0 +1,34 @@
+package com.example.crud.repository;
+
+import com.example.crud.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.expiresAt <= :now")
+    int deleteExpiredByKey(@Param("key") String key, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.state = com.example.crud.entity.IdempotencyRecordState.COMPLETED, " +
+            "r.status = :status, r.contentType = :contentType, r.body = :body, r.expiresAt = :expiresAt " +
+            "WHERE r.key = :key AND r.state = com.example.crud.entity.IdempotencyRecordState.PENDING")
+    int complete(@Param("key") String key, @Param("status") int status, @Param("contentType") String contentType,
+                 @Param("body") byte[] body, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+            "WHERE r.key = :key AND r.state = com.example.crud.entity.IdempotencyRecordState.PENDING")
+    int deletePending(@Param("key") String key);
+}
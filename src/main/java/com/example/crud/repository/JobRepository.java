@@ -0,0 +1,42 @@
+package com.example.crud.repository;
+
+import com.example.crud.entity.Job;
+import com.example.crud.job.QueuedJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, String> {
+
+    // Диспетчеру нужны только ID и тип, параметры задачи читаются уже исполнителем;
+    // за один цикл он не раздаст больше, чем вмещает исполнитель, поэтому очередь читается порцией
+    @Query("SELECT new com.example.crud.job.QueuedJob(j.id, j.type) FROM Job j " +
+            "WHERE j.status = com.example.crud.entity.JobStatus.QUEUED ORDER BY j.createdAt")
+    List<QueuedJob> findQueued(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.status = com.example.crud.entity.JobStatus.RUNNING, j.owner = :owner, " +
+            "j.updatedAt = :now, j.version = j.version + 1 " +
+            "WHERE j.id = :id AND j.status = com.example.crud.entity.JobStatus.QUEUED")
+    int claim(@Param("id") String id, @Param("owner") String owner, @Param("now") Instant now);
+
+    // Версия не меняется, чтобы продление аренды не конфликтовало с фиксацией очередной пачки
+    @Modifying
+    @Query("UPDATE Job j SET j.updatedAt = :now " +
+            "WHERE j.id IN :ids AND j.owner = :owner AND j.status = com.example.crud.entity.JobStatus.RUNNING")
+    int heartbeat(@Param("ids") Collection<String> ids, @Param("owner") String owner, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.status = com.example.crud.entity.JobStatus.QUEUED, j.owner = NULL, " +
+            "j.version = j.version + 1 " +
+            "WHERE j.status = com.example.crud.entity.JobStatus.RUNNING AND j.updatedAt < :staleBefore")
+    int requeueStale(@Param("staleBefore") Instant staleBefore);
+}
@@ -0,0 +1,48 @@
+package com.example.crud.repository;
+
+import com.example.crud.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query(value = "SELECT * FROM outbox_event WHERE processed_at IS NULL AND (claimed_until IS NULL OR claimed_until < :now) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> findClaimable(@Param("limit") int limit, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :until WHERE e.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("until") Instant until);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = NULL WHERE e.id IN :ids AND e.processedAt IS NULL")
+    int release(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("processedAt") Instant processedAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+
+    List<OutboxEvent> findByChangeIdGreaterThanOrderByChangeIdAsc(long afterChangeId, Limit limit);
+
+    List<OutboxEvent> findByChangeIdIn(Collection<Long> changeIds);
+
+    @Query("SELECT e.changeId FROM OutboxEvent e WHERE e.changeId > :afterChangeId AND e.changeId <= :upToChangeId")
+    List<Long> findChangeIdsBetween(@Param("afterChangeId") long afterChangeId, @Param("upToChangeId") long upToChangeId);
+
+    @Query("SELECT COALESCE(MAX(e.changeId), 0) FROM OutboxEvent e")
+    long findMaxChangeId();
+}
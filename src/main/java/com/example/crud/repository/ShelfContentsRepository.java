@@ -0,0 +1,15 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.entity.Book;
+
+import java.util.function.Consumer;
+
+public interface ShelfContentsRepository {
+
+    CursorPage<Book> findOnShelf(int shelfId, BookSortKey sortKey, boolean descending, BookCursor after, int limit);
+
+    void forEachOnShelf(int shelfId, Consumer<Book> action);
+}
@@ -0,0 +1,107 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class ShelfContentsRepositoryImpl implements ShelfContentsRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<Book> findOnShelf(int shelfId, BookSortKey sortKey, boolean descending, BookCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        book.fetch("shelf", JoinType.INNER);
+
+        Expression<Integer> id = book.get("id");
+        Expression<?> key = sortKeyOf(cb, book, sortKey);
+        query.multiselect(book, key);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(book.get("shelf").get("id"), shelfId));
+        if (after != null) {
+            Predicate afterId = beyond(cb, id, after.getId(), descending);
+            predicates.add(sortKey == BookSortKey.ID
+                    ? afterId
+                    : cb.or(beyond(cb, key, (Comparable<?>) after.getKey(), descending),
+                    cb.and(cb.equal(key, after.getKey()), afterId)));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        List<Order> orders = new ArrayList<>();
+        if (sortKey != BookSortKey.ID) {
+            orders.add(descending ? cb.desc(key) : cb.asc(key));
+        }
+        orders.add(descending ? cb.desc(id) : cb.asc(id));
+        query.orderBy(orders);
+
+        // Лишняя строка показывает, есть ли следующая страница, без отдельного COUNT
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+
+        List<Book> books = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            books.add(rows.get(i).get(0, Book.class));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            Tuple last = rows.get(limit - 1);
+            Object lastKey = sortKey == BookSortKey.ID ? null : last.get(1);
+            nextCursor = new BookCursor(sortKey, descending, lastKey, last.get(0, Book.class).getId()).encode();
+        }
+        return new CursorPage<>(books, nextCursor);
+    }
+
+    @Override
+    public void forEachOnShelf(int shelfId, Consumer<Book> action) {
+        try (Stream<Book> books = entityManager.createQuery(
+                        "SELECT b FROM Book b JOIN FETCH b.shelf s WHERE s.id = :shelfId ORDER BY b.id", Book.class)
+                .setParameter("shelfId", shelfId)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            // Отданные книги сразу отсоединяются, чтобы контекст персистентности не рос вместе с выгрузкой
+            books.forEach(book -> {
+                action.accept(book);
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    static Expression<?> sortKeyOf(CriteriaBuilder cb, Root<Book> book, BookSortKey sortKey) {
+        return switch (sortKey) {
+            case TITLE -> cb.lower(book.get("title"));
+            case AUTHOR -> cb.lower(book.get("author"));
+            // NULL не сравнивается в условии курсора, поэтому книги без года идут как самые ранние
+            case YEAR -> cb.coalesce(book.<Integer>get("year"), Integer.MIN_VALUE);
+            case ID -> book.get("id");
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate beyond(CriteriaBuilder cb, Expression key, Comparable value, boolean descending) {
+        return descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+    }
+}
@@ -1,9 +1,50 @@
 package com.example.crud.repository;
 
+import com.example.crud.catalog.ShelfRecord;
+import com.example.crud.dto.ShelfSummary;
 import com.example.crud.entity.Shelf;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ShelfRepository extends JpaRepository<Shelf, Integer> {
-}
\ No newline at end of file
+
+    @Override
+    @EntityGraph(attributePaths = "books")
+    List<Shelf> findAll();
+
+    @EntityGraph(attributePaths = "books")
+    List<Shelf> findByIdIn(Collection<Integer> ids);
+
+    @Query("SELECT new com.example.crud.catalog.ShelfRecord(s.id, s.name, s.description) FROM Shelf s")
+    List<ShelfRecord> findAllRecords();
+
+    @Query("SELECT new com.example.crud.catalog.ShelfRecord(s.id, s.name, s.description) FROM Shelf s WHERE s.id IN :ids")
+    List<ShelfRecord> findRecordsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT new com.example.crud.dto.ShelfSummary(s.id, s.name, s.description, COUNT(b)) " +
+            "FROM Shelf s LEFT JOIN s.books b GROUP BY s.id, s.name, s.description")
+    List<ShelfSummary> findSummaries(Pageable pageable);
+
+    @Query("SELECT new com.example.crud.dto.ShelfSummary(s.id, s.name, s.description, COUNT(b)) " +
+            "FROM Shelf s LEFT JOIN s.books b WHERE s.id = :id GROUP BY s.id, s.name, s.description")
+    Optional<ShelfSummary> findSummaryById(@Param("id") Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Shelf s WHERE s.id = :id")
+    Optional<Shelf> findByIdForUpdate(@Param("id") Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT s FROM Shelf s WHERE s.id = :id")
+    Optional<Shelf> findByIdForShare(@Param("id") Integer id);
+}
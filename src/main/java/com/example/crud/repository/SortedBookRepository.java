@@ -0,0 +1,11 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.entity.Book;
+
+import java.util.List;
+
+public interface SortedBookRepository {
+
+    List<Book> findAllSorted(BookSortKey sortKey, boolean descending, int offset, Integer limit);
+}
@@ -0,0 +1,47 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SortedBookRepositoryImpl implements SortedBookRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Ключи те же, что у курсоров полки и у SortedBookViews, поэтому порядок совпадает с выдачей из памяти
+    @Override
+    public List<Book> findAllSorted(BookSortKey sortKey, boolean descending, int offset, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        book.fetch("shelf", JoinType.LEFT);
+        query.select(book);
+
+        Expression<Integer> id = book.get("id");
+        List<Order> orders = new ArrayList<>();
+        if (sortKey != BookSortKey.ID) {
+            Expression<?> key = ShelfContentsRepositoryImpl.sortKeyOf(cb, book, sortKey);
+            orders.add(descending ? cb.desc(key) : cb.asc(key));
+        }
+        orders.add(descending ? cb.desc(id) : cb.asc(id));
+        query.orderBy(orders);
+
+        TypedQuery<Book> typed = entityManager.createQuery(query).setFirstResult(offset);
+        if (limit != null) {
+            typed.setMaxResults(limit);
+        }
+        return typed.getResultList();
+    }
+}
@@ -1,45 +1,43 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.BookFields;
+import com.example.crud.dto.BookSearch;
 import com.example.crud.dto.BookWithShelfDTO;
+import com.example.crud.dto.DuplicateGroup;
+import com.example.crud.duplicate.DuplicateMode;
 import com.example.crud.entity.Book;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface BookService {
 
     Book createBook(Book book);
 
+    Book createBook(Book book, DuplicateMode mode);
+
+    Optional<Book> findDuplicate(Book book);
+
     String readBook();
 
     Book updateBook(Integer id, Book book);
 
     void deleteBook(Integer id);
 
-    Page<Book> getAllBooks(Pageable pageable);
-
-    Page<Book> searchBooks(String keyword, Pageable pageable);
-
-    Page<Book> findByAuthor(String author, Pageable pageable);
-
-    Page<Book> findByYear(Integer year, Pageable pageable);
+    List<DuplicateGroup> findDuplicates(int page, int size);
 
-    Page<Book> findByTitleAndAuthor(String title, String author, Pageable pageable);
+    List<DuplicateGroup> findDuplicatesAfter(String after, int size);
 
-    List<Book> findAllSortedByTitleAsc();
+    List<Map<String, Object>> findBooks(BookSearch search, BookFields fields, Pageable pageable);
 
-    List<Book> findAllSortedByTitleDesc();
-
-    List<Book> findAllSortedByAuthorAsc();
-
-    List<Book> findAllSortedByAuthorDesc();
-
-    List<Book> findAllSortedByYearAsc();
-
-    List<Book> findAllSortedByYearDesc();
+    List<Book> findAllSorted(String field, boolean descending, int offset, Integer limit);
 
     Book getBookById(Integer id);
 
+    BatchGetResponse<Book> getBooksByIds(List<Integer> ids);
+
     BookWithShelfDTO getBookWithShelf(Integer id);
 }
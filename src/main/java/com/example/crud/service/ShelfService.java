@@ -1,10 +1,18 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.dto.ShelfSummary;
 import com.example.crud.entity.Book;
 import com.example.crud.entity.Shelf;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ShelfService {
 
@@ -12,12 +20,24 @@ public interface ShelfService {
 
     List<Shelf> readShelf();
 
+    BatchGetResponse<Shelf> getShelvesByIds(List<Integer> ids);
+
     Shelf updateShelf(Integer id, Shelf shelf);
 
     String deleteShelf(Integer id);
 
+    List<ShelfSummary> getShelfSummaries(int page, int size);
+
+    ShelfSummary getShelfSummary(Integer id);
+
     List<Book> getBooksForShelf(Integer id);
 
+    Page<Book> getBooksForShelf(Integer id, Pageable pageable);
+
+    CursorPage<Book> getBooksForShelfAfter(Integer id, BookSortKey sortKey, boolean descending, BookCursor after, int limit);
+
+    void streamBooksForShelf(Integer id, Consumer<Book> action);
+
     ResponseEntity removeBookFromShelfByBookId(Integer bookId);
 
     void addBookToShelf(Integer shelfId, Integer bookId);
@@ -1,25 +1,43 @@
 package com.example.crud.service.iml;
 
+import com.example.crud.catalog.BookRecord;
+import com.example.crud.catalog.CatalogIndex;
+import com.example.crud.catalog.SortedBookViews;
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.BookFields;
+import com.example.crud.dto.BookSearch;
+import com.example.crud.dto.BookSortKey;
 import com.example.crud.dto.BookWithShelfDTO;
+import com.example.crud.dto.DuplicateGroup;
+import com.example.crud.duplicate.BookFingerprint;
+import com.example.crud.duplicate.DuplicateMode;
+import com.example.crud.duplicate.DuplicateProperties;
 import com.example.crud.entity.Book;
 import com.example.crud.entity.Shelf;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
 import com.example.crud.exception.BookNotFoundException;
+import com.example.crud.exception.DuplicateBookException;
 import com.example.crud.exception.ShelfNotFoundException;
 import com.example.crud.exception.InvalidRequestException;
 import com.example.crud.repository.BookRepository;
 import com.example.crud.repository.ShelfRepository;
 import com.example.crud.service.BookService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,21 +45,51 @@ import java.util.stream.Collectors;
 public class BookServiceImpl implements BookService {
     private final BookRepository bookRepository;
     private final ShelfRepository shelfRepository;
-
-    public BookServiceImpl(BookRepository bookRepository, ShelfRepository shelfRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<CatalogIndex> catalogIndex;
+    private final ObjectProvider<SortedBookViews> sortedBookViews;
+    private final DuplicateProperties duplicateProperties;
+
+    public BookServiceImpl(BookRepository bookRepository, ShelfRepository shelfRepository,
+                           ApplicationEventPublisher eventPublisher, ObjectProvider<CatalogIndex> catalogIndex,
+                           ObjectProvider<SortedBookViews> sortedBookViews, DuplicateProperties duplicateProperties) {
         this.bookRepository = bookRepository;
         this.shelfRepository = shelfRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogIndex = catalogIndex;
+        this.sortedBookViews = sortedBookViews;
+        this.duplicateProperties = duplicateProperties;
     }
 
     @Override
     @Transactional
     public Book createBook(Book book) {
-        validateBookForCreation(book);
+        return createBook(book, duplicateProperties.getMode());
+    }
+
+    @Override
+    @Transactional
+    public Book createBook(Book book, DuplicateMode mode) {
+        CatalogValidator.validateBookForCreation(book);
+
+        String fingerprint = BookFingerprint.of(book.getTitle(), book.getAuthor(), book.getYear());
+        if (mode != DuplicateMode.ALLOW) {
+            Book existing = bookRepository.findFirstByFingerprintOrderByIdAsc(fingerprint).orElse(null);
+            if (existing != null) {
+                if (mode == DuplicateMode.REJECT) {
+                    throw new DuplicateBookException("Книга '" + book.getTitle() + "' автора '" + book.getAuthor() +
+                            "' (" + book.getYear() + ") уже существует, ID: " + existing.getId());
+                }
+                // Обновляется самая ранняя копия, поэтому другие копии из режима allow не мешают
+                log.info("Книга '{}' уже существует (ID: {}), выполняется обновление", book.getTitle(), existing.getId());
+                return update(existing.getId(), book);
+            }
+        }
 
         if (book.getShelf() != null) {
             Integer shelfId = book.getShelf().getId();
 
-            Shelf shelf = shelfRepository.findById(shelfId)
+            Shelf shelf = shelfRepository.findByIdForShare(shelfId)
                     .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + shelfId + " не найдена"));
 
             book.setShelf(shelf);
@@ -50,7 +98,18 @@ public class BookServiceImpl implements BookService {
             book.setShelf(null);
         }
 
-        return bookRepository.save(book);
+        book.setFingerprint(fingerprint);
+        Book savedBook = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.book(
+                ChangeOperation.CREATE, savedBook.getId(), null, shelfIdOf(savedBook)));
+        return savedBook;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Book> findDuplicate(Book book) {
+        return bookRepository.findFirstByFingerprintOrderByIdAsc(
+                BookFingerprint.of(book.getTitle(), book.getAuthor(), book.getYear()));
     }
 
     @Override
@@ -59,6 +118,34 @@ public class BookServiceImpl implements BookService {
                 .orElseThrow(() -> new BookNotFoundException("Книга с ID " + id + " не найдена"));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BatchGetResponse<Book> getBooksByIds(List<Integer> ids) {
+        List<Integer> requested = CatalogValidator.validateBatchIds(ids);
+        Map<Integer, Book> found = new HashMap<>();
+        List<Integer> remaining = new ArrayList<>();
+
+        CatalogIndex index = catalogIndex.getIfAvailable();
+        boolean indexReady = index != null && index.isReady();
+        for (Integer id : requested) {
+            BookRecord record = indexReady ? index.findBook(id).orElse(null) : null;
+            if (record != null) {
+                found.put(id, index.toBook(record));
+            } else {
+                remaining.add(id);
+            }
+        }
+
+        for (int from = 0; from < remaining.size(); from += CatalogValidator.IN_CHUNK_SIZE) {
+            List<Integer> chunk = remaining.subList(from, Math.min(from + CatalogValidator.IN_CHUNK_SIZE, remaining.size()));
+            for (Book book : bookRepository.findByIdIn(chunk)) {
+                found.put(book.getId(), book);
+            }
+        }
+
+        return BatchGetResponse.of(requested, found);
+    }
+
     @Override
     public BookWithShelfDTO getBookWithShelf(Integer id) {
         Book book = getBookById(id);
@@ -84,6 +171,7 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public String readBook() {
         List<Book> books = bookRepository.findAll();
 
@@ -99,241 +187,127 @@ public class BookServiceImpl implements BookService {
     @Override
     @Transactional
     public Book updateBook(Integer id, Book book) {
-        validateBookForUpdate(book);
+        CatalogValidator.validateBookForUpdate(book);
 
-        Book existingBook = bookRepository.findById(id)
-                .orElseThrow(() -> new BookNotFoundException("Книга с ID " + id + " не найдена"));
+        if (duplicateProperties.getMode() != DuplicateMode.ALLOW) {
+            String fingerprint = BookFingerprint.of(book.getTitle(), book.getAuthor(), book.getYear());
+            if (bookRepository.existsByFingerprintAndIdNot(fingerprint, id)) {
+                throw new DuplicateBookException("Другая книга '" + book.getTitle() + "' автора '" + book.getAuthor() +
+                        "' (" + book.getYear() + ") уже существует");
+            }
+        }
 
-        existingBook.setTitle(book.getTitle());
-        existingBook.setAuthor(book.getAuthor());
-        existingBook.setYear(book.getYear());
+        return update(id, book);
+    }
 
+    private Book update(Integer id, Book book) {
+        Shelf shelf = null;
         if (book.getShelf() != null) {
-            Shelf shelf = shelfRepository.findById(book.getShelf().getId())
+            shelf = shelfRepository.findByIdForShare(book.getShelf().getId())
                     .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + book.getShelf().getId() + " не найдена"));
-            existingBook.setShelf(shelf);
-        } else {
-            existingBook.setShelf(null);
         }
 
-        return bookRepository.save(existingBook);
+        Book existingBook = bookRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new BookNotFoundException("Книга с ID " + id + " не найдена"));
+        Integer shelfBefore = shelfIdOf(existingBook);
+
+        existingBook.setTitle(book.getTitle());
+        existingBook.setAuthor(book.getAuthor());
+        existingBook.setYear(book.getYear());
+        existingBook.setShelf(shelf);
+        existingBook.setFingerprint(BookFingerprint.of(existingBook.getTitle(), existingBook.getAuthor(), existingBook.getYear()));
+
+        Book savedBook = bookRepository.save(existingBook);
+        eventPublisher.publishEvent(CatalogChangedEvent.book(
+                ChangeOperation.UPDATE, id, shelfBefore, shelfIdOf(savedBook)));
+        return savedBook;
     }
 
     @Override
     @Transactional
     public void deleteBook(Integer id) {
-        Book book = bookRepository.findById(id)
+        Book book = bookRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new BookNotFoundException("Книга с ID " + id + " не найдена"));
 
         String bookTitle = book.getTitle();
+        Integer shelfBefore = shelfIdOf(book);
         bookRepository.delete(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.DELETE, id, shelfBefore, null));
         log.info("Книга '{}' (ID: {}) удалена", bookTitle, id);
     }
 
     @Override
-    public Page<Book> getAllBooks(Pageable pageable) {
-        return bookRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findBooks(BookSearch search, BookFields fields, Pageable pageable) {
+        CatalogValidator.validateSearch(search);
+        return bookRepository.findFields(search, fields, pageable);
     }
 
     @Override
-    public Page<Book> searchBooks(String keyword, Pageable pageable) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            throw new InvalidRequestException("Ключевое слово для поиска не может быть пустым");
+    @Transactional(readOnly = true)
+    public List<DuplicateGroup> findDuplicates(int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new InvalidRequestException("Некорректные параметры страницы");
         }
 
-        List<Book> filteredBooks = bookRepository.findAll().stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(keyword.toLowerCase()) ||
-                        book.getAuthor().toLowerCase().contains(keyword.toLowerCase()))
-                .collect(Collectors.toList());
-
-        return createPageFromList(filteredBooks, pageable);
+        return toDuplicateGroups(bookRepository.findDuplicateFingerprints(PageRequest.of(page, size)));
     }
 
     @Override
-    public Page<Book> findByAuthor(String author, Pageable pageable) {
-        if (author == null || author.trim().isEmpty()) {
-            throw new InvalidRequestException("Имя автора не может быть пустым");
-        }
-
-        List<Book> filteredBooks = bookRepository.findAll().stream()
-                .filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()))
-                .collect(Collectors.toList());
-
-        if (filteredBooks.isEmpty()) {
-            log.warn("Книги автора '{}' не найдены", author);
+    @Transactional(readOnly = true)
+    public List<DuplicateGroup> findDuplicatesAfter(String after, int size) {
+        if (size <= 0) {
+            throw new InvalidRequestException("Некорректные параметры страницы");
         }
-
-        return createPageFromList(filteredBooks, pageable);
+        return toDuplicateGroups(bookRepository.findDuplicateFingerprintsAfter(after, Limit.of(size)));
     }
 
-    @Override
-    public Page<Book> findByYear(Integer year, Pageable pageable) {
-        if (year == null) {
-            throw new InvalidRequestException("Год не может быть null");
-        }
-
-        if (year < 0 || year > 2100) {
-            throw new InvalidRequestException("Год должен быть в диапазоне от 0 до 2100");
+    private List<DuplicateGroup> toDuplicateGroups(List<Object[]> fingerprints) {
+        Map<String, DuplicateGroup> groups = new LinkedHashMap<>();
+        for (Object[] row : fingerprints) {
+            DuplicateGroup group = new DuplicateGroup();
+            group.setFingerprint((String) row[0]);
+            group.setCount((Long) row[1]);
+            groups.put(group.getFingerprint(), group);
         }
 
-        List<Book> filteredBooks = bookRepository.findAll().stream()
-                .filter(book -> year.equals(book.getYear()))
-                .collect(Collectors.toList());
-
-        if (filteredBooks.isEmpty()) {
-            log.info("Книги за {} год не найдены", year);
+        if (!groups.isEmpty()) {
+            for (Object[] row : bookRepository.findByFingerprintIn(groups.keySet())) {
+                DuplicateGroup group = groups.get((String) row[0]);
+                if (group.getBookIds().isEmpty()) {
+                    group.setTitle((String) row[2]);
+                    group.setAuthor((String) row[3]);
+                    group.setYear((Integer) row[4]);
+                }
+                group.getBookIds().add((Integer) row[1]);
+            }
         }
 
-        return createPageFromList(filteredBooks, pageable);
+        return new ArrayList<>(groups.values());
     }
 
     @Override
-    public Page<Book> findByTitleAndAuthor(String title, String author, Pageable pageable) {
-        if ((title == null || title.trim().isEmpty()) && (author == null || author.trim().isEmpty())) {
-            throw new InvalidRequestException("Хотя бы один параметр поиска (название или автор) должен быть указан");
+    @Transactional(readOnly = true)
+    public List<Book> findAllSorted(String field, boolean descending, int offset, Integer limit) {
+        if (offset < 0 || (limit != null && limit < 0)) {
+            throw new InvalidRequestException("Параметры offset и limit не могут быть отрицательными");
         }
 
-        List<Book> filteredBooks = bookRepository.findAll().stream()
-                .filter(book -> {
-                    boolean matchesTitle = title == null || title.trim().isEmpty() ||
-                            book.getTitle().toLowerCase().contains(title.toLowerCase());
-                    boolean matchesAuthor = author == null || author.trim().isEmpty() ||
-                            book.getAuthor().toLowerCase().contains(author.toLowerCase());
-                    return matchesTitle && matchesAuthor;
-                })
-                .collect(Collectors.toList());
-
-        return createPageFromList(filteredBooks, pageable);
-    }
-
-    @Override
-    public List<Book> findAllSortedByTitleAsc() {
-        return bookRepository.findAllSortedByTitleAsc();
-    }
-
-    @Override
-    public List<Book> findAllSortedByTitleDesc() {
-        return bookRepository.findAllSortedByTitleDesc();
-    }
-
-    @Override
-    public List<Book> findAllSortedByAuthorAsc() {
-        return bookRepository.findAllSortedByAuthorAsc();
-    }
-
-    @Override
-    public List<Book> findAllSortedByAuthorDesc() {
-        return bookRepository.findAllSortedByAuthorDesc();
-    }
-
-    @Override
-    public List<Book> findAllSortedByYearAsc() {
-        return bookRepository.findAllSortedByYearAsc();
-    }
-
-    @Override
-    public List<Book> findAllSortedByYearDesc() {
-        return bookRepository.findAllSortedByYearDesc();
-    }
-
-    private Page<Book> createPageFromList(List<Book> list, Pageable pageable) {
-        int pageSize = pageable.getPageSize();
-        int currentPage = pageable.getPageNumber();
-        int startItem = currentPage * pageSize;
-
-        List<Book> pageList;
-
-        if (list.size() < startItem) {
-            pageList = new ArrayList<>();
-        } else {
-            int toIndex = Math.min(startItem + pageSize, list.size());
-            pageList = list.subList(startItem, toIndex);
-        }
-
-        if (pageable.getSort().isSorted()) {
-            pageList = applySorting(pageList, pageable.getSort());
-        }
-
-        return new PageImpl<>(pageList, pageable, list.size());
-    }
-
-    private List<Book> applySorting(List<Book> books, Sort sort) {
-        List<Comparator<Book>> comparators = new ArrayList<>();
-
-        for (Sort.Order order : sort) {
-            Comparator<Book> comparator;
-
-            switch (order.getProperty().toLowerCase()) {
-                case "title":
-                    comparator = Comparator.comparing(Book::getTitle, String.CASE_INSENSITIVE_ORDER);
-                    break;
-                case "author":
-                    comparator = Comparator.comparing(Book::getAuthor, String.CASE_INSENSITIVE_ORDER);
-                    break;
-                case "year":
-                    comparator = Comparator.comparing(Book::getYear);
-                    break;
-                default:
-                    comparator = Comparator.comparing(Book::getId);
-                    break;
-            }
-
-            if (order.isDescending()) {
-                comparator = comparator.reversed();
-            }
-
-            comparators.add(comparator);
-        }
-
-        if (!comparators.isEmpty()) {
-            Comparator<Book> combinedComparator = comparators.get(0);
-            for (int i = 1; i < comparators.size(); i++) {
-                combinedComparator = combinedComparator.thenComparing(comparators.get(i));
+        CatalogIndex index = catalogIndex.getIfAvailable();
+        SortedBookViews views = sortedBookViews.getIfAvailable();
+        if (index != null && views != null && index.isReady()) {
+            int[] ids = views.slice(SortedBookViews.Field.fromProperty(field), descending, offset, limit);
+            List<Book> books = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                index.findBook(id).map(index::toBook).ifPresent(books::add);
             }
-
-            books.sort(combinedComparator);
-        }
-
-        return books;
-    }
-
-    private void validateBookForCreation(Book book) {
-        if (book == null) {
-            throw new InvalidRequestException("Данные книги не могут быть null");
-        }
-
-        if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
-            throw new InvalidRequestException("Название книги обязательно");
+            return books;
         }
 
-        if (book.getAuthor() == null || book.getAuthor().trim().isEmpty()) {
-            throw new InvalidRequestException("Автор книги обязателен");
-        }
-
-        if (book.getYear() == null) {
-            throw new InvalidRequestException("Год издания обязателен");
-        }
-
-        if (book.getYear() < 0 || book.getYear() > 2100) {
-            throw new InvalidRequestException("Год издания должен быть в диапазоне от 0 до 2100");
-        }
+        return bookRepository.findAllSorted(BookSortKey.fromProperty(field), descending, offset, limit);
     }
 
-    private void validateBookForUpdate(Book book) {
-        if (book == null) {
-            throw new InvalidRequestException("Данные для обновления не могут быть null");
-        }
-
-        if (book.getTitle() != null && book.getTitle().trim().isEmpty()) {
-            throw new InvalidRequestException("Название книги не может быть пустым");
-        }
-
-        if (book.getAuthor() != null && book.getAuthor().trim().isEmpty()) {
-            throw new InvalidRequestException("Автор книги не может быть пустым");
-        }
-
-        if (book.getYear() != null && (book.getYear() < 0 || book.getYear() > 2100)) {
-            throw new InvalidRequestException("Год издания должен быть в диапазоне от 0 до 2100");
-        }
+    private Integer shelfIdOf(Book book) {
+        return book.getShelf() != null ? book.getShelf().getId() : null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.example.crud.service.iml;
+
+import com.example.crud.dto.BookSearch;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.exception.InvalidRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+final class CatalogValidator {
+
+    static final int MAX_BATCH_IDS = 1000;
+
+    static final int IN_CHUNK_SIZE = 500;
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private CatalogValidator() {
+    }
+
+    static void validateBookForCreation(Book book) {
+        if (book == null) {
+            throw new InvalidRequestException("Данные книги не могут быть null");
+        }
+
+        if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
+            throw new InvalidRequestException("Название книги обязательно");
+        }
+
+        if (book.getAuthor() == null || book.getAuthor().trim().isEmpty()) {
+            throw new InvalidRequestException("Автор книги обязателен");
+        }
+
+        if (book.getYear() == null) {
+            throw new InvalidRequestException("Год издания обязателен");
+        }
+
+        if (book.getYear() < 0 || book.getYear() > 2100) {
+            throw new InvalidRequestException("Год издания должен быть в диапазоне от 0 до 2100");
+        }
+    }
+
+    static void validateBookForUpdate(Book book) {
+        if (book == null) {
+            throw new InvalidRequestException("Данные для обновления не могут быть null");
+        }
+
+        if (book.getTitle() != null && book.getTitle().trim().isEmpty()) {
+            throw new InvalidRequestException("Название книги не может быть пустым");
+        }
+
+        if (book.getAuthor() != null && book.getAuthor().trim().isEmpty()) {
+            throw new InvalidRequestException("Автор книги не может быть пустым");
+        }
+
+        if (book.getYear() != null && (book.getYear() < 0 || book.getYear() > 2100)) {
+            throw new InvalidRequestException("Год издания должен быть в диапазоне от 0 до 2100");
+        }
+    }
+
+    static void validateShelfForCreation(Shelf shelf) {
+        if (shelf == null) {
+            throw new InvalidRequestException("Данные полки не могут быть null");
+        }
+
+        if (shelf.getName() == null || shelf.getName().trim().isEmpty()) {
+            throw new InvalidRequestException("Название полки обязательно");
+        }
+
+        if (shelf.getName().length() > 100) {
+            throw new InvalidRequestException("Название полки не может превышать 100 символов");
+        }
+
+        if (shelf.getDescription() != null && shelf.getDescription().length() > 500) {
+            throw new InvalidRequestException("Описание полки не может превышать 500 символов");
+        }
+    }
+
+    static void validateShelfForUpdate(Shelf shelf) {
+        if (shelf == null) {
+            throw new InvalidRequestException("Данные для обновления не могут быть null");
+        }
+
+        if (shelf.getName() != null) {
+            if (shelf.getName().trim().isEmpty()) {
+                throw new InvalidRequestException("Название полки не может быть пустым");
+            }
+
+            if (shelf.getName().length() > 100) {
+                throw new InvalidRequestException("Название полки не может превышать 100 символов");
+            }
+        }
+
+        if (shelf.getDescription() != null && shelf.getDescription().length() > 500) {
+            throw new InvalidRequestException("Описание полки не может превышать 500 символов");
+        }
+    }
+
+    static void validateSearch(BookSearch search) {
+        if (search.getKeyword() != null && search.getKeyword().trim().isEmpty()) {
+            throw new InvalidRequestException("Ключевое слово для поиска не может быть пустым");
+        }
+
+        if (search.getTitle() == null && search.getAuthor() != null && search.getAuthor().trim().isEmpty()) {
+            throw new InvalidRequestException("Имя автора не может быть пустым");
+        }
+
+        if (search.getTitle() != null && search.getTitle().trim().isEmpty()
+                && (search.getAuthor() == null || search.getAuthor().trim().isEmpty())) {
+            throw new InvalidRequestException("Хотя бы один параметр поиска (название или автор) должен быть указан");
+        }
+
+        if (search.getYear() != null && (search.getYear() < 0 || search.getYear() > 2100)) {
+            throw new InvalidRequestException("Год должен быть в диапазоне от 0 до 2100");
+        }
+    }
+
+    static List<Integer> validateBatchIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidRequestException("Список ID не может быть пустым");
+        }
+
+        if (ids.contains(null)) {
+            throw new InvalidRequestException("Список ID не может содержать null");
+        }
+
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinct.size() > MAX_BATCH_IDS) {
+            throw new InvalidRequestException("За один запрос можно получить не более " + MAX_BATCH_IDS + " записей");
+        }
+        return distinct;
+    }
+
+    static void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new InvalidRequestException("Номер страницы не может быть отрицательным");
+        }
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+}
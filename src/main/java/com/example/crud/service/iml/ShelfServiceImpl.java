@@ -1,7 +1,14 @@
 package com.example.crud.service.iml;
 
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.dto.ShelfSummary;
 import com.example.crud.entity.Book;
 import com.example.crud.entity.Shelf;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
 import com.example.crud.exception.BookNotFoundException;
 import com.example.crud.exception.InvalidRequestException;
 import com.example.crud.exception.ShelfNotFoundException;
@@ -9,11 +16,19 @@ import com.example.crud.repository.BookRepository;
 import com.example.crud.repository.ShelfRepository;
 import com.example.crud.service.ShelfService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
@@ -21,31 +36,53 @@ public class ShelfServiceImpl implements ShelfService {
 
     private final ShelfRepository shelfRepository;
     private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ShelfServiceImpl(ShelfRepository shelfRepository, BookRepository bookRepository) {
+    public ShelfServiceImpl(ShelfRepository shelfRepository, BookRepository bookRepository,
+                            ApplicationEventPublisher eventPublisher) {
         this.shelfRepository = shelfRepository;
         this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     @Transactional
     public Shelf createShelf(Shelf shelf) {
-        validateShelfForCreation(shelf);
+        CatalogValidator.validateShelfForCreation(shelf);
         log.info("Создание новой полки: {}", shelf.getName());
-        return shelfRepository.save(shelf);
+        Shelf savedShelf = shelfRepository.save(shelf);
+        eventPublisher.publishEvent(CatalogChangedEvent.shelf(ChangeOperation.CREATE, savedShelf.getId()));
+        return savedShelf;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Shelf> readShelf() {
         List<Shelf> shelves = shelfRepository.findAll();
 
         return shelves;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BatchGetResponse<Shelf> getShelvesByIds(List<Integer> ids) {
+        List<Integer> requested = CatalogValidator.validateBatchIds(ids);
+        Map<Integer, Shelf> found = new HashMap<>();
+
+        for (int from = 0; from < requested.size(); from += CatalogValidator.IN_CHUNK_SIZE) {
+            List<Integer> chunk = requested.subList(from, Math.min(from + CatalogValidator.IN_CHUNK_SIZE, requested.size()));
+            for (Shelf shelf : shelfRepository.findByIdIn(chunk)) {
+                found.put(shelf.getId(), shelf);
+            }
+        }
+
+        return BatchGetResponse.of(requested, found);
+    }
+
     @Override
     @Transactional
     public Shelf updateShelf(Integer id, Shelf shelf) {
-        validateShelfForUpdate(shelf);
+        CatalogValidator.validateShelfForUpdate(shelf);
 
         Shelf existingShelf = shelfRepository.findById(id)
                 .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + id + " не найдена"));
@@ -56,16 +93,18 @@ public class ShelfServiceImpl implements ShelfService {
         existingShelf.setName(shelf.getName());
         existingShelf.setDescription(shelf.getDescription());
 
-        return shelfRepository.save(existingShelf);
+        Shelf savedShelf = shelfRepository.save(existingShelf);
+        eventPublisher.publishEvent(CatalogChangedEvent.shelf(ChangeOperation.UPDATE, id));
+        return savedShelf;
     }
 
     @Override
     @Transactional
     public String deleteShelf(Integer id) {
-        Shelf shelf = shelfRepository.findById(id)
+        Shelf shelf = shelfRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + id + " не найдена"));
 
-        if (!shelf.getBooks().isEmpty()) {
+        if (bookRepository.countByShelfId(id) > 0) {
             throw new InvalidRequestException(
                     "Нельзя удалить полку '" + shelf.getName() + "', так как на ней находятся книги. " +
                             "Сначала переместите или удалите книги."
@@ -74,19 +113,35 @@ public class ShelfServiceImpl implements ShelfService {
 
         String shelfName = shelf.getName();
         shelfRepository.delete(shelf);
+        eventPublisher.publishEvent(CatalogChangedEvent.shelf(ChangeOperation.DELETE, id));
         log.info("Полка '{}' (ID: {}) удалена", shelfName, id);
         return shelfName;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ShelfSummary> getShelfSummaries(int page, int size) {
+        CatalogValidator.validatePage(page, size);
+        return shelfRepository.findSummaries(PageRequest.of(page, size, Sort.by("id")));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ShelfSummary getShelfSummary(Integer id) {
+        return shelfRepository.findSummaryById(id)
+                .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + id + " не найдена"));
+    }
+
     public Shelf getShelfById(Integer id) {
         return shelfRepository.findById(id)
                 .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + id + " не найдена"));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Book> getBooksForShelf(Integer id) {
         Shelf shelf = getShelfById(id);
-        List<Book> books = shelf.getBooks();
+        List<Book> books = bookRepository.findByShelfIdOrderByIdAsc(id);
 
         if (books.isEmpty()) {
             log.info("На полке '{}' нет книг", shelf.getName());
@@ -98,8 +153,39 @@ public class ShelfServiceImpl implements ShelfService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Page<Book> getBooksForShelf(Integer id, Pageable pageable) {
+        CatalogValidator.validatePage(pageable.getPageNumber(), pageable.getPageSize());
+        requireShelf(id);
+        return bookRepository.findByShelfId(id, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<Book> getBooksForShelfAfter(Integer id, BookSortKey sortKey, boolean descending,
+                                                  BookCursor after, int limit) {
+        CatalogValidator.validatePage(0, limit);
+        requireShelf(id);
+        return bookRepository.findOnShelf(id, sortKey, descending, after, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamBooksForShelf(Integer id, Consumer<Book> action) {
+        requireShelf(id);
+        bookRepository.forEachOnShelf(id, action);
+    }
+
+    private void requireShelf(Integer id) {
+        if (!shelfRepository.existsById(id)) {
+            throw new ShelfNotFoundException("Полка с ID " + id + " не найдена");
+        }
+    }
+
+    @Override
+    @Transactional
     public ResponseEntity removeBookFromShelfByBookId(Integer bookId) {
-        Book book = bookRepository.findById(bookId)
+        Book book = bookRepository.findByIdForUpdate(bookId)
                 .orElseThrow(() -> new BookNotFoundException("Книга с ID " + bookId + " не найдена"));
 
         if (book.getShelf() == null) {
@@ -112,6 +198,7 @@ public class ShelfServiceImpl implements ShelfService {
 
         book.setShelf(null);
         bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.MOVE, bookId, shelf.getId(), null));
 
         log.info("Книга '{}' удалена с полки '{}'", bookTitle, shelfName);
         return null;
@@ -120,10 +207,10 @@ public class ShelfServiceImpl implements ShelfService {
     @Override
     @Transactional
     public void addBookToShelf(Integer shelfId, Integer bookId) {
-        Shelf shelf = shelfRepository.findById(shelfId)
+        Shelf shelf = shelfRepository.findByIdForShare(shelfId)
                 .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + shelfId + " не найдена"));
 
-        Book book = bookRepository.findById(bookId)
+        Book book = bookRepository.findByIdForUpdate(bookId)
                 .orElseThrow(() -> new BookNotFoundException("Книга с ID " + bookId + " не найдена"));
 
         if (book.getShelf() != null) {
@@ -135,6 +222,7 @@ public class ShelfServiceImpl implements ShelfService {
 
         book.setShelf(shelf);
         bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.MOVE, bookId, null, shelfId));
 
         log.info("Книга '{}' добавлена на полку '{}'", book.getTitle(), shelf.getName());
     }
@@ -142,8 +230,9 @@ public class ShelfServiceImpl implements ShelfService {
     @Override
     @Transactional
     public void clearShelf(Integer shelfId) {
-        Shelf shelf = getShelfById(shelfId);
-        List<Book> books = shelf.getBooks();
+        Shelf shelf = shelfRepository.findByIdForUpdate(shelfId)
+                .orElseThrow(() -> new ShelfNotFoundException("Полка с ID " + shelfId + " не найдена"));
+        List<Book> books = bookRepository.findByShelfIdForUpdate(shelfId);
 
         if (books.isEmpty()) {
             log.info("Полка '{}' уже пуста", shelf.getName());
@@ -152,47 +241,10 @@ public class ShelfServiceImpl implements ShelfService {
 
         for (Book book : books) {
             book.setShelf(null);
+            eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.MOVE, book.getId(), shelfId, null));
         }
 
         bookRepository.saveAll(books);
         log.info("С полки '{}' удалено {} книг", shelf.getName(), books.size());
     }
-
-    private void validateShelfForCreation(Shelf shelf) {
-        if (shelf == null) {
-            throw new InvalidRequestException("Данные полки не могут быть null");
-        }
-
-        if (shelf.getName() == null || shelf.getName().trim().isEmpty()) {
-            throw new InvalidRequestException("Название полки обязательно");
-        }
-
-        if (shelf.getName().length() > 100) {
-            throw new InvalidRequestException("Название полки не может превышать 100 символов");
-        }
-
-        if (shelf.getDescription() != null && shelf.getDescription().length() > 500) {
-            throw new InvalidRequestException("Описание полки не может превышать 500 символов");
-        }
-    }
-
-    private void validateShelfForUpdate(Shelf shelf) {
-        if (shelf == null) {
-            throw new InvalidRequestException("Данные для обновления не могут быть null");
-        }
-
-        if (shelf.getName() != null) {
-            if (shelf.getName().trim().isEmpty()) {
-                throw new InvalidRequestException("Название полки не может быть пустым");
-            }
-
-            if (shelf.getName().length() > 100) {
-                throw new InvalidRequestException("Название полки не может превышать 100 символов");
-            }
-        }
-
-        if (shelf.getDescription() != null && shelf.getDescription().length() > 500) {
-            throw new InvalidRequestException("Описание полки не может превышать 500 символов");
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.example.crud.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Справочник book_id -> шард в основной БД. Строки книг на шардах первичны: если справочник отстал
+// (основная БД откатилась после фиксации шардов), книга ищется по всем шардам и запись восстанавливается
+@Slf4j
+public class BookDirectory {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate repairTransaction;
+    private final Shards shards;
+    private final Map<Integer, Integer> cache = new ConcurrentHashMap<>();
+
+    public BookDirectory(JdbcTemplate jdbc, TransactionTemplate repairTransaction, Shards shards) {
+        this.jdbc = jdbc;
+        this.repairTransaction = repairTransaction;
+        this.shards = shards;
+    }
+
+    public Integer locate(int bookId) {
+        Integer cached = cache.get(bookId);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Integer> found = jdbc.queryForList("SELECT shard FROM book_directory WHERE book_id = ?", Integer.class, bookId);
+        if (!found.isEmpty()) {
+            cache.put(bookId, found.get(0));
+            return found.get(0);
+        }
+        return relocate(bookId);
+    }
+
+    public Map<Integer, Integer> locateAll(Collection<Integer> bookIds) {
+        Map<Integer, Integer> located = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer bookId : bookIds) {
+            Integer cached = cache.get(bookId);
+            if (cached != null) {
+                located.put(bookId, cached);
+            } else {
+                missing.add(bookId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return located;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(missing.size(), "?"));
+        jdbc.query("SELECT book_id, shard FROM book_directory WHERE book_id IN (" + placeholders + ")", rs -> {
+            located.put(rs.getInt("book_id"), rs.getInt("shard"));
+            cache.put(rs.getInt("book_id"), rs.getInt("shard"));
+        }, missing.toArray());
+
+        for (Integer bookId : missing) {
+            if (!located.containsKey(bookId)) {
+                Integer shard = relocate(bookId);
+                if (shard != null) {
+                    located.put(bookId, shard);
+                }
+            }
+        }
+        return located;
+    }
+
+    // Вызывается, когда книги нет там, где её ожидали: справочник или кэш узла устарели
+    public Integer relocate(int bookId) {
+        cache.remove(bookId);
+        List<Integer> holders = new ArrayList<>();
+        List<Boolean> moveTargets = new ArrayList<>();
+        for (Shard shard : shards.all()) {
+            Integer rows = shard.getJdbc().queryForObject(
+                    "SELECT COUNT(*) FROM book WHERE id = ?", Integer.class, bookId);
+            if (rows != null && rows > 0) {
+                holders.add(shard.getIndex());
+                moveTargets.add(shard.getJdbc().queryForObject(
+                        "SELECT COUNT(*) FROM shard_move WHERE book_id = ?", Integer.class, bookId) > 0);
+            }
+        }
+        if (holders.isEmpty()) {
+            return null;
+        }
+
+        // Во время переноса книга есть на двух шардах, актуальна копия на шарде с отметкой о переносе
+        int shard = moveTargets.contains(true) ? holders.get(moveTargets.indexOf(true)) : holders.get(0);
+        try {
+            repairTransaction.executeWithoutResult(status -> upsert(bookId, shard));
+            log.info("Запись справочника для книги ID {} восстановлена: шард {}", bookId, shard);
+        } catch (DataAccessException e) {
+            log.warn("Не удалось восстановить запись справочника для книги ID {}: {}", bookId, e.getMessage());
+        }
+        cache.put(bookId, shard);
+        return shard;
+    }
+
+    public void register(int bookId, int shard) {
+        upsert(bookId, shard);
+        cache.remove(bookId);
+        shards.getTransactions().afterShardsCommitted(() -> cache.put(bookId, shard));
+    }
+
+    public void remove(Collection<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(bookIds.size(), "?"));
+        jdbc.update("DELETE FROM book_directory WHERE book_id IN (" + placeholders + ")", bookIds.toArray());
+        bookIds.forEach(cache::remove);
+    }
+
+    private void upsert(int bookId, int shard) {
+        int updated = jdbc.update("UPDATE book_directory SET shard = ? WHERE book_id = ?", shard, bookId);
+        if (updated == 0) {
+            jdbc.update("INSERT INTO book_directory (book_id, shard) VALUES (?, ?)", bookId, shard);
+        }
+    }
+}
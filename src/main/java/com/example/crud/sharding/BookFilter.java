@@ -0,0 +1,52 @@
+package com.example.crud.sharding;
+
+import com.example.crud.dto.BookSearch;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Value
+public class BookFilter {
+
+    public static final BookFilter ALL = new BookFilter("1 = 1", List.of());
+
+    String where;
+    List<Object> args;
+
+    public static BookFilter of(BookSearch search) {
+        StringBuilder where = new StringBuilder("1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (hasText(search.getKeyword())) {
+            String pattern = containsPattern(search.getKeyword());
+            where.append(" AND (LOWER(title) LIKE ? ESCAPE '\\' OR LOWER(author) LIKE ? ESCAPE '\\')");
+            args.add(pattern);
+            args.add(pattern);
+        }
+        if (hasText(search.getTitle())) {
+            where.append(" AND LOWER(title) LIKE ? ESCAPE '\\'");
+            args.add(containsPattern(search.getTitle()));
+        }
+        if (hasText(search.getAuthor())) {
+            where.append(" AND LOWER(author) LIKE ? ESCAPE '\\'");
+            args.add(containsPattern(search.getAuthor()));
+        }
+        if (search.getYear() != null) {
+            where.append(" AND year = ?");
+            args.add(search.getYear());
+        }
+        return new BookFilter(where.toString(), args);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    private static String containsPattern(String value) {
+        String escaped = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.crud.sharding;
+
+import com.example.crud.entity.Book;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+
+public enum BookOrder {
+    ID("id", Comparator.comparingInt(Book::getId)),
+    TITLE("LOWER(title)", Comparator.comparing(book -> book.getTitle().toLowerCase())),
+    AUTHOR("LOWER(author)", Comparator.comparing(book -> book.getAuthor().toLowerCase())),
+    // Книги без года идут первыми при возрастании и последними при убывании, одинаково в SQL и при слиянии
+    YEAR("year", Comparator.comparing(Book::getYear, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+    private final String column;
+    private final Comparator<Book> comparator;
+
+    BookOrder(String column, Comparator<Book> comparator) {
+        this.column = column;
+        this.comparator = comparator;
+    }
+
+    public static BookOrder fromProperty(String property) {
+        return switch (property.toLowerCase()) {
+            case "title" -> TITLE;
+            case "author" -> AUTHOR;
+            case "year" -> YEAR;
+            default -> ID;
+        };
+    }
+
+    public static Sort.Order first(Sort sort) {
+        return sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+    }
+
+    public String orderBy(boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+        String nulls = this != YEAR ? "" : descending ? " NULLS LAST" : " NULLS FIRST";
+        return this == ID ? column + direction : column + direction + nulls + ", id" + direction;
+    }
+
+    public Comparator<Book> comparator(boolean descending) {
+        Comparator<Book> result = this == ID ? comparator : comparator.thenComparingInt(Book::getId);
+        return descending ? result.reversed() : result;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.crud.sharding;
+
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+@Value
+public class Shard {
+    int index;
+    DataSource dataSource;
+    JdbcTemplate jdbc;
+}
@@ -0,0 +1,55 @@
+package com.example.crud.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+// Пулы шардов регистрируются бинами, чтобы контекст закрывал их при остановке. Регистрация идёт после разбора
+// конфигураций и с autowireCandidate=false, поэтому автоконфигурация основного DataSource их не видит
+public class ShardDataSourceRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    private Environment environment;
+
+    public static String beanName(int index) {
+        return "shardDataSource" + index;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        ShardingProperties properties = Binder.get(environment)
+                .bind("app.sharding", ShardingProperties.class)
+                .orElseGet(ShardingProperties::new);
+        List<ShardingProperties.Shard> shards = properties.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("Шардирование включено, но не задан ни один шард (app.sharding.shards)");
+        }
+
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard config = shards.get(i);
+            String poolName = "shard-" + i;
+            RootBeanDefinition definition = new RootBeanDefinition(HikariDataSource.class, () -> {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName(poolName);
+                dataSource.setJdbcUrl(config.getUrl());
+                dataSource.setUsername(config.getUsername());
+                dataSource.setPassword(config.getPassword());
+                dataSource.setMaximumPoolSize(config.getMaxPoolSize());
+                return dataSource;
+            });
+            definition.setDestroyMethodName("close");
+            definition.setAutowireCandidate(false);
+            registry.registerBeanDefinition(beanName(i), definition);
+        }
+    }
+}
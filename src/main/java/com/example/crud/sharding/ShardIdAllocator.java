@@ -0,0 +1,50 @@
+package com.example.crud.sharding;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ShardIdAllocator {
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final String name;
+    private final int blockSize;
+
+    private int next;
+    private int limit;
+
+    public ShardIdAllocator(JdbcTemplate jdbc, TransactionTemplate transactionTemplate, String name, int blockSize) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.name = name;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized int nextId() {
+        if (next >= limit) {
+            Integer blockStart = transactionTemplate.execute(status -> allocateBlock());
+            next = blockStart;
+            limit = blockStart + blockSize;
+        }
+        return next++;
+    }
+
+    private int allocateBlock() {
+        int updated = jdbc.update(
+                "UPDATE shard_id_allocator SET next_value = next_value + ? WHERE name = ?", blockSize, name);
+        if (updated == 0) {
+            jdbc.update("INSERT INTO shard_id_allocator (name, next_value) VALUES (?, ?)",
+                    name, 1L + blockSize);
+            return 1;
+        }
+
+        try {
+            Long nextValue = jdbc.queryForObject(
+                    "SELECT next_value FROM shard_id_allocator WHERE name = ?", Long.class, name);
+            return (int) (nextValue - blockSize);
+        } catch (EmptyResultDataAccessException e) {
+            throw new IllegalStateException("Счётчик идентификаторов '" + name + "' не найден", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.crud.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Доводит переносы книг между шардами, прерванные между фиксацией целевого и исходного шарда
+@Slf4j
+public class ShardMoveRepairer {
+
+    private final Shards shards;
+    private final BookDirectory directory;
+    private final long graceMs;
+
+    public ShardMoveRepairer(Shards shards, BookDirectory directory, long graceMs) {
+        this.shards = shards;
+        this.directory = directory;
+        this.graceMs = graceMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.sharding.repair-interval-ms:60000}")
+    public void repair() {
+        Timestamp before = Timestamp.from(Instant.now().minusMillis(graceMs));
+        for (Shard target : shards.all()) {
+            try {
+                List<Map.Entry<Integer, Integer>> moves = target.getJdbc().query(
+                        "SELECT book_id, source FROM shard_move WHERE moved_at < ?",
+                        (rs, rowNum) -> Map.entry(rs.getInt("book_id"), rs.getInt("source")), before);
+                moves.forEach(move -> repair(target, move.getKey(), move.getValue()));
+            } catch (DataAccessException e) {
+                log.warn("Не удалось проверить незавершённые переносы на шарде {}: {}", target.getIndex(), e.getMessage());
+            }
+        }
+    }
+
+    void repair(Shard target, int bookId, int source) {
+        Integer copies = target.getJdbc().queryForObject("SELECT COUNT(*) FROM book WHERE id = ?", Integer.class, bookId);
+        // Отметка без книги на целевом шарде осталась от переноса, который уже отменён следующим переносом
+        if (copies != null && copies > 0) {
+            int removed = shards.get(source).getJdbc().update("DELETE FROM book WHERE id = ?", bookId);
+            directory.register(bookId, target.getIndex());
+            if (removed > 0) {
+                log.warn("Перенос книги ID {} с шарда {} на шард {} завершён восстановлением", bookId, source, target.getIndex());
+            }
+        }
+        target.getJdbc().update("DELETE FROM shard_move WHERE book_id = ? AND source = ?", bookId, source);
+    }
+}
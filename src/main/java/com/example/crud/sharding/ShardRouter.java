@@ -0,0 +1,36 @@
+package com.example.crud.sharding;
+
+public class ShardRouter {
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public int shardFor(Integer shelfId, int bookId) {
+        return shelfId != null ? shardForShelf(shelfId) : shardForUnshelved(bookId);
+    }
+
+    public int shardForShelf(int shelfId) {
+        return Math.floorMod(mix(shelfId), shardCount);
+    }
+
+    public int shardForUnshelved(int bookId) {
+        return Math.floorMod(mix(bookId ^ 0x5bd1e995), shardCount);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    private static int mix(int value) {
+        int h = value;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
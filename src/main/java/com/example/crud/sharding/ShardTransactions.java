@@ -0,0 +1,165 @@
+package com.example.crud.sharding;
+
+import com.example.crud.deadline.Deadline;
+import com.example.crud.deadline.RequestDeadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Соединения с шардами присоединяются к текущей транзакции Spring при первом обращении и фиксируются
+// в beforeCommit: сначала шарды в порядке присоединения (отмеченные commitLast — последними), затем основная БД.
+// Пока шарды не зафиксированы, блокировки полок в основной БД (findByIdForShare/findByIdForUpdate) удерживаются.
+// Если основная БД откатилась после шардов, источником истины остаются строки книг на шардах:
+// book_directory исправляется при чтении, незавершённые переносы доводит ShardMoveRepairer
+@Slf4j
+public class ShardTransactions {
+
+    public JdbcTemplate jdbc(Shard shard) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            current().enlist(shard);
+        }
+        return shard.getJdbc();
+    }
+
+    public void commitLast(Shard shard) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            current().commitLast(shard);
+        }
+    }
+
+    public void afterShardsCommitted(Runnable action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            current().afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private ShardTransaction current() {
+        ShardTransaction transaction = (ShardTransaction) TransactionSynchronizationManager.getResource(this);
+        if (transaction == null) {
+            transaction = new ShardTransaction();
+            TransactionSynchronizationManager.bindResource(this, transaction);
+            TransactionSynchronizationManager.registerSynchronization(transaction);
+        }
+        return transaction;
+    }
+
+    private class ShardTransaction implements TransactionSynchronization {
+        private final Map<Shard, ConnectionHolder> enlisted = new LinkedHashMap<>();
+        private final List<Shard> last = new ArrayList<>();
+        private final List<Shard> committed = new ArrayList<>();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        void enlist(Shard shard) {
+            if (enlisted.containsKey(shard)) {
+                return;
+            }
+
+            Connection connection;
+            try {
+                connection = shard.getDataSource().getConnection();
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                throw new CannotGetJdbcConnectionException("Не удалось открыть транзакцию на шарде " + shard.getIndex(), e);
+            }
+
+            ConnectionHolder holder = new ConnectionHolder(connection);
+            holder.setSynchronizedWithTransaction(true);
+            // Срок запроса переходит в таймаут каждого оператора на шарде, как и таймаут транзакции Spring
+            Deadline deadline = RequestDeadline.current();
+            if (deadline != null) {
+                holder.setTimeoutInMillis(Math.max(deadline.remainingMillis(), 0));
+            }
+            TransactionSynchronizationManager.bindResource(shard.getDataSource(), holder);
+            enlisted.put(shard, holder);
+        }
+
+        void commitLast(Shard shard) {
+            last.remove(shard);
+            last.add(shard);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(ShardTransactions.this);
+            enlisted.keySet().forEach(shard -> TransactionSynchronizationManager.unbindResource(shard.getDataSource()));
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(ShardTransactions.this, this);
+            enlisted.forEach((shard, holder) -> TransactionSynchronizationManager.bindResource(shard.getDataSource(), holder));
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            List<Shard> order = new ArrayList<>(enlisted.keySet());
+            order.removeAll(last);
+            order.addAll(last);
+
+            for (Shard shard : order) {
+                try {
+                    enlisted.get(shard).getConnection().commit();
+                } catch (SQLException e) {
+                    if (!committed.isEmpty()) {
+                        log.error("Шард {} не зафиксировал транзакцию после шардов {}, расхождение устранит " +
+                                "восстановление переносов", shard.getIndex(), committed.stream().map(Shard::getIndex).toList());
+                    }
+                    throw new TransactionSystemException("Не удалось зафиксировать транзакцию на шарде " + shard.getIndex(), e);
+                }
+                committed.add(shard);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ShardTransactions.this);
+            enlisted.forEach((shard, holder) -> {
+                TransactionSynchronizationManager.unbindResourceIfPossible(shard.getDataSource());
+                Connection connection = holder.getConnection();
+                try {
+                    if (!committed.contains(shard)) {
+                        connection.rollback();
+                    }
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    log.warn("Не удалось завершить транзакцию на шарде {}: {}", shard.getIndex(), e.getMessage());
+                } finally {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        log.debug("Не удалось вернуть соединение шарда {} в пул", shard.getIndex(), e);
+                    }
+                }
+            });
+
+            if (status == STATUS_COMMITTED && committed.size() == enlisted.size()) {
+                for (Runnable action : afterCommit) {
+                    try {
+                        action.run();
+                    } catch (RuntimeException e) {
+                        log.warn("Не удалось выполнить завершающее действие после фиксации шардов: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
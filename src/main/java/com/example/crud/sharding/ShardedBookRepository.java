@@ -0,0 +1,702 @@
+package com.example.crud.sharding;
+
+import com.example.crud.catalog.BookRecord;
+import com.example.crud.catalog.ShelfRecord;
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookFields;
+import com.example.crud.dto.BookSearch;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.repository.BookRepository;
+import com.example.crud.repository.ShelfRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.StreamSupport;
+
+// Книги хранятся на шардах (полка определяет шард), полки и справочник расположения книг — в основной БД.
+// Порядок фиксации и восстановление после частичного сбоя описаны в ShardTransactions
+@Slf4j
+public class ShardedBookRepository extends UnsupportedJpaRepository<Book> implements BookRepository {
+
+    private static final Set<String> ALL_COLUMNS = new LinkedHashSet<>(List.of("id", "title", "author", "year", "shelf_id", "fingerprint"));
+    private static final String COLUMNS = String.join(", ", ALL_COLUMNS);
+    private static final RowMapper<Book> BOOK_MAPPER = (rs, rowNum) -> mapBook(rs, ALL_COLUMNS);
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int DUPLICATE_SCAN_BATCH = 500;
+
+    private final Shards shards;
+    private final BookDirectory directory;
+    private final ShardIdAllocator idAllocator;
+    private final ShelfRepository shelfRepository;
+
+    public ShardedBookRepository(Shards shards, BookDirectory directory, ShardIdAllocator idAllocator,
+                                 ShelfRepository shelfRepository) {
+        this.shards = shards;
+        this.directory = directory;
+        this.idAllocator = idAllocator;
+        this.shelfRepository = shelfRepository;
+    }
+
+    @Override
+    public <S extends Book> S save(S book) {
+        Shard target = shards.forBook(shelfIdOf(book), book.getId());
+
+        if (book.getId() == 0) {
+            book.setId(idAllocator.nextId());
+            target = shards.forBook(shelfIdOf(book), book.getId());
+            insertRow(shards.jdbc(target), book);
+            directory.register(book.getId(), target.getIndex());
+            return book;
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            Integer current = attempt == 0 ? directory.locate(book.getId()) : directory.relocate(book.getId());
+            if (current == null) {
+                insertRow(shards.jdbc(target), book);
+                directory.register(book.getId(), target.getIndex());
+                return book;
+            }
+            if (current != target.getIndex()) {
+                move(book, shards.get(current), target);
+                return book;
+            }
+            if (updateRow(shards.jdbc(target), book) > 0 || attempt > 0) {
+                return book;
+            }
+        }
+    }
+
+    @Override
+    public <S extends Book> List<S> saveAll(Iterable<S> books) {
+        List<S> saved = new ArrayList<>();
+        books.forEach(book -> saved.add(save(book)));
+        return saved;
+    }
+
+    @Override
+    public void delete(Book book) {
+        deleteById(book.getId());
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        Integer shard = directory.locate(id);
+        if (shard != null && shards.jdbc(shards.get(shard)).update("DELETE FROM book WHERE id = ?", id) == 0) {
+            shard = directory.relocate(id);
+            if (shard != null) {
+                shards.jdbc(shards.get(shard)).update("DELETE FROM book WHERE id = ?", id);
+            }
+        }
+        directory.remove(List.of(id));
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Book> books) {
+        List<Integer> ids = StreamSupport.stream(books.spliterator(), false).map(Book::getId).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Integer> located = directory.locateAll(ids);
+        shards.groupBy(located.keySet(), located::get).forEach((shard, shardIds) -> shards.jdbc(shard).update(
+                "DELETE FROM book WHERE id IN (" + placeholders(shardIds) + ")", shardIds.toArray()));
+        directory.remove(ids);
+    }
+
+    @Override
+    public int deleteByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, Integer> located = directory.locateAll(ids);
+        int deleted = 0;
+        for (Map.Entry<Shard, List<Integer>> entry : shards.groupBy(located.keySet(), located::get).entrySet()) {
+            deleted += shards.jdbc(entry.getKey()).update(
+                    "DELETE FROM book WHERE id IN (" + placeholders(entry.getValue()) + ")", entry.getValue().toArray());
+        }
+        directory.remove(ids);
+        return deleted;
+    }
+
+    @Override
+    public Optional<Book> findById(Integer id) {
+        return findOne(id, "");
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return findOne(id, "").isPresent();
+    }
+
+    @Override
+    public Optional<Book> findByIdForUpdate(Integer id) {
+        return findOne(id, " FOR UPDATE");
+    }
+
+    @Override
+    public List<Book> findAllById(Iterable<Integer> ids) {
+        List<Integer> requested = new ArrayList<>();
+        ids.forEach(requested::add);
+        return findByIdIn(requested);
+    }
+
+    @Override
+    public List<Book> findByIdIn(Collection<Integer> ids) {
+        return withShelves(findByIds(ids, COLUMNS, BOOK_MAPPER));
+    }
+
+    @Override
+    public List<BookRecord> findRecordsByIdIn(Collection<Integer> ids) {
+        return findByIds(ids, COLUMNS, (rs, rowNum) -> toRecord(rs));
+    }
+
+    @Override
+    public List<BookRecord> findAllRecords() {
+        List<BookRecord> records = new ArrayList<>();
+        shards.scatter(shard -> shards.jdbc(shard).query("SELECT " + COLUMNS + " FROM book", (rs, rowNum) -> toRecord(rs)))
+                .forEach(records::addAll);
+        return records;
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return withShelves(find(BookFilter.ALL, BookOrder.ID, false, 0, null));
+    }
+
+    @Override
+    public Page<Book> findAll(Pageable pageable) {
+        return findPage(BookFilter.ALL, pageable);
+    }
+
+    @Override
+    public long count() {
+        return count(BookFilter.ALL);
+    }
+
+    @Override
+    public List<Book> findAllSorted(BookSortKey sortKey, boolean descending, int offset, Integer limit) {
+        return withShelves(find(BookFilter.ALL, BookOrder.fromProperty(sortKey.getProperty()), descending, offset, limit));
+    }
+
+    @Override
+    public List<Book> findByShelfIdForUpdate(Integer shelfId) {
+        return withShelves(shards.jdbc(shards.forShelf(shelfId)).query(
+                "SELECT " + COLUMNS + " FROM book WHERE shelf_id = ? ORDER BY id FOR UPDATE", BOOK_MAPPER, shelfId));
+    }
+
+    @Override
+    public List<Book> findOnShelfAfterForUpdate(Integer shelfId, int afterId, Limit limit) {
+        return withShelves(shards.jdbc(shards.forShelf(shelfId)).query(
+                "SELECT " + COLUMNS + " FROM book WHERE shelf_id = ? AND id > ? ORDER BY id LIMIT ? FOR UPDATE",
+                BOOK_MAPPER, shelfId, afterId, limit.isLimited() ? limit.max() : Integer.MAX_VALUE));
+    }
+
+    @Override
+    public long countByShelfId(Integer shelfId) {
+        Long count = shards.jdbc(shards.forShelf(shelfId)).queryForObject(
+                "SELECT COUNT(*) FROM book WHERE shelf_id = ?", Long.class, shelfId);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<Book> findByShelfIdOrderByIdAsc(Integer shelfId) {
+        return withShelves(shards.jdbc(shards.forShelf(shelfId)).query(
+                "SELECT " + COLUMNS + " FROM book WHERE shelf_id = ? ORDER BY id", BOOK_MAPPER, shelfId));
+    }
+
+    @Override
+    public Page<Book> findByShelfId(Integer shelfId, Pageable pageable) {
+        Sort.Order order = BookOrder.first(pageable.getSort());
+        List<Book> content = withShelves(shards.jdbc(shards.forShelf(shelfId)).query(
+                "SELECT " + COLUMNS + " FROM book WHERE shelf_id = ? ORDER BY "
+                        + BookOrder.fromProperty(order.getProperty()).orderBy(order.isDescending()) + " LIMIT ? OFFSET ?",
+                BOOK_MAPPER, shelfId, pageable.getPageSize(), pageable.getOffset()));
+        return new PageImpl<>(content, pageable, countByShelfId(shelfId));
+    }
+
+    @Override
+    public CursorPage<Book> findOnShelf(int shelfId, BookSortKey sortKey, boolean descending, BookCursor after,
+                                        int limit) {
+        String key = switch (sortKey) {
+            case TITLE -> "LOWER(title)";
+            case AUTHOR -> "LOWER(author)";
+            case YEAR -> "COALESCE(year, " + Integer.MIN_VALUE + ")";
+            case ID -> "id";
+        };
+        String beyond = descending ? " < ?" : " > ?";
+        String direction = descending ? " DESC" : " ASC";
+
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + ", " + key + " AS sort_key FROM book WHERE shelf_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(shelfId);
+        if (after != null && sortKey == BookSortKey.ID) {
+            sql.append(" AND id").append(beyond);
+            args.add(after.getId());
+        } else if (after != null) {
+            sql.append(" AND (").append(key).append(beyond)
+                    .append(" OR (").append(key).append(" = ? AND id").append(beyond).append("))");
+            args.add(after.getKey());
+            args.add(after.getKey());
+            args.add(after.getId());
+        }
+        sql.append(" ORDER BY ").append(sortKey == BookSortKey.ID ? "" : key + direction + ", ")
+                .append("id").append(direction).append(" LIMIT ?");
+        args.add(limit + 1);
+
+        List<Object> keys = new ArrayList<>();
+        List<Book> books = shards.jdbc(shards.forShelf(shelfId)).query(sql.toString(), (rs, rowNum) -> {
+            keys.add(rs.getObject("sort_key"));
+            return BOOK_MAPPER.mapRow(rs, rowNum);
+        }, args.toArray());
+        withShelves(books);
+
+        if (books.size() <= limit) {
+            return new CursorPage<>(books, null);
+        }
+        Book last = books.get(limit - 1);
+        Object lastKey = sortKey == BookSortKey.ID ? null : keys.get(limit - 1);
+        return new CursorPage<>(new ArrayList<>(books.subList(0, limit)),
+                new BookCursor(sortKey, descending, lastKey, last.getId()).encode());
+    }
+
+    @Override
+    public void forEachOnShelf(int shelfId, Consumer<Book> action) {
+        Shelf shelf = shelfRepository.findById(shelfId).orElse(null);
+        // Шард присоединяется к транзакции даже для чтения: без неё драйвер PostgreSQL игнорирует fetch size
+        shards.getTransactions().jdbc(shards.forShelf(shelfId)).query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + COLUMNS + " FROM book WHERE shelf_id = ? ORDER BY id");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            statement.setInt(1, shelfId);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            Book book = BOOK_MAPPER.mapRow(rs, rs.getRow());
+            book.setShelf(shelf);
+            action.accept(book);
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> findFields(BookSearch search, BookFields fields, Pageable pageable) {
+        Sort.Order order = BookOrder.first(pageable.getSort());
+        BookOrder bookOrder = BookOrder.fromProperty(order.getProperty());
+
+        // С шардов читаются только запрошенные колонки и колонка сортировки, нужная для слияния
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        for (BookFields.Field field : fields.getFields()) {
+            if (!field.isShelfField()) {
+                columns.add(field.getAttribute());
+            }
+        }
+        if (fields.includesShelf()) {
+            columns.add("shelf_id");
+        }
+        if (bookOrder != BookOrder.ID) {
+            columns.add(bookOrder.name().toLowerCase());
+        }
+
+        List<Book> books = find(BookFilter.of(search), bookOrder, order.isDescending(), String.join(", ", columns),
+                (rs, rowNum) -> mapBook(rs, columns),
+                pageable.isPaged() ? pageable.getOffset() : 0, pageable.isPaged() ? pageable.getPageSize() : null);
+
+        Map<Integer, ShelfRecord> shelves = new HashMap<>();
+        if (fields.needsShelfJoin()) {
+            Set<Integer> shelfIds = new HashSet<>();
+            books.forEach(book -> {
+                if (book.getShelf() != null) {
+                    shelfIds.add(book.getShelf().getId());
+                }
+            });
+            if (!shelfIds.isEmpty()) {
+                shelfRepository.findRecordsByIdIn(shelfIds).forEach(shelf -> shelves.put(shelf.getId(), shelf));
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(books.size());
+        for (Book book : books) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (BookFields.Field field : fields.getFields()) {
+                switch (field) {
+                    case ID -> row.put("id", book.getId());
+                    case TITLE -> row.put("title", book.getTitle());
+                    case AUTHOR -> row.put("author", book.getAuthor());
+                    case YEAR -> row.put("year", book.getYear());
+                    default -> {
+                    }
+                }
+            }
+            if (fields.includesShelf()) {
+                ShelfRecord shelf = book.getShelf() != null ? shelves.get(book.getShelf().getId()) : null;
+                row.put("shelf", book.getShelf() == null ? null : fields.shelfMap(book.getShelf().getId(),
+                        shelf != null ? shelf.getName() : null, shelf != null ? shelf.getDescription() : null));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public Optional<Book> findFirstByFingerprintOrderByIdAsc(String fingerprint) {
+        Optional<Book> first = shards.scatter(shard -> shards.jdbc(shard).query(
+                        "SELECT " + COLUMNS + " FROM book WHERE fingerprint = ? ORDER BY id LIMIT 1", BOOK_MAPPER, fingerprint))
+                .stream()
+                .flatMap(List::stream)
+                .min(Comparator.comparingInt(Book::getId));
+        first.ifPresent(book -> withShelves(List.of(book)));
+        return first;
+    }
+
+    @Override
+    public boolean existsByFingerprintAndIdNot(String fingerprint, int id) {
+        return shards.scatter(shard -> shards.jdbc(shard).queryForObject(
+                        "SELECT COUNT(*) FROM book WHERE fingerprint = ? AND id <> ?", Long.class, fingerprint, id))
+                .stream()
+                .anyMatch(count -> count != null && count > 0);
+    }
+
+    // Порядок по числу копий требует полной агрегации по всем шардам, поэтому здесь группы идут по fingerprint;
+    // для глубоких страниц есть продолжение по ключу findDuplicateFingerprintsAfter
+    @Override
+    public List<Object[]> findDuplicateFingerprints(Pageable pageable) {
+        return mergeDuplicateGroups("", pageable.isPaged() ? pageable.getOffset() : 0,
+                pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Object[]> findDuplicateFingerprintsAfter(String after, Limit limit) {
+        return mergeDuplicateGroups(after, 0, limit.max());
+    }
+
+    // Копии одной книги могут лежать на разных шардах, поэтому HAVING на шарде их не увидит. Каждый шард отдаёт
+    // свои группы по индексу fingerprint порциями после ключа, одинаковые ключи складываются при слиянии, и обход
+    // останавливается, как только страница набрана: работа ограничена позицией страницы, а не размером таблицы
+    private List<Object[]> mergeDuplicateGroups(String after, long skip, int limit) {
+        List<ShardGroups> cursors = shards.all().stream().map(shard -> new ShardGroups(shard, after)).toList();
+        List<Object[]> page = new ArrayList<>();
+        long skipped = 0;
+        while (page.size() < limit) {
+            String next = null;
+            for (ShardGroups cursor : cursors) {
+                String fingerprint = cursor.peek();
+                if (fingerprint != null && (next == null || fingerprint.compareTo(next) < 0)) {
+                    next = fingerprint;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+
+            long books = 0;
+            for (ShardGroups cursor : cursors) {
+                if (next.equals(cursor.peek())) {
+                    books += cursor.take();
+                }
+            }
+            if (books > 1 && skipped++ >= skip) {
+                page.add(new Object[]{next, books});
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<BookRecord> findRecordsWithoutFingerprint(int afterId, Limit limit) {
+        return shards.scatter(shard -> shards.jdbc(shard).query(
+                        "SELECT " + COLUMNS + " FROM book WHERE fingerprint IS NULL AND id > ? ORDER BY id LIMIT ?",
+                        (rs, rowNum) -> toRecord(rs), afterId, limit.max()))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt(BookRecord::getId))
+                .limit(limit.max())
+                .toList();
+    }
+
+    @Override
+    public int setFingerprint(int id, String fingerprint) {
+        Integer shard = directory.locate(id);
+        return shard == null ? 0 : shards.jdbc(shards.get(shard)).update(
+                "UPDATE book SET fingerprint = ? WHERE id = ? AND fingerprint IS NULL", fingerprint, id);
+    }
+
+    @Override
+    public List<Object[]> findByFingerprintIn(Collection<String> fingerprints) {
+        if (fingerprints.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = "SELECT fingerprint, id, title, author, year FROM book WHERE fingerprint IN (" + placeholders(fingerprints) + ")";
+        List<Object[]> rows = new ArrayList<>();
+        shards.scatter(shard -> shards.jdbc(shard).query(sql, (rs, rowNum) -> new Object[]{
+                        rs.getString("fingerprint"), rs.getInt("id"), rs.getString("title"), rs.getString("author"),
+                        rs.getObject("year", Integer.class)}, fingerprints.toArray()))
+                .forEach(rows::addAll);
+        rows.sort(Comparator.comparingInt(row -> (Integer) row[1]));
+        return rows;
+    }
+
+    private Page<Book> findPage(BookFilter filter, Pageable pageable) {
+        Sort.Order order = BookOrder.first(pageable.getSort());
+        List<Book> content = withShelves(find(filter, BookOrder.fromProperty(order.getProperty()), order.isDescending(),
+                pageable.isPaged() ? pageable.getOffset() : 0, pageable.isPaged() ? pageable.getPageSize() : null));
+        return new PageImpl<>(content, pageable, count(filter));
+    }
+
+    private long count(BookFilter filter) {
+        return shards.scatter(shard -> shards.jdbc(shard).queryForObject(
+                        "SELECT COUNT(*) FROM book WHERE " + filter.getWhere(), Long.class, filter.getArgs().toArray()))
+                .stream()
+                .mapToLong(count -> count != null ? count : 0)
+                .sum();
+    }
+
+    private List<Book> find(BookFilter filter, BookOrder order, boolean descending, long offset, Integer limit) {
+        return find(filter, order, descending, COLUMNS, BOOK_MAPPER, offset, limit);
+    }
+
+    private List<Book> find(BookFilter filter, BookOrder order, boolean descending, String columns,
+                            RowMapper<Book> mapper, long offset, Integer limit) {
+        String sql = "SELECT " + columns + " FROM book WHERE " + filter.getWhere() + " ORDER BY " + order.orderBy(descending);
+        List<Object> args = new ArrayList<>(filter.getArgs());
+        if (limit != null) {
+            sql += " LIMIT ?";
+            args.add(offset + limit);
+        }
+
+        String query = sql;
+        List<List<Book>> partials = shards.scatter(shard -> shards.jdbc(shard).query(query, mapper, args.toArray()));
+        return merge(partials, order.comparator(descending), offset, limit);
+    }
+
+    List<Book> merge(List<List<Book>> partials, Comparator<Book> comparator, long offset, Integer limit) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>((a, b) -> comparator.compare(a.head, b.head));
+        for (List<Book> partial : partials) {
+            Iterator<Book> iterator = partial.iterator();
+            if (iterator.hasNext()) {
+                heap.add(new Cursor(iterator.next(), iterator));
+            }
+        }
+
+        List<Book> result = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        long skipped = 0;
+        while (!heap.isEmpty() && (limit == null || result.size() < limit)) {
+            Cursor cursor = heap.poll();
+            Book book = cursor.head;
+            if (seen.add(book.getId())) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    result.add(book);
+                }
+            }
+            if (cursor.rest.hasNext()) {
+                cursor.head = cursor.rest.next();
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    private <T> List<T> findByIds(Collection<Integer> ids, String columns, RowMapper<T> mapper) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Один запрос IN на каждый шард, где лежит хотя бы одна из книг
+        Map<Integer, Integer> located = directory.locateAll(ids);
+        Map<Shard, List<Integer>> groups = shards.groupBy(located.keySet(), located::get);
+        List<T> found = new ArrayList<>();
+        shards.scatter(groups.keySet(), shard -> shards.jdbc(shard).query(
+                        "SELECT " + columns + " FROM book WHERE id IN (" + placeholders(groups.get(shard)) + ")",
+                        mapper, groups.get(shard).toArray()))
+                .forEach(found::addAll);
+        return found;
+    }
+
+    private Optional<Book> findOne(int id, String lock) {
+        Integer shard = directory.locate(id);
+        if (shard == null) {
+            return Optional.empty();
+        }
+
+        Function<Integer, List<Book>> query = index -> shards.jdbc(shards.get(index))
+                .query("SELECT " + COLUMNS + " FROM book WHERE id = ?" + lock, BOOK_MAPPER, id);
+        List<Book> found = query.apply(shard);
+        if (found.isEmpty()) {
+            Integer actual = directory.relocate(id);
+            found = actual != null ? query.apply(actual) : List.of();
+        }
+        return withShelves(found).stream().findFirst();
+    }
+
+    private void move(Book book, Shard source, Shard target) {
+        // Сначала копия и отметка о переносе на целевом шарде, удаление с исходного фиксируется последним:
+        // при сбое между фиксациями книга окажется на двух шардах, и ShardMoveRepairer удалит старую копию
+        JdbcTemplate targetJdbc = shards.jdbc(target);
+        insertRow(targetJdbc, book);
+        targetJdbc.update("DELETE FROM shard_move WHERE book_id = ?", book.getId());
+        targetJdbc.update("INSERT INTO shard_move (book_id, source, moved_at) VALUES (?, ?, ?)",
+                book.getId(), source.getIndex(), Timestamp.from(Instant.now()));
+
+        shards.jdbc(source).update("DELETE FROM book WHERE id = ?", book.getId());
+        shards.getTransactions().commitLast(source);
+        directory.register(book.getId(), target.getIndex());
+
+        int bookId = book.getId();
+        shards.getTransactions().afterShardsCommitted(() ->
+                target.getJdbc().update("DELETE FROM shard_move WHERE book_id = ?", bookId));
+        log.debug("Книга ID {} перенесена с шарда {} на шард {}", bookId, source.getIndex(), target.getIndex());
+    }
+
+    private void insertRow(JdbcTemplate jdbc, Book book) {
+        jdbc.update("INSERT INTO book (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)",
+                book.getId(), book.getTitle(), book.getAuthor(), book.getYear(), shelfIdOf(book), book.getFingerprint());
+    }
+
+    private int updateRow(JdbcTemplate jdbc, Book book) {
+        return jdbc.update("UPDATE book SET title = ?, author = ?, year = ?, shelf_id = ?, fingerprint = ? WHERE id = ?",
+                book.getTitle(), book.getAuthor(), book.getYear(), shelfIdOf(book), book.getFingerprint(), book.getId());
+    }
+
+    // Строки шардов содержат только shelf_id, сами полки подгружаются из основной БД одним запросом
+    private List<Book> withShelves(List<Book> books) {
+        Set<Integer> shelfIds = new HashSet<>();
+        for (Book book : books) {
+            if (book.getShelf() != null) {
+                shelfIds.add(book.getShelf().getId());
+            }
+        }
+        if (shelfIds.isEmpty()) {
+            return books;
+        }
+
+        Map<Integer, Shelf> shelves = new HashMap<>();
+        shelfRepository.findAllById(shelfIds).forEach(shelf -> shelves.put(shelf.getId(), shelf));
+        for (Book book : books) {
+            if (book.getShelf() != null) {
+                book.setShelf(shelves.get(book.getShelf().getId()));
+            }
+        }
+        return books;
+    }
+
+    private static Book mapBook(ResultSet rs, Set<String> columns) throws SQLException {
+        Book book = new Book();
+        book.setId(rs.getInt("id"));
+        if (columns.contains("title")) {
+            book.setTitle(rs.getString("title"));
+        }
+        if (columns.contains("author")) {
+            book.setAuthor(rs.getString("author"));
+        }
+        if (columns.contains("year")) {
+            book.setYear(rs.getObject("year", Integer.class));
+        }
+        if (columns.contains("shelf_id")) {
+            Integer shelfId = rs.getObject("shelf_id", Integer.class);
+            if (shelfId != null) {
+                Shelf shelf = new Shelf();
+                shelf.setId(shelfId);
+                book.setShelf(shelf);
+            }
+        }
+        if (columns.contains("fingerprint")) {
+            book.setFingerprint(rs.getString("fingerprint"));
+        }
+        return book;
+    }
+
+    private static BookRecord toRecord(ResultSet rs) throws SQLException {
+        return new BookRecord(rs.getInt("id"), rs.getString("title"), rs.getString("author"),
+                rs.getObject("year", Integer.class), rs.getObject("shelf_id", Integer.class));
+    }
+
+    private static String placeholders(Collection<?> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+
+    private Integer shelfIdOf(Book book) {
+        return book.getShelf() != null ? book.getShelf().getId() : null;
+    }
+
+    private static final class Cursor {
+        private Book head;
+        private final Iterator<Book> rest;
+
+        private Cursor(Book head, Iterator<Book> rest) {
+            this.head = head;
+            this.rest = rest;
+        }
+    }
+
+    // Группы одного шарда в порядке fingerprint; fingerprint — шестнадцатеричный хеш, поэтому порядок в базе
+    // при любой сортировке совпадает с порядком строк в Java
+    private class ShardGroups {
+        private final Shard shard;
+        private String after;
+        private Iterator<Map.Entry<String, Long>> batch = Collections.emptyIterator();
+        private Map.Entry<String, Long> head;
+        private boolean exhausted;
+
+        ShardGroups(Shard shard, String after) {
+            this.shard = shard;
+            this.after = after;
+        }
+
+        String peek() {
+            if (head == null && !batch.hasNext() && !exhausted) {
+                List<Map.Entry<String, Long>> rows = shards.jdbc(shard).query(
+                        "SELECT fingerprint, COUNT(*) AS books FROM book WHERE fingerprint > ? " +
+                                "GROUP BY fingerprint ORDER BY fingerprint LIMIT ?",
+                        (rs, rowNum) -> Map.entry(rs.getString("fingerprint"), rs.getLong("books")),
+                        after, DUPLICATE_SCAN_BATCH);
+                exhausted = rows.size() < DUPLICATE_SCAN_BATCH;
+                batch = rows.iterator();
+            }
+            if (head == null && batch.hasNext()) {
+                head = batch.next();
+                after = head.getKey();
+            }
+            return head != null ? head.getKey() : null;
+        }
+
+        long take() {
+            long books = head.getValue();
+            head = null;
+            return books;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.crud.sharding;
+
+import com.example.crud.catalog.ShelfRecord;
+import com.example.crud.dto.ShelfSummary;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.repository.ShelfRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Полки живут в основной БД и читаются через JPA-репозиторий, с шардов берутся только их книги и счётчики
+public class ShardedShelfRepository extends UnsupportedJpaRepository<Shelf> implements ShelfRepository {
+
+    private final ShelfRepository shelves;
+    private final Shards shards;
+
+    public ShardedShelfRepository(ShelfRepository shelves, Shards shards) {
+        this.shelves = shelves;
+        this.shards = shards;
+    }
+
+    @Override
+    public <S extends Shelf> S save(S shelf) {
+        return shelves.save(shelf);
+    }
+
+    @Override
+    public <S extends Shelf> List<S> saveAll(Iterable<S> entities) {
+        return shelves.saveAll(entities);
+    }
+
+    @Override
+    public Optional<Shelf> findById(Integer id) {
+        return shelves.findById(id);
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return shelves.existsById(id);
+    }
+
+    @Override
+    public List<Shelf> findAllById(Iterable<Integer> ids) {
+        return shelves.findAllById(ids);
+    }
+
+    @Override
+    public long count() {
+        return shelves.count();
+    }
+
+    @Override
+    public void delete(Shelf shelf) {
+        shelves.delete(shelf);
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        shelves.deleteById(id);
+    }
+
+    @Override
+    public Optional<Shelf> findByIdForUpdate(Integer id) {
+        return shelves.findByIdForUpdate(id);
+    }
+
+    @Override
+    public Optional<Shelf> findByIdForShare(Integer id) {
+        return shelves.findByIdForShare(id);
+    }
+
+    @Override
+    public List<ShelfRecord> findAllRecords() {
+        return shelves.findAllRecords();
+    }
+
+    @Override
+    public List<ShelfRecord> findRecordsByIdIn(Collection<Integer> ids) {
+        return shelves.findRecordsByIdIn(ids);
+    }
+
+    @Override
+    public List<Shelf> findAll() {
+        return withBooks(shelves.findAll(Sort.by("id")));
+    }
+
+    @Override
+    public List<Shelf> findByIdIn(Collection<Integer> ids) {
+        return withBooks(shelves.findAllById(ids));
+    }
+
+    @Override
+    public List<ShelfSummary> findSummaries(Pageable pageable) {
+        Page<Shelf> page = shelves.findAll(pageable);
+        Map<Integer, Long> counts = countByShelves(page.map(Shelf::getId).getContent());
+        return page.map(shelf -> summaryOf(shelf, counts)).getContent();
+    }
+
+    @Override
+    public Optional<ShelfSummary> findSummaryById(Integer id) {
+        return shelves.findById(id).map(shelf -> summaryOf(shelf, countByShelves(List.of(id))));
+    }
+
+    // Все книги полки лежат на её шарде, поэтому каждый шард получает один запрос только со своими полками
+    private Map<Integer, Long> countByShelves(List<Integer> shelfIds) {
+        Map<Integer, Long> counts = new HashMap<>();
+        Map<Shard, List<Integer>> groups = shards.groupBy(shelfIds, shelfId -> shards.forShelf(shelfId).getIndex());
+        shards.scatter(groups.keySet(), shard -> shards.jdbc(shard).query(
+                        "SELECT shelf_id, COUNT(*) AS books FROM book WHERE shelf_id IN ("
+                                + placeholders(groups.get(shard)) + ") GROUP BY shelf_id",
+                        (rs, rowNum) -> Map.entry(rs.getInt("shelf_id"), rs.getLong("books")), groups.get(shard).toArray()))
+                .forEach(partial -> partial.forEach(entry -> counts.put(entry.getKey(), entry.getValue())));
+        return counts;
+    }
+
+    private List<Shelf> withBooks(List<Shelf> found) {
+        Map<Integer, Shelf> byId = new HashMap<>();
+        found.forEach(shelf -> {
+            shelf.setBooks(new ArrayList<>());
+            byId.put(shelf.getId(), shelf);
+        });
+
+        Map<Shard, List<Integer>> groups = shards.groupBy(byId.keySet(), shelfId -> shards.forShelf(shelfId).getIndex());
+        shards.scatter(groups.keySet(), shard -> shards.jdbc(shard).query(
+                        "SELECT id, title, author, year, shelf_id FROM book WHERE shelf_id IN ("
+                                + placeholders(groups.get(shard)) + ") ORDER BY id",
+                        (rs, rowNum) -> {
+                            Book book = new Book();
+                            book.setId(rs.getInt("id"));
+                            book.setTitle(rs.getString("title"));
+                            book.setAuthor(rs.getString("author"));
+                            book.setYear(rs.getObject("year", Integer.class));
+                            book.setShelf(byId.get(rs.getInt("shelf_id")));
+                            return book;
+                        }, groups.get(shard).toArray()))
+                .forEach(partial -> partial.forEach(book -> book.getShelf().getBooks().add(book)));
+        return found;
+    }
+
+    private ShelfSummary summaryOf(Shelf shelf, Map<Integer, Long> counts) {
+        return new ShelfSummary(shelf.getId(), shelf.getName(), shelf.getDescription(), counts.getOrDefault(shelf.getId(), 0L));
+    }
+
+    private static String placeholders(Collection<?> values) {
+        return String.join(", ", Collections.nCopies(values.size(), "?"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.crud.sharding;
+
+import com.example.crud.repository.BookRepository;
+import com.example.crud.repository.ShelfRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Шардирование подменяет BookRepository и ShelfRepository, сервисы, outbox, каталог и фоновые задачи остаются общими
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private final ShardingProperties properties;
+
+    public ShardingConfig(ShardingProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public static ShardDataSourceRegistrar shardDataSourceRegistrar() {
+        return new ShardDataSourceRegistrar();
+    }
+
+    @Bean
+    public ShardTransactions shardTransactions() {
+        return new ShardTransactions();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService shardQueryExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(properties.getQueryThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean
+    public Shards shards(BeanFactory beanFactory, ShardTransactions shardTransactions, ExecutorService shardQueryExecutor) {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("schema-shard.sql"));
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            DataSource pool = beanFactory.getBean(ShardDataSourceRegistrar.beanName(i), DataSource.class);
+            schema.execute(pool);
+            // JdbcTemplate и ShardTransactions должны видеть один и тот же DataSource, он же ключ привязки соединения
+            shards.add(new Shard(i, pool, new JdbcTemplate(pool)));
+        }
+
+        log.info("Шардирование каталога включено: {} шардов", shards.size());
+        return new Shards(shards, shardTransactions, shardQueryExecutor);
+    }
+
+    @Bean
+    public BookDirectory bookDirectory(DataSource dataSource, PlatformTransactionManager transactionManager, Shards shards) {
+        return new BookDirectory(new JdbcTemplate(dataSource), requiresNew(transactionManager), shards);
+    }
+
+    @Bean
+    @Primary
+    public BookRepository shardedBookRepository(Shards shards, BookDirectory bookDirectory, DataSource dataSource,
+                                                PlatformTransactionManager transactionManager,
+                                                @Qualifier("shelfRepository") ShelfRepository shelfRepository) {
+        ShardIdAllocator idAllocator = new ShardIdAllocator(new JdbcTemplate(dataSource), requiresNew(transactionManager),
+                "book", properties.getIdBlockSize());
+        return new ShardedBookRepository(shards, bookDirectory, idAllocator, shelfRepository);
+    }
+
+    @Bean
+    @Primary
+    public ShelfRepository shardedShelfRepository(@Qualifier("shelfRepository") ShelfRepository shelfRepository,
+                                                  Shards shards) {
+        return new ShardedShelfRepository(shelfRepository, shards);
+    }
+
+    @Bean
+    public ShardMoveRepairer shardMoveRepairer(Shards shards, BookDirectory bookDirectory) {
+        return new ShardMoveRepairer(shards, bookDirectory, properties.getMoveGraceMs());
+    }
+
+    private static TransactionTemplate requiresNew(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.crud.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    private int queryThreads = 8;
+
+    private int idBlockSize = 100;
+
+    private long repairIntervalMs = 60000;
+
+    private long moveGraceMs = 60000;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maxPoolSize = 10;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.crud.sharding;
+
+import com.example.crud.deadline.Deadline;
+import com.example.crud.deadline.RequestDeadline;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+public class Shards {
+
+    private final List<Shard> shards;
+    private final ShardRouter router;
+    private final ShardTransactions transactions;
+    private final ExecutorService executor;
+
+    public Shards(List<Shard> shards, ShardTransactions transactions, ExecutorService executor) {
+        this.shards = shards;
+        this.router = new ShardRouter(shards.size());
+        this.transactions = transactions;
+        this.executor = executor;
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public Shard get(int index) {
+        return shards.get(index);
+    }
+
+    public Shard forShelf(int shelfId) {
+        return shards.get(router.shardForShelf(shelfId));
+    }
+
+    public Shard forBook(Integer shelfId, int bookId) {
+        return shards.get(router.shardFor(shelfId, bookId));
+    }
+
+    public ShardTransactions getTransactions() {
+        return transactions;
+    }
+
+    // В пишущей транзакции шард присоединяется к ней, чтение без транзакции или только для чтения идёт в автокоммите
+    // с таймаутом запроса по сроку текущего HTTP-запроса
+    public JdbcTemplate jdbc(Shard shard) {
+        return inWriteTransaction() ? transactions.jdbc(shard) : RequestDeadline.bounded(shard.getJdbc());
+    }
+
+    public <T> Map<Shard, List<T>> groupBy(Collection<T> values, ToIntFunction<T> shardIndex) {
+        Map<Shard, List<T>> groups = new LinkedHashMap<>();
+        for (T value : values) {
+            groups.computeIfAbsent(shards.get(shardIndex.applyAsInt(value)), shard -> new ArrayList<>()).add(value);
+        }
+        return groups;
+    }
+
+    public <T> List<T> scatter(Function<Shard, T> query) {
+        return scatter(shards, query);
+    }
+
+    public <T> List<T> scatter(Collection<Shard> targets, Function<Shard, T> query) {
+        // Соединения пишущей транзакции привязаны к потоку, поэтому внутри неё шарды опрашиваются последовательно
+        if (inWriteTransaction() || targets.size() == 1) {
+            List<T> results = new ArrayList<>(targets.size());
+            for (Shard shard : targets) {
+                results.add(query.apply(shard));
+            }
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(targets.size());
+        for (Shard shard : targets) {
+            futures.add(executor.submit(RequestDeadline.propagate(() -> query.apply(shard))));
+        }
+
+        Deadline deadline = RequestDeadline.current();
+        List<T> results = new ArrayList<>(targets.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(deadline != null
+                        ? future.get(Math.max(deadline.remainingMillis(), 0), TimeUnit.MILLISECONDS)
+                        : future.get());
+            }
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw deadline.exceeded("запрос к шардам");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Запрос к шардам прерван", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Ошибка запроса к шарду", e.getCause());
+        }
+        return results;
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
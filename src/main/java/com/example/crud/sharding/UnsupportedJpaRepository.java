@@ -0,0 +1,172 @@
+package com.example.crud.sharding;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Шардированные репозитории реализуют только то, что использует приложение, остальное явно отклоняется
+abstract class UnsupportedJpaRepository<T> implements JpaRepository<T, Integer> {
+
+    @Override
+    public <S extends T> S save(S entity) {
+        throw unsupported("save");
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        throw unsupported("saveAll");
+    }
+
+    @Override
+    public Optional<T> findById(Integer id) {
+        throw unsupported("findById");
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        throw unsupported("existsById");
+    }
+
+    @Override
+    public List<T> findAll() {
+        throw unsupported("findAll");
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Integer> ids) {
+        throw unsupported("findAllById");
+    }
+
+    @Override
+    public long count() {
+        throw unsupported("count");
+    }
+
+    @Override
+    public void deleteById(Integer id) {
+        throw unsupported("deleteById");
+    }
+
+    @Override
+    public void delete(T entity) {
+        throw unsupported("delete");
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Integer> ids) {
+        throw unsupported("deleteAllById");
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        throw unsupported("deleteAll");
+    }
+
+    @Override
+    public void deleteAll() {
+        throw unsupported("deleteAll");
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        throw unsupported("findAll(Sort)");
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        throw unsupported("findAll(Pageable)");
+    }
+
+    @Override
+    public void flush() {
+        throw unsupported("flush");
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        throw unsupported("saveAndFlush");
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        throw unsupported("saveAllAndFlush");
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        throw unsupported("deleteAllInBatch");
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Integer> ids) {
+        throw unsupported("deleteAllByIdInBatch");
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        throw unsupported("deleteAllInBatch");
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(Integer id) {
+        throw unsupported("getOne");
+    }
+
+    @Override
+    @Deprecated
+    public T getById(Integer id) {
+        throw unsupported("getById");
+    }
+
+    @Override
+    public T getReferenceById(Integer id) {
+        throw unsupported("getReferenceById");
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw unsupported("findOne");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw unsupported("findAll(Example)");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported("findAll(Example, Sort)");
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported("findAll(Example, Pageable)");
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw unsupported("count(Example)");
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw unsupported("exists(Example)");
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported("findBy(Example)");
+    }
+
+    protected UnsupportedOperationException unsupported(String operation) {
+        return new UnsupportedOperationException("Операция " + operation + " не поддерживается при шардировании каталога");
+    }
+}
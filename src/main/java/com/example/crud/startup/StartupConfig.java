@@ -0,0 +1,26 @@
+package com.example.crud.startup;
+
+import jakarta.servlet.Filter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Configuration
+public class StartupConfig {
+
+    // Сразу создаётся только то, через что проходит первый запрос: контроллеры (а с ними их сервисы),
+    // фильтры, перехватчики и репозитории. Бины с @Scheduled Spring Boot исключает из ленивой
+    // инициализации сам, остальное создаётся при первом обращении
+    @Bean
+    public static LazyInitializationExcludeFilter requestPathExcludeFilter() {
+        return (beanName, beanDefinition, beanType) ->
+                AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                        || Filter.class.isAssignableFrom(beanType)
+                        || HandlerInterceptor.class.isAssignableFrom(beanType)
+                        || RepositoryFactoryBeanSupport.class.isAssignableFrom(beanType);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.crud.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class StartupTimingReporter {
+
+    static final String CONTEXT_REFRESH = "spring.context.refresh";
+    static final String WEB_SERVER_CREATE = "spring.boot.webserver.create";
+    static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+    static final String ENTITY_MANAGER_FACTORY = "entityManagerFactory";
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (!(startup instanceof BufferingApplicationStartup buffering)) {
+            return;
+        }
+
+        Map<String, Duration> phases = collectPhases(buffering.getBufferedTimeline());
+        phases.put("до готовности", event.getTimeTaken());
+
+        StringBuilder report = new StringBuilder("Время запуска по фазам:");
+        phases.forEach((phase, duration) ->
+                report.append(' ').append(phase).append('=').append(duration.toMillis()).append("ms"));
+        log.info(report.toString());
+    }
+
+    Map<String, Duration> collectPhases(StartupTimeline timeline) {
+        Duration refresh = Duration.ZERO;
+        Duration hibernate = Duration.ZERO;
+        Duration tomcat = Duration.ZERO;
+
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            StartupStep step = event.getStartupStep();
+            switch (step.getName()) {
+                case CONTEXT_REFRESH -> refresh = refresh.plus(event.getDuration());
+                case WEB_SERVER_CREATE -> tomcat = tomcat.plus(event.getDuration());
+                case BEAN_INSTANTIATE -> {
+                    if (hasBeanName(step, ENTITY_MANAGER_FACTORY)) {
+                        hibernate = hibernate.plus(event.getDuration());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        phases.put("обновление контекста", refresh);
+        phases.put("метамодель Hibernate", hibernate);
+        phases.put("Tomcat", tomcat);
+        return phases;
+    }
+
+    private boolean hasBeanName(StartupStep step, String beanName) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (tag.getKey().equals("beanName") && tag.getValue().equals(beanName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+-- Базовая схема каталога. IF NOT EXISTS позволяет принять базы, созданные раньше через ddl-auto
+CREATE SEQUENCE IF NOT EXISTS shelf_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS book_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS shelf (
+    shelf_id INTEGER PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS book (
+    id INTEGER PRIMARY KEY,
+    title VARCHAR(255),
+    author VARCHAR(255),
+    year INTEGER,
+    shelf_id INTEGER REFERENCES shelf (shelf_id)
+);
+
+CREATE INDEX IF NOT EXISTS book_shelf_id_idx ON book (shelf_id);
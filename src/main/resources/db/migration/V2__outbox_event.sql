@@ -0,0 +1,15 @@
+CREATE SEQUENCE IF NOT EXISTS outbox_event_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGINT PRIMARY KEY,
+    aggregate_type VARCHAR(32) NOT NULL,
+    aggregate_id INTEGER,
+    event_type VARCHAR(32) NOT NULL,
+    payload VARCHAR(4000) NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    processed_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS outbox_event_created_at_idx ON outbox_event (created_at);
+
+CREATE INDEX IF NOT EXISTS outbox_event_processed_at_idx ON outbox_event (processed_at);
@@ -0,0 +1,27 @@
+CREATE TABLE IF NOT EXISTS job (
+    id VARCHAR(36) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    type VARCHAR(32) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    owner VARCHAR(36),
+    parameters VARCHAR(1000000),
+    checkpoint VARCHAR(255),
+    processed BIGINT NOT NULL DEFAULT 0,
+    skipped BIGINT NOT NULL DEFAULT 0,
+    total BIGINT,
+    cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+    error VARCHAR(1000),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    started_at TIMESTAMP(6) WITH TIME ZONE,
+    updated_at TIMESTAMP(6) WITH TIME ZONE,
+    finished_at TIMESTAMP(6) WITH TIME ZONE
+);
+
+-- Таблица могла появиться через ddl-auto до аренды задач и счётчика пропусков
+ALTER TABLE job ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE job ADD COLUMN IF NOT EXISTS owner VARCHAR(36);
+
+ALTER TABLE job ADD COLUMN IF NOT EXISTS skipped BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS job_status_idx ON job (status);
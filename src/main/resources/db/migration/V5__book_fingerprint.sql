@@ -0,0 +1,4 @@
+-- Значения для существующих строк рассчитывает FingerprintBackfill при старте приложения
+ALTER TABLE book ADD COLUMN IF NOT EXISTS fingerprint VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS book_fingerprint_idx ON book (fingerprint);
@@ -0,0 +1,10 @@
+-- Справочник размещения книг и счётчики ID для шардированного режима, в основной БД
+CREATE TABLE IF NOT EXISTS book_directory (
+    book_id INTEGER PRIMARY KEY,
+    shard INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS shard_id_allocator (
+    name VARCHAR(32) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
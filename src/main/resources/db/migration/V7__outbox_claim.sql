@@ -0,0 +1,2 @@
+-- Срок аренды строки релеем: приёмник вызывается уже после снятия блокировок
+ALTER TABLE outbox_event ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP(6) WITH TIME ZONE;
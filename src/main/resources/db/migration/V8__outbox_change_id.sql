@@ -0,0 +1,5 @@
+-- Порядковый номер изменения выдаёт сама база при вставке, по одному, а не блоками, как ID сущности.
+-- Каталог догоняет изменения по последнему прочитанному номеру
+ALTER TABLE outbox_event ADD COLUMN IF NOT EXISTS change_id BIGINT GENERATED BY DEFAULT AS IDENTITY;
+
+CREATE UNIQUE INDEX IF NOT EXISTS outbox_event_change_id_idx ON outbox_event (change_id);
@@ -0,0 +1,3 @@
+-- Перед выполнением запроса узел вставляет заявку PENDING: первичный ключ не даёт второму узлу выполнить
+-- тот же ключ параллельно, а после ответа заявка переводится в COMPLETED вместе с телом
+ALTER TABLE idempotency_record ADD COLUMN IF NOT EXISTS state VARCHAR(16) NOT NULL DEFAULT 'COMPLETED';
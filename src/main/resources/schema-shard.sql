@@ -0,0 +1,23 @@
+-- Полки хранятся только в основной БД, копии таблицы shelf на шардах больше не ведутся
+DROP TABLE IF EXISTS shelf CASCADE;
+
+CREATE TABLE IF NOT EXISTS book (
+    id INTEGER PRIMARY KEY,
+    title VARCHAR(255),
+    author VARCHAR(255),
+    year INTEGER,
+    shelf_id INTEGER,
+    fingerprint VARCHAR(64)
+);
+
+ALTER TABLE book ADD COLUMN IF NOT EXISTS fingerprint VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS book_shelf_id_idx ON book (shelf_id);
+
+CREATE INDEX IF NOT EXISTS book_fingerprint_idx ON book (fingerprint);
+
+CREATE TABLE IF NOT EXISTS shard_move (
+    book_id INTEGER PRIMARY KEY,
+    source INTEGER NOT NULL,
+    moved_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,157 @@
+package crud.tests;
+
+import com.example.crud.admission.AdaptiveLimiter;
+import com.example.crud.admission.AdmissionControlFilter;
+import com.example.crud.admission.AdmissionProperties;
+import com.example.crud.admission.RouteClassifier;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void limitGrowsWhileLatencyStaysFlat() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", new AdmissionProperties.Budget(10, 1, 40, 0, 0));
+
+        for (int round = 0; round < 20; round++) {
+            saturate(limiter, RTT);
+        }
+
+        assertTrue(limiter.getLimit() > 10, "При ровной задержке и полной загрузке лимит растёт: " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 40);
+    }
+
+    @Test
+    void limitBacksOffOnDropsAndGrowingLatency() throws Exception {
+        AdaptiveLimiter dropping = new AdaptiveLimiter("test", new AdmissionProperties.Budget(20, 5, 40, 0, 0));
+        assertTrue(dropping.tryAcquire());
+        dropping.release(RTT, true);
+        assertEquals(18, dropping.getLimit());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(dropping.tryAcquire());
+            dropping.release(RTT, true);
+        }
+        assertEquals(5, dropping.getLimit(), "Лимит не опускается ниже min-limit");
+
+        AdaptiveLimiter slowing = new AdaptiveLimiter("test", new AdmissionProperties.Budget(20, 1, 40, 0, 0));
+        saturate(slowing, RTT);
+        int before = slowing.getLimit();
+        for (int round = 0; round < 5; round++) {
+            saturate(slowing, RTT * 10);
+        }
+        assertTrue(slowing.getLimit() < before, "Рост задержки уменьшает лимит: " + before + " -> " + slowing.getLimit());
+    }
+
+    @Test
+    void routeWithItsOwnBudgetDoesNotShareTheClassLimit() throws Exception {
+        AdmissionProperties.Route search = new AdmissionProperties.Route();
+        search.setMethod("GET");
+        search.setPaths(List.of("/book/search"));
+        RouteClassifier classifier = new RouteClassifier(Map.of("search", search));
+
+        assertEquals("search", classifier.classify(new MockHttpServletRequest("GET", "/book/search")));
+        assertEquals(RouteClassifier.HEAVY, classifier.classify(new MockHttpServletRequest("GET", "/book/all")));
+        assertEquals(RouteClassifier.DEFAULT, classifier.classify(new MockHttpServletRequest("POST", "/book/search")));
+
+        AdaptiveLimiter heavy = new AdaptiveLimiter(RouteClassifier.HEAVY, new AdmissionProperties.Budget(1, 1, 1, 0, 0));
+        AdaptiveLimiter own = new AdaptiveLimiter("search", new AdmissionProperties.Budget(1, 1, 1, 0, 0));
+        AdmissionControlFilter filter = new AdmissionControlFilter(classifier,
+                Map.of(RouteClassifier.HEAVY, heavy, "search", own), 1, ErrorResponses.resolver());
+        assertTrue(heavy.tryAcquire());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/book/search"), response, (req, res) -> { });
+        assertEquals(200, response.getStatus(), "Занятый бюджет heavy не мешает маршруту со своим лимитом");
+    }
+
+    @Test
+    void duplicatesAndBatchGetsAreHeavy() {
+        RouteClassifier classifier = new RouteClassifier();
+        MockHttpServletRequest byIds = new MockHttpServletRequest("GET", "/book");
+        byIds.setParameter("ids", "1,2,3");
+
+        assertEquals(RouteClassifier.HEAVY, classifier.classify(new MockHttpServletRequest("GET", "/book/duplicates")));
+        assertEquals(RouteClassifier.HEAVY, classifier.classify(byIds));
+        assertEquals(RouteClassifier.HEAVY, classifier.classify(new MockHttpServletRequest("POST", "/shelf:batchGet")));
+        assertEquals(RouteClassifier.DEFAULT, classifier.classify(new MockHttpServletRequest("GET", "/book")));
+        assertEquals(RouteClassifier.DEFAULT, classifier.classify(new MockHttpServletRequest("POST", "/book")));
+    }
+
+    @Test
+    void routeWithParamMatchesOnlyWhenTheParamIsPresent() {
+        AdmissionProperties.Route batchGet = new AdmissionProperties.Route();
+        batchGet.setMethod("GET");
+        batchGet.setParam("ids");
+        batchGet.setPaths(List.of("/book", "/shelf"));
+        RouteClassifier classifier = new RouteClassifier(Map.of("batch-get", batchGet));
+        MockHttpServletRequest byIds = new MockHttpServletRequest("GET", "/shelf");
+        byIds.setParameter("ids", "1");
+
+        assertEquals("batch-get", classifier.classify(byIds));
+        assertEquals(RouteClassifier.DEFAULT, classifier.classify(new MockHttpServletRequest("GET", "/shelf")));
+    }
+
+    @Test
+    void asyncResponseHoldsThePermitUntilCompletion() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(RouteClassifier.HEAVY, new AdmissionProperties.Budget(1, 1, 1, 0, 0));
+        AdmissionControlFilter filter = new AdmissionControlFilter(new RouteClassifier(),
+                Map.of(RouteClassifier.HEAVY, limiter), 1, ErrorResponses.resolver());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shelf/1/books/stream");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        assertTrue(request.isAsyncStarted());
+        assertFalse(limiter.tryAcquire(), "Разрешение должно держаться, пока потоковый ответ не дописан");
+
+        request.getAsyncContext().complete();
+        assertTrue(limiter.tryAcquire(), "После завершения async-обработки разрешение возвращается");
+    }
+
+    @Test
+    void rejectedRequestGetsServiceUnavailable() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(RouteClassifier.HEAVY, new AdmissionProperties.Budget(1, 1, 1, 0, 0));
+        AdmissionControlFilter filter = new AdmissionControlFilter(new RouteClassifier(),
+                Map.of(RouteClassifier.HEAVY, limiter), 3, ErrorResponses.resolver());
+        assertTrue(limiter.tryAcquire());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/book/search"), response,
+                (req, res) -> {
+                    throw new AssertionError("Запрос сверх лимита не должен доходить до обработчика");
+                });
+
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader("Retry-After"));
+        JsonNode body = new ObjectMapper().readTree(response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(503, body.get("status").asInt());
+        assertEquals("/book/search", body.get("path").asText());
+        assertEquals("Сервер перегружен, повторите запрос позже", body.get("message").asText());
+    }
+
+    // Занимает все разрешения лимитера и возвращает их с заданной задержкой
+    private static void saturate(AdaptiveLimiter limiter, long rttNanos) throws InterruptedException {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(rttNanos, false);
+        }
+    }
+}
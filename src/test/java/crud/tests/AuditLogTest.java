@@ -0,0 +1,161 @@
+package crud.tests;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import com.example.crud.audit.AuditEntry;
+import com.example.crud.audit.AuditLog;
+import com.example.crud.audit.AuditLogReader;
+import com.example.crud.audit.AuditProperties;
+import com.example.crud.audit.CountingAsyncAppender;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void eventsAreWrittenAndReadBack() throws Exception {
+        AuditProperties properties = properties();
+        AuditLog auditLog = new AuditLog(properties);
+        auditLog.start();
+        Instant from = Instant.now();
+        auditLog.publish(CatalogChangedEvent.book(ChangeOperation.CREATE, 1, null, 5));
+        auditLog.publish(CatalogChangedEvent.shelf(ChangeOperation.DELETE, 5));
+        auditLog.stop();
+
+        List<AuditEntry> entries = new AuditLogReader(properties).read(from, Instant.now(), 10);
+        assertEquals(2, entries.size());
+        assertEquals(ChangeOperation.CREATE, entries.get(0).getOperation());
+        assertEquals(5, entries.get(0).getShelfAfter());
+        assertEquals(null, entries.get(0).getShelfBefore());
+        assertEquals(ChangeOperation.DELETE, entries.get(1).getOperation());
+    }
+
+    @Test
+    void segmentNumberingSurvivesRestart() throws Exception {
+        AuditProperties properties = properties();
+        for (int run = 0; run < 2; run++) {
+            AuditLog auditLog = new AuditLog(properties);
+            auditLog.start();
+            auditLog.publish(CatalogChangedEvent.book(ChangeOperation.UPDATE, run, null, null));
+            auditLog.stop();
+        }
+
+        List<String> segments = segmentNames();
+        assertEquals(2, segments.size());
+        assertTrue(segments.get(0).endsWith("-000000.seg"), segments.get(0));
+        assertTrue(segments.get(1).endsWith("-000001.seg"), segments.get(1));
+        assertEquals(2, new AuditLogReader(properties).read(Instant.EPOCH, Instant.now(), 10).size());
+    }
+
+    @Test
+    void overflowingEventsAreCounted() {
+        AuditProperties properties = properties();
+        properties.setQueueCapacity(2);
+        properties.setBatchSize(2);
+        // Поток записи не запущен, поэтому очередь только наполняется
+        AuditLog auditLog = new AuditLog(properties);
+
+        assertTrue(auditLog.publish(CatalogChangedEvent.book(ChangeOperation.CREATE, 1, null, null)));
+        assertTrue(auditLog.publish(CatalogChangedEvent.book(ChangeOperation.CREATE, 2, null, null)));
+        assertFalse(auditLog.publish(CatalogChangedEvent.book(ChangeOperation.CREATE, 3, null, null)));
+        assertEquals(2, auditLog.getQueuedCount());
+        assertEquals(1, auditLog.getDroppedCount());
+    }
+
+    @Test
+    void invalidLimitsAreRejected() {
+        assertInvalid(properties -> properties.setSegmentSizeBytes(16));
+        assertInvalid(properties -> properties.setMaxSegments(0));
+        assertInvalid(properties -> properties.setQueueCapacity(0));
+        assertInvalid(properties -> properties.setBatchSize(0));
+        assertInvalid(properties -> properties.setBatchSize(properties.getQueueCapacity() + 1));
+        assertInvalid(properties -> properties.setFlushIntervalMs(0));
+    }
+
+    @Test
+    void asyncAppenderCountsDroppedLines() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        slow.setContext(context);
+        slow.start();
+
+        CountingAsyncAppender appender = new CountingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(1);
+        appender.addAppender(slow);
+        appender.start();
+
+        long before = CountingAsyncAppender.getDroppedCount();
+        try {
+            for (int i = 0; i < 5; i++) {
+                appender.doAppend(event(context, "строка " + i));
+            }
+            // В очередь на одно место и в занятый поток записи попадают не больше двух строк
+            assertTrue(CountingAsyncAppender.getDroppedCount() - before >= 3);
+        } finally {
+            release.countDown();
+            appender.stop();
+        }
+    }
+
+    private void assertInvalid(Consumer<AuditProperties> change) {
+        AuditProperties properties = properties();
+        change.accept(properties);
+        assertThrows(IllegalStateException.class, () -> new AuditLog(properties));
+    }
+
+    private AuditProperties properties() {
+        AuditProperties properties = new AuditProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeBytes(4096);
+        properties.setFlushIntervalMs(5);
+        return properties;
+    }
+
+    private List<String> segmentNames() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static LoggingEvent event(LoggerContext context, String message) {
+        LoggingEvent event = new LoggingEvent();
+        event.setLoggerContext(context);
+        event.setLoggerName("audit-test");
+        event.setLevel(ch.qos.logback.classic.Level.INFO);
+        event.setMessage(message);
+        event.setTimeStamp(System.currentTimeMillis());
+        return event;
+    }
+}
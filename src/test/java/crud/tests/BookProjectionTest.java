@@ -0,0 +1,117 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.dto.BookFields;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CrudApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:projection;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+class BookProjectionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ShelfService shelfService;
+
+    @Test
+    void parseAcceptsKnownFieldsAndShelfShortcut() {
+        assertEquals(EnumSet.of(BookFields.Field.ID, BookFields.Field.TITLE),
+                BookFields.parse(" title , id ").getFields());
+        assertEquals(EnumSet.of(BookFields.Field.ID, BookFields.Field.SHELF_ID, BookFields.Field.SHELF_NAME,
+                        BookFields.Field.SHELF_DESCRIPTION),
+                BookFields.parse("id,shelf").getFields());
+
+        BookFields shelfId = BookFields.parse("shelf.id");
+        assertEquals(true, shelfId.includesShelf());
+        assertEquals(false, shelfId.needsShelfJoin());
+        assertEquals(true, BookFields.parse("shelf.name").needsShelfJoin());
+    }
+
+    @Test
+    void parseRejectsBlankAndUnknownFields() {
+        assertThrows(InvalidRequestException.class, () -> BookFields.parse(""));
+        assertThrows(InvalidRequestException.class, () -> BookFields.parse("  "));
+        assertThrows(InvalidRequestException.class, () -> BookFields.parse("id,isbn"));
+        assertThrows(InvalidRequestException.class, () -> BookFields.parse("id,,title"));
+    }
+
+    @Test
+    void projectedResponseContainsOnlyRequestedFields() throws Exception {
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        Shelf shelf = new Shelf();
+        shelf.setName("Проекции " + marker);
+        shelf.setDescription("Описание полки");
+        shelf = shelfService.createShelf(shelf);
+        Book shelved = bookService.createBook(book("На полке " + marker, shelf));
+        Book loose = bookService.createBook(book("Без полки " + marker, null));
+
+        mockMvc.perform(get("/book/search").param("keyword", marker).param("fields", "id,shelf.name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(shelved.getId()))
+                .andExpect(jsonPath("$[0].title").doesNotExist())
+                .andExpect(jsonPath("$[0].shelf.name").value(shelf.getName()))
+                .andExpect(jsonPath("$[0].shelf.id").doesNotExist())
+                .andExpect(jsonPath("$[0].shelf.description").doesNotExist())
+                .andExpect(jsonPath("$[1].id").value(loose.getId()))
+                .andExpect(jsonPath("$[1].shelf").value((Object) null));
+
+        mockMvc.perform(get("/book/search").param("keyword", marker).param("fields", "isbn"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void responseWithoutFieldsKeepsTheBookShape() throws Exception {
+        String marker = UUID.randomUUID().toString().substring(0, 8);
+        Shelf shelf = new Shelf();
+        shelf.setName("Форма " + marker);
+        shelf.setDescription("Описание полки");
+        shelf = shelfService.createShelf(shelf);
+        Book book = bookService.createBook(book("Полная " + marker, shelf));
+
+        mockMvc.perform(get("/book/title-author").param("title", marker))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":" + book.getId() + ",\"title\":\"Полная " + marker + "\"," +
+                        "\"author\":\"Автор\",\"year\":2001,\"shelf\":{\"id\":" + shelf.getId() + "," +
+                        "\"name\":\"Форма " + marker + "\",\"description\":\"Описание полки\"}}]", true));
+
+        mockMvc.perform(get("/book/{id}", book.getId()))
+                .andExpect(content().json("{\"id\":" + book.getId() + ",\"title\":\"Полная " + marker + "\"," +
+                        "\"author\":\"Автор\",\"year\":2001,\"shelf\":{\"id\":" + shelf.getId() + "," +
+                        "\"name\":\"Форма " + marker + "\",\"description\":\"Описание полки\"}}", true));
+    }
+
+    private Book book(String title, Shelf shelf) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Автор");
+        book.setYear(2001);
+        book.setShelf(shelf);
+        return book;
+    }
+}
@@ -0,0 +1,121 @@
+package crud.tests;
+
+import com.example.crud.catalog.BookRecord;
+import com.example.crud.catalog.CatalogSnapshotFile;
+import com.example.crud.catalog.ShelfRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogSnapshotFileTest {
+
+    private static final List<ShelfRecord> SHELVES = List.of(
+            new ShelfRecord(1, "Проза", "Русская проза"),
+            new ShelfRecord(2, "Без описания", null));
+
+    private static final List<BookRecord> BOOKS = List.of(
+            new BookRecord(10, "Война и мир", "Толстой", 1869, 1),
+            new BookRecord(11, "Без года", "Автор", null, 2),
+            new BookRecord(12, null, "Без названия", 2001, null));
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void writtenSnapshotReadsBackUnchanged() throws IOException {
+        CatalogSnapshotFile file = new CatalogSnapshotFile(directory.resolve("catalog.snapshot"));
+        long before = System.currentTimeMillis();
+        file.write(BOOKS, SHELVES, 4242);
+
+        CatalogSnapshotFile.Snapshot snapshot = file.read();
+        assertEquals(4242, snapshot.getHighWaterMark());
+        assertTrue(snapshot.getWrittenAt() >= before);
+        assertEquals(SHELVES.size(), snapshot.getShelfCount());
+        assertEquals(BOOKS.size(), snapshot.getBookCount());
+        assertEquals(SHELVES, toList(snapshot.getShelves()));
+        assertEquals(BOOKS, toList(snapshot.getBooks()));
+        // Записи разбираются из отображённого файла при каждом обходе заново
+        assertEquals(BOOKS, toList(snapshot.getBooks()));
+
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "Временный файл после записи удаляется");
+        }
+    }
+
+    @Test
+    void emptyCatalogRoundTrips() throws IOException {
+        CatalogSnapshotFile file = new CatalogSnapshotFile(directory.resolve("empty.snapshot"));
+        file.write(List.of(), List.of(), 0);
+
+        CatalogSnapshotFile.Snapshot snapshot = file.read();
+        assertEquals(List.of(), toList(snapshot.getBooks()));
+        assertEquals(List.of(), toList(snapshot.getShelves()));
+    }
+
+    @Test
+    void missingFileMeansNoSnapshot() throws IOException {
+        assertNull(new CatalogSnapshotFile(directory.resolve("missing.snapshot")).read());
+    }
+
+    @Test
+    void corruptedBodyFailsTheChecksum() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        new CatalogSnapshotFile(path).write(BOOKS, SHELVES, 7);
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(path, bytes);
+
+        IOException error = assertThrows(IOException.class, () -> new CatalogSnapshotFile(path).read());
+        assertTrue(error.getMessage().contains("Контрольная сумма"), error.getMessage());
+    }
+
+    @Test
+    void corruptedCountsFailTheChecksum() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        new CatalogSnapshotFile(path).write(BOOKS, SHELVES, 7);
+
+        // Счётчик книг в заголовке тоже покрыт контрольной суммой
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(28, BOOKS.size() + 1);
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> new CatalogSnapshotFile(path).read());
+    }
+
+    @Test
+    void truncatedOrForeignFilesAreRejected() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        new CatalogSnapshotFile(path).write(BOOKS, SHELVES, 7);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> new CatalogSnapshotFile(path).read());
+
+        Files.write(path, Arrays.copyOf(bytes, 16));
+        assertThrows(IOException.class, () -> new CatalogSnapshotFile(path).read());
+
+        byte[] oldVersion = bytes.clone();
+        ByteBuffer.wrap(oldVersion).putInt(4, 1);
+        Files.write(path, oldVersion);
+        assertThrows(IOException.class, () -> new CatalogSnapshotFile(path).read());
+    }
+
+    private static <T> List<T> toList(Iterable<T> records) {
+        List<T> list = new ArrayList<>();
+        records.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,161 @@
+package crud.tests;
+
+import com.example.crud.cluster.ClusterInvalidationApplier;
+import com.example.crud.cluster.ClusterInvalidationPublisher;
+import com.example.crud.cluster.InProcessInvalidationTransport;
+import com.example.crud.cluster.Invalidation;
+import com.example.crud.cluster.InvalidationHandler;
+import com.example.crud.cluster.InvalidationMessage;
+import com.example.crud.event.EntityType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterInvalidationTest {
+
+    private final String channel = "test_" + UUID.randomUUID().toString().replace("-", "");
+    private final InProcessInvalidationTransport transportA = new InProcessInvalidationTransport(channel);
+    private final InProcessInvalidationTransport transportB = new InProcessInvalidationTransport(channel);
+    private final RecordingHandler handlerA = new RecordingHandler();
+    private final RecordingHandler handlerB = new RecordingHandler();
+    private final ClusterInvalidationApplier applierA = new ClusterInvalidationApplier("A", () -> List.of(handlerA));
+    private final ClusterInvalidationApplier applierB = new ClusterInvalidationApplier("B", () -> List.of(handlerB));
+    private final ClusterInvalidationPublisher publisherA = new ClusterInvalidationPublisher(transportA, "A", 200, Runnable::run);
+
+    @BeforeEach
+    void subscribe() {
+        transportA.start(applierA);
+        transportB.start(applierB);
+    }
+
+    @AfterEach
+    void close() {
+        transportA.close();
+        transportB.close();
+    }
+
+    @Test
+    void peersApplyBatchedInvalidationsAndIgnoreOwnMessages() {
+        publisherA.publish(List.of(new Invalidation(EntityType.BOOK, 1), new Invalidation(EntityType.SHELF, 7)));
+        publisherA.publish(List.of(new Invalidation(EntityType.BOOK, 2)));
+        publisherA.publish(invalidations(450));
+
+        applierA.applyPending();
+        applierB.applyPending();
+
+        assertEquals(0, handlerA.batches);
+        assertEquals(1, handlerB.batches, "Сообщения должны применяться одной пачкой");
+        assertEquals(0, handlerB.resyncs, "Разбиение на несколько сообщений не должно выглядеть как разрыв");
+        assertEquals(450, handlerB.books.size());
+        assertEquals(Set.of(7), handlerB.shelves);
+    }
+
+    @Test
+    void sequenceGapTriggersFullResync() {
+        publisherA.publish(List.of(new Invalidation(EntityType.BOOK, 1)));
+        applierB.onMessage(new InvalidationMessage("A", 3, List.of(new Invalidation(EntityType.BOOK, 2))));
+        applierB.applyPending();
+
+        assertEquals(1, handlerB.resyncs);
+
+        // Запоздавший и повторный номера после ресинхронизации игнорируются
+        applierB.onMessage(new InvalidationMessage("A", 2, List.of(new Invalidation(EntityType.BOOK, 5))));
+        applierB.onMessage(new InvalidationMessage("A", 3, List.of(new Invalidation(EntityType.BOOK, 6))));
+        applierB.applyPending();
+        assertEquals(1, handlerB.resyncs);
+        assertTrue(handlerB.books.isEmpty());
+    }
+
+    @Test
+    void droppedPublicationSkipsASequenceNumber() {
+        List<Runnable> queued = new ArrayList<>();
+        ClusterInvalidationPublisher publisher = new ClusterInvalidationPublisher(transportA, "A", 200, task -> {
+            if (queued.size() == 1) {
+                throw new RejectedExecutionException("очередь заполнена");
+            }
+            queued.add(task);
+        });
+
+        publisher.publish(List.of(new Invalidation(EntityType.BOOK, 1)));
+        assertEquals(0, handlerB.batches + handlerB.resyncs, "Вызывающий поток не отправляет сообщение сам");
+        publisher.publish(List.of(new Invalidation(EntityType.BOOK, 2)));
+        queued.remove(0).run();
+        applierB.applyPending();
+        assertEquals(Set.of(1), handlerB.books);
+
+        publisher.publish(List.of(new Invalidation(EntityType.BOOK, 3)));
+        queued.remove(0).run();
+        applierB.applyPending();
+        assertEquals(1, handlerB.resyncs, "Отброшенная отправка видна соседям как разрыв номеров");
+    }
+
+    @Test
+    void firstMessageFromARunningPeerTriggersResync() {
+        applierB.onMessage(new InvalidationMessage("C", 1, List.of(new Invalidation(EntityType.BOOK, 1))));
+        applierB.applyPending();
+        assertEquals(0, handlerB.resyncs, "Первое сообщение узла ничего не пропускает");
+        assertEquals(Set.of(1), handlerB.books);
+
+        applierB.onMessage(new InvalidationMessage("D", 7, List.of(new Invalidation(EntityType.BOOK, 2))));
+        applierB.applyPending();
+        assertEquals(1, handlerB.resyncs, "Сообщения D с номерами до #7 могли прийти между загрузкой и подпиской");
+
+        applierB.onMessage(new InvalidationMessage("D", 8, List.of(new Invalidation(EntityType.BOOK, 3))));
+        applierB.applyPending();
+        assertEquals(1, handlerB.resyncs);
+        assertTrue(handlerB.books.contains(3));
+    }
+
+    @Test
+    void transportResetTriggersFullResync() {
+        applierB.onTransportReset();
+        applierB.applyPending();
+
+        assertEquals(1, handlerB.resyncs);
+    }
+
+    @Test
+    void messageSurvivesEncoding() {
+        InvalidationMessage message = new InvalidationMessage("node-1", 42,
+                List.of(new Invalidation(EntityType.BOOK, 3), new Invalidation(EntityType.SHELF, 9)));
+
+        assertEquals(message, InvalidationMessage.decode(message.encode()));
+    }
+
+    private static List<Invalidation> invalidations(int count) {
+        List<Invalidation> result = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            result.add(new Invalidation(EntityType.BOOK, id));
+        }
+        return result;
+    }
+
+    private static class RecordingHandler implements InvalidationHandler {
+        private final Set<Integer> books = new HashSet<>();
+        private final Set<Integer> shelves = new HashSet<>();
+        private int batches;
+        private int resyncs;
+
+        @Override
+        public void invalidate(Set<Integer> bookIds, Set<Integer> shelfIds) {
+            books.addAll(bookIds);
+            shelves.addAll(shelfIds);
+            batches++;
+        }
+
+        @Override
+        public void resync() {
+            resyncs++;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package crud.tests;
 
+import com.example.crud.CrudApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(classes = CrudApplication.class)
 class CrudApplicationTests {
 
     @Test
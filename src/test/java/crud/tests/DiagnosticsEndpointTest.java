@@ -0,0 +1,36 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.controller.DiagnosticsController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CrudApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:diagnostics;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.diagnostics.enabled=true",
+        "app.diagnostics.endpoint-enabled=true",
+        "app.diagnostics.endpoint-token=secret"})
+@AutoConfigureMockMvc
+class DiagnosticsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void slowRequestsRequireTheToken() throws Exception {
+        mockMvc.perform(get("/diagnostics/slow-requests"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/diagnostics/slow-requests").header(DiagnosticsController.TOKEN_HEADER, "wrong"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/diagnostics/slow-requests").header(DiagnosticsController.TOKEN_HEADER, "secret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+    }
+}
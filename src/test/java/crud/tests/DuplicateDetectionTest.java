@@ -0,0 +1,117 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.duplicate.BookFingerprint;
+import com.example.crud.duplicate.DuplicateMode;
+import com.example.crud.duplicate.FingerprintBackfill;
+import com.example.crud.entity.Book;
+import com.example.crud.exception.DuplicateBookException;
+import com.example.crud.repository.BookRepository;
+import com.example.crud.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = CrudApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:duplicates;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000")
+class DuplicateDetectionTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private FingerprintBackfill fingerprintBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void fingerprintIgnoresCaseSpacingPunctuationAndYo() {
+        String expected = BookFingerprint.of("Ёжик в тумане", "Сергей Козлов", 1969);
+
+        assertEquals(expected, BookFingerprint.of("  ЕЖИК   в\tТумане ", "сергей козлов", 1969));
+        assertEquals(expected, BookFingerprint.of("Ёжик, в тумане!", "Сергей  Козлов.", 1969));
+        // NFKC сводит полноширинные и совместимые символы к обычным
+        assertEquals(BookFingerprint.of("Book 1", "Author", 2001), BookFingerprint.of("Ｂｏｏｋ １", "Author", 2001));
+
+        assertNotEquals(expected, BookFingerprint.of("Ёжик в тумане", "Сергей Козлов", 1970));
+        assertNotEquals(expected, BookFingerprint.of("Ёжик в тумане", "Другой автор", 1969));
+    }
+
+    @Test
+    void rejectModeRefusesTheCopy() {
+        String author = uniqueAuthor();
+        Book original = bookService.createBook(book("Оригинал", author), DuplicateMode.REJECT);
+
+        assertThrows(DuplicateBookException.class,
+                () -> bookService.createBook(book("  ОРИГИНАЛ ", author), DuplicateMode.REJECT));
+        assertEquals(1, countByAuthor(author));
+        assertEquals(original.getId(), bookService.findDuplicate(book("оригинал", author)).orElseThrow().getId());
+    }
+
+    @Test
+    void upsertModeUpdatesTheEarliestCopy() {
+        String author = uniqueAuthor();
+        Book original = bookService.createBook(book("Обновляемая", author), DuplicateMode.ALLOW);
+        bookService.createBook(book("Обновляемая", author), DuplicateMode.ALLOW);
+
+        Book upserted = bookService.createBook(book("ОБНОВЛЯЕМАЯ", author), DuplicateMode.UPSERT);
+
+        assertEquals(original.getId(), upserted.getId());
+        assertEquals("ОБНОВЛЯЕМАЯ", bookService.getBookById(original.getId()).getTitle());
+        assertEquals(2, countByAuthor(author));
+    }
+
+    @Test
+    void allowModeStoresEveryCopyWithItsFingerprint() {
+        String author = uniqueAuthor();
+        Book first = bookService.createBook(book("Копия", author), DuplicateMode.ALLOW);
+        Book second = bookService.createBook(book("копия", author), DuplicateMode.ALLOW);
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(2, countByAuthor(author));
+        assertEquals(BookFingerprint.of("Копия", author, 2001), fingerprintOf(second.getId()));
+    }
+
+    @Test
+    void backfillFillsLegacyRowsWithoutFingerprint() {
+        String author = uniqueAuthor();
+        Book legacy = bookService.createBook(book("Старая запись", author), DuplicateMode.ALLOW);
+        jdbcTemplate.update("UPDATE book SET fingerprint = NULL WHERE id = ?", legacy.getId());
+
+        fingerprintBackfill.backfill();
+
+        assertEquals(BookFingerprint.of("Старая запись", author, 2001), fingerprintOf(legacy.getId()));
+        assertEquals(legacy.getId(), bookService.findDuplicate(book("старая запись", author)).orElseThrow().getId());
+    }
+
+    private String fingerprintOf(int id) {
+        return jdbcTemplate.queryForObject("SELECT fingerprint FROM book WHERE id = ?", String.class, id);
+    }
+
+    private long countByAuthor(String author) {
+        return bookRepository.findAll().stream().filter(book -> author.equals(book.getAuthor())).count();
+    }
+
+    private static String uniqueAuthor() {
+        return "Автор " + UUID.randomUUID();
+    }
+
+    private static Book book(String title, String author) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setYear(2001);
+        return book;
+    }
+}
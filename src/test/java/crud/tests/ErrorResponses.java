@@ -0,0 +1,30 @@
+package crud.tests;
+
+import com.example.crud.exception.GlobalExceptionHandler;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
+
+import java.util.List;
+
+// Резолвер с GlobalExceptionHandler для фильтров, которые проверяются без контекста приложения
+final class ErrorResponses {
+
+    private ErrorResponses() {
+    }
+
+    static HandlerExceptionResolver resolver() {
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.registerSingleton("globalExceptionHandler", GlobalExceptionHandler.class);
+        context.refresh();
+
+        ExceptionHandlerExceptionResolver resolver = new ExceptionHandlerExceptionResolver();
+        resolver.setApplicationContext(context);
+        resolver.setMessageConverters(List.of(
+                new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build())));
+        resolver.afterPropertiesSet();
+        return resolver;
+    }
+}
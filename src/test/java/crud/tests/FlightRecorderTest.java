@@ -0,0 +1,172 @@
+package crud.tests;
+
+import com.example.crud.diagnostics.DiagnosticsProperties;
+import com.example.crud.diagnostics.FlightRecorder;
+import com.example.crud.diagnostics.FlightRecorderInterceptor;
+import com.example.crud.diagnostics.FlightRecorderStatementInspector;
+import com.example.crud.diagnostics.RepositoryEvent;
+import com.example.crud.diagnostics.RequestProfile;
+import com.example.crud.diagnostics.ServiceEvent;
+import com.example.crud.diagnostics.SlowRequest;
+import com.example.crud.diagnostics.SqlEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecorderTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void serviceArgumentsAreDescribedByParameterNames() throws Exception {
+        CatalogLookup service = proxy(new CatalogLookup(), RequestProfile.Phase.SERVICE, "catalogLookup");
+
+        List<RecordedEvent> events = record(ServiceEvent.class, Duration.ZERO, () -> {
+            service.sorted("title", true, 0, 25);
+            service.lookup("война", 2, 10);
+        });
+
+        RecordedEvent sorted = single(events, "catalogLookup", "sorted");
+        assertEquals("title: DESC", sorted.getString("sort"));
+        assertEquals(25, sorted.getInt("pageSize"));
+        assertEquals(-1, sorted.getInt("keywordLength"));
+
+        RecordedEvent lookup = single(events, "catalogLookup", "lookup");
+        assertEquals(5, lookup.getInt("keywordLength"));
+        assertEquals(2, lookup.getInt("page"));
+        assertEquals(10, lookup.getInt("pageSize"));
+        assertNull(lookup.getString("sort"));
+    }
+
+    @Test
+    void sqlIsRecordedOnlyForSlowRepositoryCalls() throws Exception {
+        SqlRepository repository = proxy(new SqlRepository(), RequestProfile.Phase.REPOSITORY, "sqlRepository");
+
+        List<RecordedEvent> events = record(SqlEvent.class, Duration.ofMillis(30), () -> {
+            repository.run("select 1 from fast", 0);
+            repository.run("select 1 from slow", 60);
+        });
+
+        List<RecordedEvent> sql = events.stream()
+                .filter(event -> "sqlRepository".equals(event.getString("repository")))
+                .toList();
+        assertEquals(1, sql.size());
+        assertEquals("run", sql.get(0).getString("method"));
+        assertEquals(2, sql.get(0).getInt("statements"));
+        assertTrue(sql.get(0).getString("sql").contains("select 1 from slow"), sql.get(0).getString("sql"));
+    }
+
+    @Test
+    void failedDumpIsReported() throws Exception {
+        // Каталог дампов указывает на обычный файл, поэтому запись дампа обязана упасть
+        Path notADirectory = Files.createFile(directory.resolve("occupied"));
+        SlowRequest slowRequest = slowRequest(notADirectory);
+
+        assertEquals(SlowRequest.DumpStatus.FAILED, slowRequest.getDumpStatus());
+        assertNull(slowRequest.getDumpFile());
+        assertNotNull(slowRequest.getDumpError());
+    }
+
+    @Test
+    void writtenDumpIsReported() throws Exception {
+        SlowRequest slowRequest = slowRequest(directory.resolve("dumps"));
+
+        assertEquals(SlowRequest.DumpStatus.WRITTEN, slowRequest.getDumpStatus());
+        assertTrue(Files.exists(Path.of(slowRequest.getDumpFile())));
+        assertNull(slowRequest.getDumpError());
+    }
+
+    private SlowRequest slowRequest(Path dumpDirectory) throws InterruptedException {
+        DiagnosticsProperties properties = new DiagnosticsProperties();
+        properties.setDumpDirectory(dumpDirectory.toString());
+        properties.setMinDumpIntervalMs(0);
+        FlightRecorder recorder = new FlightRecorder(properties);
+        try {
+            RequestProfile profile = RequestProfile.start();
+            RequestProfile.clear();
+            recorder.onSlowRequest("GET", "/book", 200, 2_000_000_000L, profile);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            SlowRequest slowRequest = recorder.getSlowRequests().get(0);
+            while (slowRequest.getDumpStatus() == SlowRequest.DumpStatus.PENDING
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                slowRequest = recorder.getSlowRequests().get(0);
+            }
+            return slowRequest;
+        } finally {
+            recorder.close();
+        }
+    }
+
+    private List<RecordedEvent> record(Class<? extends jdk.jfr.Event> type, Duration threshold, Runnable action)
+            throws Exception {
+        Path file = directory.resolve(type.getSimpleName() + ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(type).withThreshold(threshold);
+            recording.enable(RepositoryEvent.class).withThreshold(Duration.ofHours(1));
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        String name = type.getAnnotation(jdk.jfr.Name.class).value();
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String service, String method) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> service.equals(event.getString("service")) && method.equals(event.getString("method")))
+                .toList();
+        assertEquals(1, matching.size());
+        return matching.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, RequestProfile.Phase phase, String beanName) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new FlightRecorderInterceptor(phase, beanName));
+        return (T) factory.getProxy();
+    }
+
+    static class CatalogLookup {
+        public List<String> sorted(String field, boolean descending, int offset, Integer limit) {
+            return List.of();
+        }
+
+        public List<String> lookup(String keyword, int page, int size) {
+            return List.of();
+        }
+    }
+
+    static class SqlRepository {
+        private final FlightRecorderStatementInspector inspector = new FlightRecorderStatementInspector(null, 100);
+
+        public void run(String sql, long pauseMs) {
+            inspector.inspect(sql);
+            inspector.inspect(sql + " where 1 = 1");
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
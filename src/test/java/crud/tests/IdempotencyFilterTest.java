@@ -0,0 +1,263 @@
+package crud.tests;
+
+import com.example.crud.idempotency.IdempotencyFilter;
+import com.example.crud.idempotency.IdempotencyProperties;
+import com.example.crud.idempotency.InMemoryIdempotencyStore;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyProperties properties = properties();
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100);
+    private final IdempotencyFilter filter = new IdempotencyFilter(store, properties, ErrorResponses.resolver());
+    // Второй узел: свой фильтр и своя карта выполняющихся ключей, но общее хранилище, как в режиме database
+    private final IdempotencyFilter otherNode = new IdempotencyFilter(store, properties, ErrorResponses.resolver());
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void repeatIsReplayedAndDifferentPayloadIsRejected() throws Exception {
+        MockHttpServletResponse first = perform(request("ключ-1", "{\"title\":\"A\"}", null), created());
+        MockHttpServletResponse repeat = perform(request("ключ-1", "{\"title\":\"A\"}", null), created());
+        MockHttpServletResponse other = perform(request("ключ-1", "{\"title\":\"B\"}", null), created());
+
+        assertEquals(1, executions.get());
+        assertEquals(201, first.getStatus());
+        assertNull(first.getHeader("Idempotent-Replayed"));
+        assertEquals(201, repeat.getStatus());
+        assertEquals("true", repeat.getHeader("Idempotent-Replayed"));
+        assertEquals(first.getContentAsString(), repeat.getContentAsString());
+        assertEquals(422, other.getStatus());
+        assertTrue(other.getContentAsString(StandardCharsets.UTF_8).contains("\"status\":422"));
+    }
+
+    @Test
+    void retryWaitsForTheRequestInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (req, res) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            created().doFilter(req, res);
+        };
+
+        CompletableFuture<MockHttpServletResponse> first =
+                CompletableFuture.supplyAsync(() -> performUnchecked(request("ключ-2", "{}", null), slow));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<MockHttpServletResponse> retry =
+                CompletableFuture.supplyAsync(() -> performUnchecked(request("ключ-2", "{}", null), created()));
+
+        Thread.sleep(200);
+        assertFalse(retry.isDone(), "Повтор должен ждать первое выполнение, а не выполняться параллельно");
+        release.countDown();
+
+        assertEquals(201, first.get(10, TimeUnit.SECONDS).getStatus());
+        MockHttpServletResponse replayed = retry.get(10, TimeUnit.SECONDS);
+        assertEquals(201, replayed.getStatus());
+        assertEquals("true", replayed.getHeader("Idempotent-Replayed"));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void otherNodeWaitsForTheClaimInsteadOfExecuting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (req, res) -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            created().doFilter(req, res);
+        };
+
+        CompletableFuture<MockHttpServletResponse> first =
+                CompletableFuture.supplyAsync(() -> performUnchecked(filter, request("ключ-4", "{}", null), slow));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<MockHttpServletResponse> retry = CompletableFuture.supplyAsync(
+                () -> performUnchecked(otherNode, request("ключ-4", "{}", null), created()));
+
+        Thread.sleep(200);
+        assertFalse(retry.isDone(), "Второй узел должен ждать заявку первого, а не выполнять запрос");
+        release.countDown();
+
+        assertEquals(201, first.get(10, TimeUnit.SECONDS).getStatus());
+        MockHttpServletResponse replayed = retry.get(10, TimeUnit.SECONDS);
+        assertEquals("true", replayed.getHeader("Idempotent-Replayed"));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void failedExecutionReleasesTheClaim() throws Exception {
+        assertEquals(503, perform(request("ключ-5", "{}", null), status(503)).getStatus());
+        MockHttpServletResponse retry = performUnchecked(otherNode, request("ключ-5", "{}", null), created());
+
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeader("Idempotent-Replayed"));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void oversizedBodiesAreRejected() throws Exception {
+        String large = "x".repeat(properties.getMaxRequestBodyBytes() + 1);
+        assertEquals(413, perform(request("ключ-6", large, null), created()).getStatus());
+
+        // Без Content-Length лимит держит само копирование тела
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/book") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.addHeader(properties.getHeader(), "ключ-7");
+        chunked.setContent(large.getBytes(StandardCharsets.UTF_8));
+        assertEquals(413, perform(chunked, created()).getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void bufferedBodyNotifiesReadListener() throws Exception {
+        List<String> calls = new ArrayList<>();
+        FilterChain asyncReader = (req, res) -> req.getInputStream().setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                calls.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                calls.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                calls.add("error");
+            }
+        });
+
+        perform(request("ключ-8", "{}", null), asyncReader);
+        assertEquals(List.of("data", "done"), calls);
+    }
+
+    @Test
+    void anonymousKeysAreScopedPerAddress() throws Exception {
+        MockHttpServletRequest first = request("общий-адрес", "{}", null);
+        first.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest second = request("общий-адрес", "{}", null);
+        second.setRemoteAddr("10.0.0.2");
+
+        perform(first, created());
+        MockHttpServletResponse other = perform(second, created());
+
+        assertEquals(2, executions.get());
+        assertNull(other.getHeader("Idempotent-Replayed"));
+    }
+
+    @Test
+    void keysAreScopedPerClient() throws Exception {
+        perform(request("общий", "{}", "клиент-1"), created());
+        perform(request("общий", "{}", "клиент-2"), created());
+        MockHttpServletResponse repeat = perform(request("общий", "{}", "клиент-1"), created());
+
+        assertEquals(2, executions.get());
+        assertEquals("true", repeat.getHeader("Idempotent-Replayed"));
+    }
+
+    @Test
+    void onlySuccessfulResponsesAreStored() throws Exception {
+        assertEquals(400, perform(request("ключ-3", "{}", null), status(400)).getStatus());
+        assertEquals(503, perform(request("ключ-3", "{}", null), status(503)).getStatus());
+        MockHttpServletResponse success = perform(request("ключ-3", "{}", null), created());
+
+        assertEquals(201, success.getStatus());
+        assertNull(success.getHeader("Idempotent-Replayed"));
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void blankAndControlCharacterKeysAreRejected() throws Exception {
+        assertEquals(400, perform(request("   ", "{}", null), created()).getStatus());
+        assertEquals(400, perform(request("кл\u0007юч", "{}", null), created()).getStatus());
+        assertEquals(400, perform(request("к".repeat(properties.getMaxKeyLength() + 1), "{}", null), created())
+                .getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    private static IdempotencyProperties properties() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxRequestBodyBytes(1024);
+        properties.setClaimPollMs(10);
+        return properties;
+    }
+
+    private FilterChain created() {
+        return status(201);
+    }
+
+    private FilterChain status(int status) {
+        return (req, res) -> {
+            int execution = executions.incrementAndGet();
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setStatus(status);
+            response.setContentType("application/json");
+            response.getOutputStream().write(("{\"execution\":" + execution + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletRequest request(String key, String body, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/book");
+        request.addHeader(properties.getHeader(), key);
+        if (client != null) {
+            request.addHeader(properties.getClientHeader(), client);
+        }
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        return perform(filter, request, chain);
+    }
+
+    private static MockHttpServletResponse perform(IdempotencyFilter node, MockHttpServletRequest request,
+                                                   FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        node.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse performUnchecked(MockHttpServletRequest request, FilterChain chain) {
+        return performUnchecked(filter, request, chain);
+    }
+
+    private static MockHttpServletResponse performUnchecked(IdempotencyFilter node, MockHttpServletRequest request,
+                                                            FilterChain chain) {
+        try {
+            return perform(node, request, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
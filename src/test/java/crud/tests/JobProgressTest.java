@@ -0,0 +1,153 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.dto.BookRequest;
+import com.example.crud.duplicate.DuplicateMode;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Job;
+import com.example.crud.entity.JobStatus;
+import com.example.crud.entity.JobType;
+import com.example.crud.exception.BookNotFoundException;
+import com.example.crud.job.JobService;
+import com.example.crud.repository.JobRepository;
+import com.example.crud.service.BookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CrudApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:jobs;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.jobs.chunk-size=2",
+        "app.jobs.dispatch-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class JobProgressTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void importProcessesChunksAndSkipsDuplicates() throws Exception {
+        String author = "Автор " + UUID.randomUUID();
+        bookService.createBook(book("Уже есть", author), DuplicateMode.ALLOW);
+        String books = objectMapper.writeValueAsString(List.of(
+                request("Первая", author), request("уже есть", author), request("Вторая", author),
+                request("ПЕРВАЯ", author), request("Третья", author)));
+
+        String body = mockMvc.perform(post("/jobs/import-books").param("duplicates", "skip")
+                        .contentType(MediaType.APPLICATION_JSON).content(books))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode submitted = objectMapper.readTree(body);
+
+        Job job = awaitFinished(submitted.get("id").asText());
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertEquals(3, job.getProcessed());
+        assertEquals(2, job.getSkipped());
+        assertEquals("5", job.getCheckpoint());
+
+        mockMvc.perform(post("/jobs/import-books").param("duplicates", "merge")
+                        .contentType(MediaType.APPLICATION_JSON).content(books))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void staleJobResumesFromItsCheckpointAndCountsOnlyDeletedRows() throws Exception {
+        String author = "Автор " + UUID.randomUUID();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(bookService.createBook(book("Удаляемая " + i, author), DuplicateMode.ALLOW).getId());
+        }
+        List<Integer> parameters = new ArrayList<>(ids);
+        parameters.add(Integer.MAX_VALUE);
+
+        // Экземпляр, начавший задачу, успел удалить две книги и перестал продлевать аренду
+        Instant longAgo = Instant.now().minusSeconds(3600);
+        Job stale = new Job();
+        stale.setId(UUID.randomUUID().toString());
+        stale.setType(JobType.DELETE_BOOKS);
+        stale.setStatus(JobStatus.RUNNING);
+        stale.setOwner("упавший-экземпляр");
+        stale.setParameters(objectMapper.writeValueAsString(parameters));
+        stale.setCheckpoint("2");
+        stale.setProcessed(2);
+        stale.setTotal((long) parameters.size());
+        stale.setCreatedAt(longAgo);
+        stale.setStartedAt(longAgo);
+        stale.setUpdatedAt(longAgo);
+        jobRepository.save(stale);
+
+        jobService.poll();
+
+        Job job = awaitFinished(stale.getId());
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertNotEquals("упавший-экземпляр", job.getOwner());
+        assertEquals(4, job.getProcessed());
+        assertEquals(1, job.getSkipped());
+        assertEquals("5", job.getCheckpoint());
+
+        // Книги до контрольной точки не трогаются повторно, остальные удалены
+        assertEquals(ids.get(0), bookService.getBookById(ids.get(0)).getId());
+        assertEquals(ids.get(1), bookService.getBookById(ids.get(1)).getId());
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(ids.get(2)));
+        assertThrows(BookNotFoundException.class, () -> bookService.getBookById(ids.get(3)));
+    }
+
+    private Job awaitFinished(String id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            Job job = jobService.getJob(id);
+            if (job.getStatus() != JobStatus.QUEUED && job.getStatus() != JobStatus.RUNNING) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Задача " + id + " не завершилась за 10 секунд");
+        return null;
+    }
+
+    private static Book book(String title, String author) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setYear(2001);
+        return book;
+    }
+
+    private static BookRequest request(String title, String author) {
+        BookRequest request = new BookRequest();
+        request.setTitle(title);
+        request.setAuthor(author);
+        request.setYear(2001);
+        return request;
+    }
+}
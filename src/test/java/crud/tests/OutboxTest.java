@@ -0,0 +1,154 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.OutboxEvent;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.ChangeOperation;
+import com.example.crud.outbox.OutboxRelay;
+import com.example.crud.outbox.OutboxSink;
+import com.example.crud.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = CrudApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.outbox.sink=recording",
+        "app.outbox.poll-interval-ms=3600000"
+})
+@Import(OutboxTest.RecordingSinkConfig.class)
+class OutboxTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private RecordingSink sink;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void drain() {
+        while (outboxRelay.relayBatch() > 0) {
+            // события предыдущих тестов
+        }
+        sink.published.clear();
+    }
+
+    @Test
+    void eventIsWrittenTogetherWithTheEntity() {
+        Book created = bookService.createBook(book("Вместе"));
+        assertEquals(1, pendingFor(created.getId()));
+
+        Integer rolledBack = new TransactionTemplate(transactionManager).execute(status -> {
+            Integer id = bookService.createBook(book("Откат")).getId();
+            status.setRollbackOnly();
+            return id;
+        });
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book WHERE id = ?", Integer.class, rolledBack));
+        assertEquals(0, pendingFor(rolledBack), "Откат транзакции откатывает и событие");
+    }
+
+    @Test
+    void eventPublishedOutsideATransactionIsNotDropped() {
+        int id = Integer.MAX_VALUE - 7;
+        eventPublisher.publishEvent(CatalogChangedEvent.book(ChangeOperation.DELETE, id, null, null));
+        assertEquals(1, pendingFor(id));
+    }
+
+    @Test
+    void failedBatchIsReleasedAndRetried() {
+        Book created = bookService.createBook(book("Повтор"));
+        sink.failures.set(1);
+
+        assertThrows(IllegalStateException.class, outboxRelay::relayBatch);
+        assertEquals(1, pendingFor(created.getId()));
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT claimed_until FROM outbox_event WHERE aggregate_id = ?", Object.class, created.getId()),
+                "Аренда снимается сразу после ошибки приёмника");
+
+        assertEquals(1, outboxRelay.relayBatch());
+        assertEquals(0, pendingFor(created.getId()));
+        assertEquals(List.of(created.getId()), sink.published.stream().map(OutboxEvent::getAggregateId).toList());
+    }
+
+    @Test
+    void claimedBatchIsRetriedOnlyAfterTheLeaseExpires() {
+        Book created = bookService.createBook(book("Аренда"));
+        // Релей другого узла захватил строку и упал, не отметив её обработанной
+        jdbcTemplate.update("UPDATE outbox_event SET claimed_until = DATEADD('MINUTE', 1, CURRENT_TIMESTAMP) " +
+                "WHERE aggregate_id = ?", created.getId());
+        assertEquals(0, outboxRelay.relayBatch());
+
+        jdbcTemplate.update("UPDATE outbox_event SET claimed_until = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) " +
+                "WHERE aggregate_id = ?", created.getId());
+        assertEquals(1, outboxRelay.relayBatch());
+        assertTrue(sink.published.stream().anyMatch(event -> Integer.valueOf(created.getId()).equals(event.getAggregateId())));
+    }
+
+    private int pendingFor(int aggregateId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_event WHERE aggregate_id = ? AND processed_at IS NULL",
+                Integer.class, aggregateId);
+    }
+
+    private Book book(String title) {
+        Book book = new Book();
+        book.setTitle(title + " " + UUID.randomUUID());
+        book.setAuthor("Автор");
+        book.setYear(2001);
+        return book;
+    }
+
+    @TestConfiguration
+    static class RecordingSinkConfig {
+
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+    }
+
+    static class RecordingSink implements OutboxSink {
+
+        final List<OutboxEvent> published = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public void publish(List<OutboxEvent> events) {
+            if (failures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IllegalStateException("Приёмник недоступен");
+            }
+            published.addAll(events);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Профиль prod: схема только из миграций (ddl-auto=validate) и ленивая инициализация бинов
+@SpringBootTest(classes = CrudApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:prod-startup;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000")
+@ActiveProfiles("prod")
+@AutoConfigureMockMvc
+class ProdProfileStartupTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void contextStartsOnMigratedSchemaAndServesTheFirstRequest() throws Exception {
+        assertEquals("validate", context.getEnvironment().getProperty("spring.jpa.hibernate.ddl-auto"));
+        assertEquals(9, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"success\" AND \"type\" = 'SQL'", Integer.class));
+
+        // Контроллеры создаются сразу, бины вне пути запроса ждут первого обращения
+        assertTrue(context.getBeanFactory().containsSingleton("bookController"));
+        assertFalse(context.getBeanFactory().containsSingleton("outboxWriter"));
+
+        mockMvc.perform(get("/book").param("size", "5")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,405 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.duplicate.DuplicateMode;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@Slf4j
+// Ключи идемпотентности хранятся в базе, чтобы их запросы тоже попадали в бюджет маршрута
+@SpringBootTest(classes = CrudApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-guard;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.idempotency.store=database"})
+@AutoConfigureMockMvc
+@Import(QueryCountGuardTest.RecorderConfig.class)
+class QueryCountGuardTest {
+
+    private static final Pattern FROM_CLAUSE = Pattern.compile("\\b(?:from|join) (\\w+) (\\w+)");
+    private static final Pattern DRIVING_TABLE = Pattern.compile("\\bfrom (\\w+) ");
+    private static final Map<String, String> PRIMARY_KEYS = Map.of("book", "id", "shelf", "shelf_id", "job", "id",
+            "idempotency_record", "idempotency_key");
+    // Выборка блока значений последовательности амортизирована на allocationSize вставок и в бюджет не входит
+    private static final Pattern SEQUENCE_FETCH = Pattern.compile("(?i)^select (next value for|nextval\\()");
+
+    @TestConfiguration
+    static class RecorderConfig {
+        @Bean
+        static BeanPostProcessor sqlStatementRecorderPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                            ? new SqlStatementRecorder(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ShelfService shelfService;
+
+    private final List<Shelf> shelves = new ArrayList<>();
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    void fillCatalog() {
+        for (int i = 0; i < 3; i++) {
+            Shelf shelf = new Shelf();
+            shelf.setName("Полка " + i);
+            shelf.setDescription("Описание " + i);
+            shelves.add(shelfService.createShelf(shelf));
+        }
+        for (int i = 0; i < 30; i++) {
+            Book book = new Book();
+            book.setTitle("Книга " + i);
+            book.setAuthor("Автор " + i % 7);
+            book.setYear(1950 + i % 10);
+            book.setShelf(i % 4 == 0 ? null : shelves.get(i % shelves.size()));
+            books.add(bookService.createBook(book));
+        }
+    }
+
+    private int bookId(int index) {
+        return books.get(index).getId();
+    }
+
+    private int shelfId(int index) {
+        return shelves.get(index).getId();
+    }
+
+    @Test
+    void bookPage() throws Exception {
+        assertQueries(1, get("/book").param("size", "20"));
+    }
+
+    @Test
+    void bookPageWithFields() throws Exception {
+        assertQueries(1, get("/book").param("size", "20").param("fields", "id,title"));
+    }
+
+    @Test
+    void bookById() throws Exception {
+        assertQueries(2, get("/book/{id}", bookId(1)));
+    }
+
+    @Test
+    void bookWithShelf() throws Exception {
+        assertQueries(2, get("/book/{id}/with-shelf", bookId(1)));
+    }
+
+    @Test
+    void bookSearch() throws Exception {
+        assertQueries(1, get("/book/search").param("keyword", "Книга 1").param("size", "20"));
+    }
+
+    @Test
+    void bookSearchWithShelfName() throws Exception {
+        assertQueries(1, get("/book/search").param("keyword", "Книга").param("size", "20")
+                .param("fields", "id,title,shelf.name"));
+    }
+
+    @Test
+    void booksByAuthor() throws Exception {
+        assertQueries(1, get("/book/author").param("author", "Автор 3").param("size", "20"));
+    }
+
+    @Test
+    void booksByYear() throws Exception {
+        assertQueries(1, get("/book/year").param("year", "1955").param("size", "20"));
+    }
+
+    @Test
+    void booksByYearWithShelfId() throws Exception {
+        assertQueries(1, get("/book/year").param("year", "1955").param("fields", "id,shelf.id"));
+    }
+
+    @Test
+    void booksByTitleAndAuthor() throws Exception {
+        assertQueries(1, get("/book/title-author").param("title", "Книга").param("author", "Автор 2")
+                .param("size", "20"));
+    }
+
+    @Test
+    void booksByIds() throws Exception {
+        assertQueries(1, get("/book").param("ids", bookId(1) + "," + bookId(7) + ",999999"));
+    }
+
+    @Test
+    void bookBatchGet() throws Exception {
+        assertQueries(0, post("/book:batchGet").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + bookId(9) + "," + bookId(1) + "]}"));
+    }
+
+    @Test
+    void sortedByTitle() throws Exception {
+        assertQueries(0, get("/book/sorted/title/asc").param("limit", "20"));
+    }
+
+    @Test
+    void sortedByYear() throws Exception {
+        assertQueries(0, get("/book/sorted/year/desc").param("limit", "20"));
+    }
+
+    // Страница ограничивает число групп, а сами группы дубликатов читаются целиком
+    @Test
+    void duplicates() throws Exception {
+        assertQueriesReadingWholeTable(2, "book", get("/book/duplicates"));
+    }
+
+    @Test
+    void duplicatesAfterFingerprint() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            Book copy = new Book();
+            copy.setTitle("Копия");
+            copy.setAuthor("Автор копий");
+            copy.setYear(1999);
+            bookService.createBook(copy, DuplicateMode.ALLOW);
+        }
+        assertQueriesReadingWholeTable(2, "book", get("/book/duplicates").param("after", "").param("size", "5"));
+    }
+
+    @Test
+    void allBooks() throws Exception {
+        assertQueriesReadingWholeTable(1, "book", get("/book/all"));
+    }
+
+    @Test
+    void shelvesByIds() throws Exception {
+        assertQueries(1, get("/shelf").param("ids", shelfId(1) + "," + shelfId(2)));
+    }
+
+    @Test
+    void shelfBatchGet() throws Exception {
+        assertQueries(1, post("/shelf:batchGet").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + shelfId(2) + ",999999]}"));
+    }
+
+    @Test
+    void allShelves() throws Exception {
+        assertQueriesReadingWholeTable(1, "shelf", get("/shelf"));
+    }
+
+    @Test
+    void wholeShelf() throws Exception {
+        assertQueries(2, get("/shelf/{id}/books", shelfId(1)));
+    }
+
+    @Test
+    void shelfPage() throws Exception {
+        assertQueries(3, get("/shelf/{id}/books", shelfId(1))
+                .param("page", "0").param("size", "5").param("sortBy", "title"));
+    }
+
+    @Test
+    void shelfCursor() throws Exception {
+        assertQueries(2, get("/shelf/{id}/books/cursor", shelfId(1)).param("limit", "5").param("sortBy", "year"));
+    }
+
+    @Test
+    void shelfSummaries() throws Exception {
+        assertQueries(1, get("/shelf/summary"));
+    }
+
+    @Test
+    void shelfSummary() throws Exception {
+        assertQueries(1, get("/shelf/{id}/summary", shelfId(1)));
+    }
+
+    @Test
+    void createBook() throws Exception {
+        assertQueries(3, post("/book").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Новая\",\"author\":\"Автор\",\"year\":2001,\"shelf\":{\"id\":" + shelfId(1) + "}}"));
+    }
+
+    @Test
+    void createBookWithIdempotencyKey() throws Exception {
+        String key = "guard-" + bookId(0);
+        String body = "{\"title\":\"Идемпотентная\",\"author\":\"Автор\",\"year\":2003}";
+        // Заявка PENDING вставляется до выполнения и завершается ответом после него
+        assertQueries(6, post("/book").header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+        // Повтор отдаётся из сохранённого ответа
+        assertQueries(1, post("/book").header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    @Test
+    void updateBook() throws Exception {
+        assertQueries(4, put("/book/{id}", bookId(2)).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Другая\",\"author\":\"Автор\",\"year\":2002,\"shelf\":{\"id\":" + shelfId(1) + "}}"));
+    }
+
+    @Test
+    void deleteBook() throws Exception {
+        assertQueries(3, delete("/book/{id}", bookId(3)));
+    }
+
+    @Test
+    void createShelf() throws Exception {
+        assertQueries(2, post("/shelf").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Новая полка\",\"description\":\"Описание\"}"));
+    }
+
+    // Полка отдаётся в ответе вместе со своими книгами
+    @Test
+    void updateShelf() throws Exception {
+        assertQueriesReadingWholeTable(4, "book", put("/shelf/{id}", shelfId(1)).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Переименованная\",\"description\":\"Описание\"}"));
+    }
+
+    @Test
+    void removeBookFromShelf() throws Exception {
+        assertQueries(4, delete("/shelf/books/{bookId}", bookId(5)));
+    }
+
+    @Test
+    void addBookToShelf() throws Exception {
+        assertQueries(4, post("/shelf/{shelfId}/books/{bookId}", shelfId(1), bookId(4)));
+    }
+
+    // Каждая книга полки блокируется и получает своё событие в outbox
+    @Test
+    void clearShelf() throws Exception {
+        assertQueriesReadingWholeTable(4, "book", delete("/shelf/{id}/clear", shelfId(2)));
+    }
+
+    @Test
+    void deleteShelf() throws Exception {
+        Shelf empty = new Shelf();
+        empty.setName("Пустая полка");
+        int emptyId = shelfService.createShelf(empty).getId();
+        assertQueries(4, delete("/shelf/{id}", emptyId));
+    }
+
+    @Test
+    void submitClearShelfJob() throws Exception {
+        assertQueries(5, post("/jobs/clear-shelf/{shelfId}", shelfId(2)));
+    }
+
+    private List<String> assertQueries(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        List<String> statements = perform(budget, request);
+        List<String> unbounded = statements.stream().filter(QueryCountGuardTest::isUnboundedSelect).toList();
+        assertEquals(List.of(), unbounded, "Выборка без LIMIT и без условия по ключу");
+        return statements;
+    }
+
+    // Маршрут по смыслу читает без LIMIT, но только из указанной таблицы; прочие выборки по-прежнему обязаны быть ограничены
+    private List<String> assertQueriesReadingWholeTable(int budget, String table, MockHttpServletRequestBuilder request)
+            throws Exception {
+        List<String> statements = perform(budget, request);
+        List<String> unbounded = statements.stream().filter(QueryCountGuardTest::isUnboundedSelect).toList();
+        assertFalse(unbounded.isEmpty(), "Маршрут больше не читает таблицу " + table + " целиком, перенесите его в assertQueries");
+        for (String statement : unbounded) {
+            assertEquals(table, drivingTable(statement),
+                    "Выборка без LIMIT по неожиданной таблице:\n    " + statement);
+        }
+        return statements;
+    }
+
+    private List<String> perform(int budget, MockHttpServletRequestBuilder request) throws Exception {
+        List<String> statements;
+        int status;
+        SqlStatementRecorder.start();
+        try {
+            status = mockMvc.perform(request).andReturn().getResponse().getStatus();
+        } finally {
+            statements = SqlStatementRecorder.stop().stream()
+                    .filter(statement -> !SEQUENCE_FETCH.matcher(statement).find())
+                    .toList();
+        }
+        MockHttpServletRequest performed = request.buildRequest(null);
+        log.info("{} {}: {} SQL-запросов (бюджет {}){}", performed.getMethod(), performed.getRequestURI(),
+                statements.size(), budget, describe(statements));
+
+        assertTrue(status < 400, "Неожиданный статус " + status);
+        assertTrue(statements.size() <= budget,
+                statements.size() + " SQL-запросов при бюджете " + budget + describe(statements));
+        return statements;
+    }
+
+    private static boolean isUnboundedSelect(String sql) {
+        String normalized = sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+        // "select next value for ..." читает последовательность, а не таблицу
+        if (!normalized.startsWith("select") || normalized.startsWith("select count(") || !normalized.contains(" from ")) {
+            return false;
+        }
+        if (normalized.contains(" fetch first ") || normalized.contains(" limit ") || normalized.contains(" offset ")) {
+            return false;
+        }
+
+        Map<String, String> aliases = aliases(normalized);
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            String primaryKey = PRIMARY_KEYS.get(alias.getValue());
+            if (primaryKey == null) {
+                continue;
+            }
+            String column = alias.getKey() + "." + primaryKey;
+            if (normalized.contains(column + "=?") || normalized.contains(column + " in (")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String drivingTable(String sql) {
+        Matcher matcher = DRIVING_TABLE.matcher(sql.toLowerCase(Locale.ROOT).replaceAll("\\s+", " "));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Map<String, String> aliases(String normalized) {
+        Map<String, String> aliases = new HashMap<>();
+        Matcher matcher = FROM_CLAUSE.matcher(normalized);
+        while (matcher.find()) {
+            aliases.put(matcher.group(2), matcher.group(1));
+        }
+        return aliases;
+    }
+
+    private static String describe(List<String> statements) {
+        StringBuilder builder = new StringBuilder();
+        for (String statement : statements) {
+            builder.append("\n    ").append(statement);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.datasource.ReadYourWritesTracker;
+import com.example.crud.datasource.ReplicaDataSourceRegistrar;
+import com.example.crud.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CrudApplication.class, properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.replicas[0].url=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.routing.replicas[0].username=sa",
+        "app.datasource.routing.stickiness-window-ms=60000",
+        "app.datasource.routing.health-check-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000";
+
+    // Реплику приложение не мигрирует, поэтому схема и метки создаются до подъёма контекста
+    static {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        Flyway.configure().dataSource(PRIMARY_URL, "sa", "").load().migrate();
+        mark(REPLICA_URL, "replica");
+        mark(PRIMARY_URL, "primary");
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadYourWritesTracker tracker;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaAndWritesToThePrimary() {
+        assertEquals("replica", marker(true));
+        assertEquals("primary", marker(false));
+        assertEquals("primary", new JdbcTemplate(dataSource).queryForObject("SELECT name FROM routing_marker", String.class),
+                "Вне транзакции чтение идёт в основную БД");
+    }
+
+    @Test
+    void clientReadsFromThePrimaryAfterItsOwnWrite() throws Exception {
+        mockMvc.perform(post("/shelf").header("X-Client-Id", "writer")
+                        .contentType("application/json")
+                        .content("{\"name\":\"Маршрутизация\",\"description\":\"Запись клиента\"}"))
+                .andExpect(status().is2xxSuccessful());
+
+        assertEquals("primary", markerAs("writer"));
+        assertEquals("replica", markerAs("reader"));
+    }
+
+    @Test
+    void clientWithoutHeaderGetsACookie() throws Exception {
+        Cookie issued = mockMvc.perform(get("/shelf"))
+                .andExpect(cookie().exists("rw-client"))
+                .andReturn().getResponse().getCookie("rw-client");
+        assertNotNull(issued);
+
+        mockMvc.perform(get("/shelf").cookie(issued))
+                .andExpect(cookie().doesNotExist("rw-client"));
+        assertEquals("replica", markerAs(issued.getValue()));
+
+        mockMvc.perform(post("/shelf").cookie(issued)
+                        .contentType("application/json")
+                        .content("{\"name\":\"Cookie\",\"description\":\"Запись по cookie\"}"))
+                .andExpect(status().is2xxSuccessful());
+        assertEquals("primary", markerAs(issued.getValue()));
+    }
+
+    @Test
+    void anonymousWriterReadsFromThePrimaryByAddressAndUserAgent() throws Exception {
+        Cookie issued = mockMvc.perform(post("/shelf")
+                        .with(remote("10.0.0.7")).header("User-Agent", "curl/8.0")
+                        .contentType("application/json")
+                        .content("{\"name\":\"Аноним\",\"description\":\"Запись без заголовка и cookie\"}"))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getCookie("rw-client");
+        assertNotNull(issued);
+        assertEquals("primary", markerAs(issued.getValue()), "Сохранившего cookie клиента запись тоже прилепляет");
+
+        // Полка есть только в основной БД, поэтому её видно лишь при чтении оттуда
+        mockMvc.perform(get("/shelf").with(remote("10.0.0.7")).header("User-Agent", "curl/8.0"))
+                .andExpect(content().string(containsString("Аноним")));
+        mockMvc.perform(get("/shelf").with(remote("10.0.0.7")).header("User-Agent", "other/1.0"))
+                .andExpect(content().string(not(containsString("Аноним"))));
+        mockMvc.perform(get("/shelf").with(remote("10.0.0.8")).header("User-Agent", "curl/8.0"))
+                .andExpect(content().string(not(containsString("Аноним"))));
+    }
+
+    @Test
+    void poolsAreBeansClosedWithTheContext() {
+        HikariDataSource primary = context.getBean(ReplicaDataSourceRegistrar.PRIMARY_BEAN_NAME, HikariDataSource.class);
+        HikariDataSource replica = context.getBean(ReplicaDataSourceRegistrar.replicaBeanName(0), HikariDataSource.class);
+        assertFalse(primary.isClosed());
+        assertTrue(replica.isReadOnly());
+        assertEquals(2, context.getBeanNamesForType(HikariDataSource.class, true, false).length,
+                "Пулы основной БД и реплики зарегистрированы бинами");
+
+        routingDataSource.checkReplicas(1);
+        assertEquals(List.of("replica-0"), routingDataSource.getHealthyReplicas());
+    }
+
+    private static RequestPostProcessor remote(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    private String markerAs(String client) {
+        tracker.setCurrentClient(client);
+        try {
+            return marker(true);
+        } finally {
+            tracker.clearCurrentClient();
+        }
+    }
+
+    private String marker(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM routing_marker", String.class));
+    }
+
+    private static void mark(String url, String name) {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS routing_marker (name VARCHAR(16))");
+        jdbc.update("DELETE FROM routing_marker");
+        jdbc.update("INSERT INTO routing_marker (name) VALUES (?)", name);
+    }
+}
@@ -0,0 +1,150 @@
+package crud.tests;
+
+import com.example.crud.admission.RouteClassifier;
+import com.example.crud.deadline.Deadline;
+import com.example.crud.deadline.DeadlineFilter;
+import com.example.crud.deadline.DeadlineProperties;
+import com.example.crud.deadline.RequestDeadline;
+import com.example.crud.exception.DeadlineExceededException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestDeadlineTest {
+
+    private final DeadlineProperties properties = new DeadlineProperties();
+    private final DeadlineFilter filter =
+            new DeadlineFilter(new RouteClassifier(), properties, ErrorResponses.resolver());
+
+    @Test
+    void timeoutIsTakenFromHeadersAndCappedByTheRoute() throws Exception {
+        assertEquals(5000, timeoutFor(new MockHttpServletRequest("GET", "/book/search")));
+        assertEquals(10000, timeoutFor(new MockHttpServletRequest("GET", "/shelf/1")));
+
+        MockHttpServletRequest requested = new MockHttpServletRequest("GET", "/shelf/1");
+        requested.addHeader(properties.getTimeoutHeader(), " 250 ");
+        assertEquals(250, timeoutFor(requested));
+
+        MockHttpServletRequest both = new MockHttpServletRequest("GET", "/shelf/1");
+        both.addHeader(properties.getTimeoutHeader(), "5000");
+        both.addHeader(properties.getDeadlineHeader(), Instant.now().plusSeconds(2).toString());
+        long timeout = timeoutFor(both);
+        assertTrue(timeout > 1000 && timeout <= 2000, "Берётся более ранний из двух сроков: " + timeout);
+
+        MockHttpServletRequest malformed = new MockHttpServletRequest("GET", "/book/search");
+        malformed.addHeader(properties.getTimeoutHeader(), "скоро");
+        malformed.addHeader(properties.getDeadlineHeader(), "завтра");
+        assertEquals(5000, timeoutFor(malformed), "Некорректные заголовки не отменяют таймаут маршрута");
+
+        MockHttpServletRequest tooLong = new MockHttpServletRequest("GET", "/shelf/1");
+        tooLong.addHeader(properties.getTimeoutHeader(), String.valueOf(properties.getMaxTimeoutMs() * 10));
+        assertEquals(properties.getMaxTimeoutMs(), timeoutFor(tooLong));
+    }
+
+    @Test
+    void expiredDeadlineIsRejectedWithGatewayTimeout() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book/search");
+        request.addHeader(properties.getDeadlineHeader(), String.valueOf(System.currentTimeMillis() - 1000));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            throw new AssertionError("Запрос с истёкшим сроком не должен доходить до обработчика");
+        });
+
+        assertEquals(504, response.getStatus());
+        JsonNode body = new ObjectMapper().readTree(response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(504, body.get("status").asInt());
+        assertEquals("до начала обработки", body.get("stage").asText());
+        assertEquals("/book/search", body.get("path").asText());
+    }
+
+    @Test
+    void databaseTimeoutsAreMappedToGatewayTimeout() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ErrorResponses.resolver().resolveException(new MockHttpServletRequest("GET", "/book/all"), response, null,
+                new QueryTimeoutException("statement cancelled"));
+
+        assertEquals(504, response.getStatus());
+        JsonNode body = new ObjectMapper().readTree(response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("база данных", body.get("stage").asText());
+    }
+
+    @Test
+    void remainingTimeBecomesTheQueryTimeout() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:deadline;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        StatementCallback<Integer> queryTimeout = Statement::getQueryTimeout;
+        AtomicInteger inTransaction = new AtomicInteger();
+        AtomicInteger outsideTransaction = new AtomicInteger();
+
+        RequestDeadline.runWithin(Deadline.after(3000), () -> {
+            inTransaction.set(RequestDeadline.transactionTemplate(transactionManager, true)
+                    .execute(status -> jdbcTemplate.execute(queryTimeout)));
+            outsideTransaction.set(RequestDeadline.bounded(jdbcTemplate).execute(queryTimeout));
+        });
+
+        assertTrue(inTransaction.get() >= 1 && inTransaction.get() <= 3, "В транзакции: " + inTransaction.get());
+        assertTrue(outsideTransaction.get() >= 1 && outsideTransaction.get() <= 3, "Без транзакции: " + outsideTransaction.get());
+        assertSame(jdbcTemplate, RequestDeadline.bounded(jdbcTemplate), "Без срока шаблон не подменяется");
+
+        RequestDeadline.runWithin(Deadline.after(0), () -> {
+            assertThrows(DeadlineExceededException.class,
+                    () -> RequestDeadline.transactionTemplate(transactionManager, true));
+            assertThrows(DeadlineExceededException.class, () -> RequestDeadline.bounded(jdbcTemplate));
+        });
+    }
+
+    @Test
+    void inMemoryWorkStopsOnceTheDeadlinePasses() {
+        Predicate<Integer> even = value -> value % 2 == 0;
+        Comparator<Integer> natural = Comparator.naturalOrder();
+        assertSame(even, RequestDeadline.checking("фильтр", even), "Без срока проверка не добавляется");
+        assertSame(natural, RequestDeadline.checking("сортировка", natural));
+
+        RequestDeadline.runWithin(Deadline.after(60000), () ->
+                assertEquals(List.of(2, 4), List.of(4, 1, 2, 3).stream()
+                        .filter(RequestDeadline.checking("фильтр", even))
+                        .sorted(RequestDeadline.checking("сортировка", natural))
+                        .toList()));
+
+        RequestDeadline.runWithin(Deadline.after(0), () -> {
+            DeadlineExceededException error = assertThrows(DeadlineExceededException.class,
+                    () -> List.of(1, 2, 3).stream().filter(RequestDeadline.checking("фильтр", even)).toList());
+            assertEquals("фильтр", error.getStage());
+            assertThrows(DeadlineExceededException.class,
+                    () -> List.of(3, 1, 2).stream().sorted(RequestDeadline.checking("сортировка", natural)).toList());
+        });
+        assertNull(RequestDeadline.current(), "Срок снимается после выполнения");
+    }
+
+    private long timeoutFor(MockHttpServletRequest request) throws Exception {
+        AtomicLong timeout = new AtomicLong(-1);
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> timeout.set(RequestDeadline.current().timeoutMillis()));
+        return timeout.get();
+    }
+}
@@ -0,0 +1,262 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.dto.BatchGetResponse;
+import com.example.crud.dto.DuplicateGroup;
+import com.example.crud.duplicate.DuplicateMode;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import com.example.crud.sharding.ShardMoveRepairer;
+import com.example.crud.sharding.ShardRouter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = CrudApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-main;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.sharding.enabled=true",
+        "app.sharding.shards[0].url=jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.sharding.shards[0].username=sa",
+        "app.sharding.shards[1].url=jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.sharding.shards[1].username=sa",
+        "app.sharding.shards[2].url=jdbc:h2:mem:sharding-2;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000",
+        "app.sharding.shards[2].username=sa",
+        "app.sharding.move-grace-ms=0",
+        "app.catalog.enabled=false",
+        "app.sharding.repair-interval-ms=3600000"
+})
+class ShardingTest {
+
+    private static final int SHARDS = 3;
+    private final ShardRouter router = new ShardRouter(SHARDS);
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ShelfService shelfService;
+
+    @Autowired
+    private ShardMoveRepairer shardMoveRepairer;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void booksAreStoredOnTheShardOfTheirShelf() {
+        Shelf shelf = createShelf("Маршрутизация");
+        Book first = bookService.createBook(book("Первая", shelf));
+        Book second = bookService.createBook(book("Вторая", shelf));
+        int shard = router.shardForShelf(shelf.getId());
+
+        assertEquals(List.of(shard), shardsHolding(first.getId()));
+        assertEquals(List.of(shard), shardsHolding(second.getId()));
+        assertEquals(shard, directoryShard(first.getId()));
+
+        assertEquals("Первая", bookService.getBookById(first.getId()).getTitle());
+        assertEquals(shelf.getName(), bookService.getBookById(first.getId()).getShelf().getName());
+        assertEquals(List.of(first.getId(), second.getId()),
+                shelfService.getBooksForShelf(shelf.getId()).stream().map(Book::getId).toList());
+        assertEquals(2, shelfService.getShelfSummary(shelf.getId()).getBookCount());
+
+        BatchGetResponse<Book> batch = bookService.getBooksByIds(
+                Arrays.asList(first.getId(), second.getId(), Integer.MAX_VALUE));
+        assertEquals(2, batch.getFound().size());
+        assertEquals(List.of(Integer.MAX_VALUE), batch.getMissing());
+
+        assertThrows(InvalidRequestException.class, () -> shelfService.deleteShelf(shelf.getId()));
+    }
+
+    @Test
+    void movingBetweenShelvesMovesTheRowBetweenShards() {
+        Shelf source = createShelf("Откуда");
+        Shelf target = createShelf("Куда");
+        while (router.shardForShelf(target.getId()) == router.shardForShelf(source.getId())) {
+            target = createShelf("Куда");
+        }
+        Book book = bookService.createBook(book("Переезд", source));
+
+        bookService.updateBook(book.getId(), book("Переезд", target));
+
+        int targetShard = router.shardForShelf(target.getId());
+        assertEquals(List.of(targetShard), shardsHolding(book.getId()));
+        assertEquals(targetShard, directoryShard(book.getId()));
+        assertEquals(0, countOn(targetShard, "SELECT COUNT(*) FROM shard_move WHERE book_id = ?", book.getId()),
+                "Отметка о переносе удаляется после фиксации обоих шардов");
+        assertEquals(target.getId(), bookService.getBookById(book.getId()).getShelf().getId());
+        assertEquals(0, shelfService.getShelfSummary(source.getId()).getBookCount());
+
+        shelfService.removeBookFromShelfByBookId(book.getId());
+        assertEquals(List.of(router.shardForUnshelved(book.getId())), shardsHolding(book.getId()));
+        assertNull(bookService.getBookById(book.getId()).getShelf());
+    }
+
+    @Test
+    void interruptedMoveIsRepairedAndStaleDirectoryIsRestoredOnRead() {
+        Shelf shelf = createShelf("Восстановление");
+        Book book = bookService.createBook(book("Осиротевшая", shelf));
+        int shard = router.shardForShelf(shelf.getId());
+        int other = (shard + 1) % SHARDS;
+
+        // Исходный шард не успел зафиксировать удаление, основная БД откатилась вместе со справочником
+        shard(other).update("INSERT INTO book (id, title, author, year, shelf_id) VALUES (?, ?, ?, ?, ?)",
+                book.getId(), "Старая копия", "Автор", 2001, null);
+        shard(shard).update("INSERT INTO shard_move (book_id, source, moved_at) VALUES (?, ?, ?)",
+                book.getId(), other, Timestamp.from(Instant.now().minusSeconds(60)));
+        new JdbcTemplate(dataSource).update("UPDATE book_directory SET shard = ? WHERE book_id = ?", other, book.getId());
+
+        shardMoveRepairer.repair();
+
+        assertEquals(List.of(shard), shardsHolding(book.getId()));
+        assertEquals(shard, directoryShard(book.getId()));
+        assertEquals("Осиротевшая", bookService.getBookById(book.getId()).getTitle());
+
+        // Книга зафиксирована на шарде, но запись справочника потеряна вместе с откатом основной БД
+        int lostId = book.getId() + 100000;
+        shard(shard).update("INSERT INTO book (id, title, author, year, shelf_id) VALUES (?, ?, ?, ?, ?)",
+                lostId, "Без справочника", "Автор", 2001, shelf.getId());
+        assertEquals("Без справочника", bookService.getBookById(lostId).getTitle());
+        assertEquals(shard, directoryShard(lostId));
+    }
+
+    @Test
+    void batchGetRunsOneInQueryPerOwningShard() {
+        List<Integer> shelfIds = new ArrayList<>();
+        List<Integer> bookIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Shelf shelf = createShelf("Пакет " + i);
+            shelfIds.add(shelf.getId());
+            bookIds.add(bookService.createBook(book("Первая " + i, shelf)).getId());
+            bookIds.add(bookService.createBook(book("Вторая " + i, shelf)).getId());
+        }
+        Set<Integer> owningShards = shelfIds.stream().map(router::shardForShelf).collect(Collectors.toSet());
+
+        resetQueryStatistics();
+        assertEquals(bookIds.size(), bookService.getBooksByIds(bookIds).getFound().size());
+        assertEquals(shelfIds.size(), shelfService.getShelvesByIds(shelfIds).getFound().size());
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            int expected = owningShards.contains(shard) ? 1 : 0;
+            assertEquals(expected, executions(shard, "FROM book WHERE id IN"),
+                    "Шард " + shard + " должен получить один запрос книг по списку идентификаторов");
+            assertEquals(expected, executions(shard, "FROM book WHERE shelf_id IN"),
+                    "Шард " + shard + " должен получить один запрос книг по списку полок");
+        }
+    }
+
+    @Test
+    void duplicateGroupsSpanShardsAndPageByFingerprint() {
+        Shelf first = createShelf("Дубли");
+        Shelf second = createShelf("Дубли на другом шарде");
+        while (router.shardForShelf(second.getId()) == router.shardForShelf(first.getId())) {
+            second = createShelf("Дубли на другом шарде");
+        }
+
+        String author = "Автор " + UUID.randomUUID();
+        List<Integer> sameShard = List.of(
+                bookService.createBook(book("Копия на шарде", author, first), DuplicateMode.ALLOW).getId(),
+                bookService.createBook(book("Копия на шарде", author, first), DuplicateMode.ALLOW).getId());
+        List<Integer> crossShard = List.of(
+                bookService.createBook(book("Копия на двух шардах", author, first), DuplicateMode.ALLOW).getId(),
+                bookService.createBook(book("Копия на двух шардах", author, second), DuplicateMode.ALLOW).getId());
+        bookService.createBook(book("Без копий", author, second), DuplicateMode.ALLOW);
+
+        List<DuplicateGroup> groups = bookService.findDuplicates(0, 1000).stream()
+                .filter(group -> author.equals(group.getAuthor()))
+                .toList();
+        assertEquals(Set.of(sameShard, crossShard),
+                groups.stream().map(group -> group.getBookIds().stream().sorted().toList()).collect(Collectors.toSet()));
+        assertTrue(groups.stream().allMatch(group -> group.getCount() == 2));
+
+        // Продолжение по ключу обходит все группы по одной, строго по возрастанию fingerprint
+        List<String> walked = new ArrayList<>();
+        String after = "";
+        List<DuplicateGroup> page;
+        while (!(page = bookService.findDuplicatesAfter(after, 1)).isEmpty()) {
+            after = page.get(0).getFingerprint();
+            walked.add(after);
+        }
+        assertEquals(walked.stream().sorted().distinct().toList(), walked);
+        assertTrue(walked.containsAll(groups.stream().map(DuplicateGroup::getFingerprint).toList()));
+    }
+
+    private Shelf createShelf(String name) {
+        Shelf shelf = new Shelf();
+        shelf.setName(name);
+        shelf.setDescription("Полка для проверки шардирования");
+        return shelfService.createShelf(shelf);
+    }
+
+    private Book book(String title, Shelf shelf) {
+        return book(title, "Автор", shelf);
+    }
+
+    private Book book(String title, String author, Shelf shelf) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setYear(2001);
+        if (shelf != null) {
+            Shelf reference = new Shelf();
+            reference.setId(shelf.getId());
+            book.setShelf(reference);
+        }
+        return book;
+    }
+
+    private List<Integer> shardsHolding(int bookId) {
+        return IntStream.range(0, SHARDS)
+                .filter(shard -> countOn(shard, "SELECT COUNT(*) FROM book WHERE id = ?", bookId) > 0)
+                .boxed()
+                .toList();
+    }
+
+    private int directoryShard(int bookId) {
+        return new JdbcTemplate(dataSource).queryForObject(
+                "SELECT shard FROM book_directory WHERE book_id = ?", Integer.class, bookId);
+    }
+
+    private int countOn(int shard, String sql, int bookId) {
+        return shard(shard).queryForObject(sql, Integer.class, bookId);
+    }
+
+    private void resetQueryStatistics() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            shard(shard).execute("SET QUERY_STATISTICS FALSE");
+            shard(shard).execute("SET QUERY_STATISTICS TRUE");
+        }
+    }
+
+    private int executions(int shard, String fragment) {
+        Integer executions = shard(shard).queryForObject(
+                "SELECT COALESCE(SUM(EXECUTION_COUNT), 0) FROM INFORMATION_SCHEMA.QUERY_STATISTICS WHERE SQL_STATEMENT LIKE ?",
+                Integer.class, "%" + fragment + "%");
+        return executions != null ? executions : 0;
+    }
+
+    private JdbcTemplate shard(int index) {
+        return new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:sharding-" + index + ";DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000", "sa", ""));
+    }
+}
@@ -0,0 +1,259 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.catalog.BookRecord;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.event.CatalogChangedEvent;
+import com.example.crud.event.EntityType;
+import com.example.crud.exception.BookNotFoundException;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.exception.ShelfNotFoundException;
+import com.example.crud.repository.BookRepository;
+import com.example.crud.repository.ShelfRepository;
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@Tag("stress")
+@SpringBootTest(classes = CrudApplication.class)
+@Import(ShelfConcurrencyStressTest.LedgerConfig.class)
+class ShelfConcurrencyStressTest {
+
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+    // В обычной сборке прогон короткий, длинный запускается через -Dstress.operations=500
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("stress.operations", 100);
+    private static final int SHELVES = 6;
+    private static final int BOOKS = 120;
+
+    @Autowired
+    private ShelfService shelfService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ShelfRepository shelfRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ShelfLedger ledger;
+
+    private final List<Integer> shelfIds = new CopyOnWriteArrayList<>();
+    private final List<Integer> bookIds = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    @Test
+    void concurrentShelfOperationsPreserveInvariants() throws InterruptedException {
+        for (int i = 0; i < SHELVES; i++) {
+            shelfIds.add(createShelf());
+        }
+        for (int i = 0; i < BOOKS; i++) {
+            Integer shelfId = i % 2 == 0 ? shelfIds.get(i % SHELVES) : null;
+            bookIds.add(createBook(shelfId));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    runRandomOperation();
+                }
+            });
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES), "Стресс-тест не завершился вовремя");
+        long elapsedNanos = System.nanoTime() - started;
+
+        long operations = (long) THREADS * OPERATIONS_PER_THREAD;
+        log.info("Стресс-тест полок: {} операций в {} потоках за {} мс, {} оп/с (успешно: {}, отклонено: {}, сбоев: {})",
+                operations, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", operations * 1_000_000_000.0 / elapsedNanos),
+                succeeded.get(), rejected.get(), failures.size());
+
+        assertTrue(failures.isEmpty(), () -> "Неожиданные ошибки при конкурентных операциях: "
+                + failures.stream().map(Throwable::toString).distinct().toList()
+                + "\nПервая ошибка:\n" + stackTrace(failures.get(0)));
+
+        verifyInvariants();
+    }
+
+    private void runRandomOperation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer shelfId = shelfIds.get(random.nextInt(shelfIds.size()));
+        Integer bookId = bookIds.get(random.nextInt(bookIds.size()));
+
+        try {
+            int roll = random.nextInt(100);
+            if (roll < 30) {
+                shelfService.addBookToShelf(shelfId, bookId);
+            } else if (roll < 55) {
+                shelfService.removeBookFromShelfByBookId(bookId);
+            } else if (roll < 75) {
+                Book book = new Book();
+                book.setTitle("Книга " + bookId);
+                book.setAuthor("Автор " + bookId % 10);
+                book.setYear(1900 + bookId % 100);
+                if (random.nextInt(4) > 0) {
+                    Shelf shelf = new Shelf();
+                    shelf.setId(shelfId);
+                    book.setShelf(shelf);
+                }
+                bookService.updateBook(bookId, book);
+            } else if (roll < 82) {
+                shelfService.clearShelf(shelfId);
+            } else if (roll < 89) {
+                shelfService.deleteShelf(shelfId);
+            } else if (roll < 93) {
+                shelfIds.add(createShelf());
+            } else if (roll < 97) {
+                bookService.deleteBook(bookId);
+            } else {
+                bookIds.add(createBook(random.nextBoolean() ? shelfId : null));
+            }
+            succeeded.incrementAndGet();
+        } catch (BookNotFoundException | ShelfNotFoundException | InvalidRequestException e) {
+            rejected.incrementAndGet();
+        } catch (Throwable e) {
+            failures.add(e);
+        }
+    }
+
+    private void verifyInvariants() {
+        List<BookRecord> books = bookRepository.findAllRecords();
+        Set<Integer> existingShelves = new HashSet<>();
+        shelfRepository.findAll().forEach(shelf -> existingShelves.add(shelf.getId()));
+
+        Map<Integer, Integer> shelfOfBook = new HashMap<>();
+        long unshelved = 0;
+        for (BookRecord book : books) {
+            if (book.getShelfId() == null) {
+                unshelved++;
+            } else {
+                assertTrue(existingShelves.contains(book.getShelfId()),
+                        "Книга " + book.getId() + " ссылается на удалённую полку " + book.getShelfId());
+            }
+            shelfOfBook.put(book.getId(), book.getShelfId());
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        long shelved = 0;
+        for (Integer shelfId : existingShelves) {
+            List<Book> onShelf = shelfService.getBooksForShelf(shelfId);
+            assertEquals(bookRepository.countByShelfId(shelfId), onShelf.size(),
+                    "Число книг на полке " + shelfId + " не сходится");
+            for (Book book : onShelf) {
+                assertTrue(seen.add(book.getId()), "Книга " + book.getId() + " находится на нескольких полках");
+                assertEquals(shelfId, shelfOfBook.get(book.getId()));
+            }
+            shelved += onShelf.size();
+        }
+        assertEquals(books.size(), shelved + unshelved, "Сумма книг на полках и вне полок не сходится");
+        assertEquals(bookRepository.count(), books.size());
+
+        for (Integer bookId : bookIds) {
+            int expected = shelfOfBook.get(bookId) != null ? 1 : 0;
+            assertEquals(expected, ledger.balance(bookId),
+                    "Журнал перемещений книги " + bookId + " не совпадает с её текущим состоянием");
+        }
+    }
+
+    private static String stackTrace(Throwable failure) {
+        StringWriter trace = new StringWriter();
+        failure.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+
+    private Integer createShelf() {
+        Shelf shelf = new Shelf();
+        shelf.setName("Полка " + ThreadLocalRandom.current().nextInt(1_000_000));
+        shelf.setDescription("Стресс-тест");
+        return shelfService.createShelf(shelf).getId();
+    }
+
+    private Integer createBook(Integer shelfId) {
+        int n = ThreadLocalRandom.current().nextInt(1_000_000);
+        Book book = new Book();
+        book.setTitle("Книга " + n);
+        book.setAuthor("Автор " + n % 10);
+        book.setYear(1900 + n % 100);
+        if (shelfId != null) {
+            Shelf shelf = new Shelf();
+            shelf.setId(shelfId);
+            book.setShelf(shelf);
+        }
+        return bookService.createBook(book).getId();
+    }
+
+    static class ShelfLedger {
+
+        private final Map<Integer, AtomicInteger> balances = new ConcurrentHashMap<>();
+
+        @TransactionalEventListener
+        public void onCatalogChanged(CatalogChangedEvent event) {
+            if (event.getEntity() != EntityType.BOOK) {
+                return;
+            }
+            int delta = (event.getShelfAfter() != null ? 1 : 0) - (event.getShelfBefore() != null ? 1 : 0);
+            balances.computeIfAbsent(event.getId(), id -> new AtomicInteger()).addAndGet(delta);
+        }
+
+        int balance(Integer bookId) {
+            AtomicInteger balance = balances.get(bookId);
+            return balance != null ? balance.get() : 0;
+        }
+    }
+
+    @TestConfiguration
+    static class LedgerConfig {
+
+        @Bean
+        ShelfLedger shelfLedger() {
+            return new ShelfLedger();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package crud.tests;
+
+import com.example.crud.CrudApplication;
+import com.example.crud.dto.BookCursor;
+import com.example.crud.dto.BookSortKey;
+import com.example.crud.dto.CursorPage;
+import com.example.crud.entity.Book;
+import com.example.crud.entity.Shelf;
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.service.BookService;
+import com.example.crud.service.ShelfService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = CrudApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:shelf-cursor;DB_CLOSE_DELAY=-1;NON_KEYWORDS=YEAR;LOCK_TIMEOUT=10000")
+@AutoConfigureMockMvc
+class ShelfCursorTest {
+
+    private static final String[][] BOOKS = {
+            {"beta", "2001"}, {"Alpha", "1999"}, {"alpha", "2001"}, {"Gamma", "2001"},
+            {"delta", "1999"}, {"Beta", "2010"}, {"epsilon", "1999"}
+    };
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ShelfService shelfService;
+
+    private Shelf shelf;
+    private List<Book> books;
+
+    @BeforeEach
+    void fillShelf() {
+        shelf = new Shelf();
+        shelf.setName("Курсоры");
+        shelf.setDescription("Полка для проверки курсоров");
+        shelf = shelfService.createShelf(shelf);
+
+        // Отдельный автор на каждый прогон, чтобы режим дубликатов не принимал книги разных тестов за копии
+        String author = "Автор " + UUID.randomUUID();
+        books = new ArrayList<>();
+        for (String[] values : BOOKS) {
+            Book book = new Book();
+            book.setTitle(values[0]);
+            book.setAuthor(author);
+            book.setYear(Integer.valueOf(values[1]));
+            book.setShelf(shelf);
+            books.add(bookService.createBook(book));
+        }
+    }
+
+    @Test
+    void pagesFollowTheKeysetOrderWithoutGapsOrRepeats() {
+        Comparator<Book> byTitle = Comparator.comparing((Book book) -> book.getTitle().toLowerCase())
+                .thenComparing(Book::getId);
+        assertEquals(ids(books, byTitle), walk(BookSortKey.TITLE, false, 2));
+        assertEquals(ids(books, byTitle.reversed()), walk(BookSortKey.TITLE, true, 3));
+
+        // Одинаковые года разводятся по ID, поэтому курсор на границе страницы ничего не теряет
+        Comparator<Book> byYear = Comparator.comparing(Book::getYear).thenComparing(Book::getId);
+        assertEquals(ids(books, byYear), walk(BookSortKey.YEAR, false, 2));
+        assertEquals(ids(books, byYear.reversed()), walk(BookSortKey.YEAR, true, 4));
+
+        assertEquals(ids(books, Comparator.comparing(Book::getId)), walk(BookSortKey.ID, false, 1));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        CursorPage<Book> whole = shelfService.getBooksForShelfAfter(shelf.getId(), BookSortKey.ID, false, null, BOOKS.length);
+        assertEquals(BOOKS.length, whole.getItems().size());
+        assertNull(whole.getNextCursor(), "Полная страница без следующих книг не должна отдавать курсор");
+
+        CursorPage<Book> first = shelfService.getBooksForShelfAfter(shelf.getId(), BookSortKey.ID, false, null, BOOKS.length - 1);
+        assertNotNull(first.getNextCursor());
+        CursorPage<Book> last = shelfService.getBooksForShelfAfter(shelf.getId(), BookSortKey.ID, false,
+                BookCursor.decode(first.getNextCursor()), BOOKS.length - 1);
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextCursor());
+
+        Shelf empty = new Shelf();
+        empty.setName("Пустая");
+        empty.setDescription("Без книг");
+        empty = shelfService.createShelf(empty);
+        CursorPage<Book> nothing = shelfService.getBooksForShelfAfter(empty.getId(), BookSortKey.TITLE, false, null, 10);
+        assertEquals(0, nothing.getItems().size());
+        assertNull(nothing.getNextCursor());
+    }
+
+    @Test
+    void invalidCursorsAreRejected() throws Exception {
+        List<String> cursors = List.of(
+                "не-base64!",
+                encode("ID:asc:7"),
+                encode("TITLE:sideways:7:salpha"),
+                encode("ISBN:asc:7:s1"),
+                encode("ID:asc:семь:"),
+                encode("ID:asc:7:salpha"),
+                encode("TITLE:asc:7:"),
+                encode("YEAR:asc:7:s1999"),
+                encode("YEAR:asc:7:iдва"));
+        for (String cursor : cursors) {
+            assertThrows(InvalidRequestException.class, () -> BookCursor.decode(cursor), cursor);
+            mockMvc.perform(get("/shelf/{id}/books/cursor", shelf.getId()).param("cursor", cursor))
+                    .andExpect(status().isBadRequest());
+        }
+
+        BookCursor cursor = new BookCursor(BookSortKey.YEAR, true, 1999, 12);
+        assertEquals(cursor, BookCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void streamWritesEveryBookOfTheShelf() throws Exception {
+        MvcResult started = mockMvc.perform(get("/shelf/{id}/books/stream", shelf.getId()))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Total-Count", String.valueOf(BOOKS.length)))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertEquals(BOOKS.length, body.lines().count());
+    }
+
+    private List<Integer> walk(BookSortKey sortKey, boolean descending, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        BookCursor after = null;
+        do {
+            CursorPage<Book> page = shelfService.getBooksForShelfAfter(shelf.getId(), sortKey, descending, after, limit);
+            page.getItems().forEach(book -> ids.add(book.getId()));
+            after = page.getNextCursor() != null ? BookCursor.decode(page.getNextCursor()) : null;
+        } while (after != null);
+        return ids;
+    }
+
+    private static List<Integer> ids(List<Book> books, Comparator<Book> order) {
+        return books.stream().sorted(order).map(Book::getId).toList();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
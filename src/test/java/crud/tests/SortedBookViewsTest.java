@@ -0,0 +1,114 @@
+package crud.tests;
+
+import com.example.crud.catalog.BookRecord;
+import com.example.crud.catalog.CatalogCollation;
+import com.example.crud.catalog.SortedBookViews;
+import com.example.crud.catalog.SortedBookViews.Field;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SortedBookViewsTest {
+
+    @Test
+    void insertsKeepEveryViewSortedWithIdAsTieBreaker() {
+        SortedBookViews views = new SortedBookViews(CatalogCollation.BINARY);
+        views.onBooksReplaced(List.of(record(5, "beta", "Б", 2001), record(2, "Alpha", "А", 1999)));
+
+        views.onBookChanged(null, record(7, "ALPHA", "В", 2001));
+        views.onBookChanged(null, record(1, "gamma", "а", null));
+        views.onBookChanged(null, record(1, "gamma", "а", null));
+
+        assertEquals(4, views.size());
+        assertArrayEquals(new int[]{2, 7, 5, 1}, views.slice(Field.TITLE, false, 0, null));
+        assertArrayEquals(new int[]{1, 5, 7, 2}, views.slice(Field.TITLE, true, 0, null));
+        assertArrayEquals(new int[]{1, 2, 5, 7}, views.slice(Field.AUTHOR, false, 0, null));
+        // Книга без года идёт первой, одинаковые года разводятся по ID
+        assertArrayEquals(new int[]{1, 2, 5, 7}, views.slice(Field.YEAR, false, 0, null));
+        assertArrayEquals(new int[]{5, 7}, views.slice(Field.YEAR, false, 2, 5));
+        assertArrayEquals(new int[]{7, 5}, views.slice(Field.YEAR, true, 0, 2));
+        assertArrayEquals(new int[0], views.slice(Field.YEAR, false, 10, 2));
+    }
+
+    @Test
+    void updatesAndRemovalsFindTheOldPosition() {
+        SortedBookViews views = new SortedBookViews(CatalogCollation.BINARY);
+        BookRecord first = record(1, "Анна", "Толстой", 1877);
+        BookRecord second = record(2, "Бесы", "Достоевский", 1872);
+        BookRecord third = record(3, "Война", "Толстой", 1869);
+        views.onBooksReplaced(List.of(first, second, third));
+
+        BookRecord renamed = record(1, "Каренина", "Толстой", 1878);
+        views.onBookChanged(first, renamed);
+        assertArrayEquals(new int[]{2, 3, 1}, views.slice(Field.TITLE, false, 0, null));
+        assertArrayEquals(new int[]{3, 2, 1}, views.slice(Field.YEAR, false, 0, null));
+
+        views.onBookChanged(second, null);
+        views.onBookChanged(record(99, "Нет такой", "Никто", 2000), null);
+        assertEquals(2, views.size());
+        assertArrayEquals(new int[]{3, 1}, views.slice(Field.TITLE, false, 0, null));
+        assertArrayEquals(new int[]{3, 1}, views.slice(Field.AUTHOR, true, 0, null));
+    }
+
+    @Test
+    void incrementalChangesMatchAFullRebuild() {
+        Random random = new Random(42);
+        String[] titles = {"alpha", "Alpha", "beta", "Ёлка", "елка", "Яблоко", "zeta", "Ω"};
+        SortedBookViews incremental = new SortedBookViews(CatalogCollation.BINARY);
+        List<BookRecord> current = new ArrayList<>();
+        incremental.onBooksReplaced(current);
+
+        for (int step = 0; step < 500; step++) {
+            int id = random.nextInt(40);
+            BookRecord before = current.stream().filter(book -> book.getId() == id).findFirst().orElse(null);
+            BookRecord after = random.nextInt(4) == 0 ? null
+                    : record(id, titles[random.nextInt(titles.length)], titles[random.nextInt(titles.length)],
+                    random.nextInt(5) == 0 ? null : 1990 + random.nextInt(5));
+            incremental.onBookChanged(before, after);
+            current.remove(before);
+            if (after != null) {
+                current.add(after);
+            }
+        }
+
+        SortedBookViews rebuilt = new SortedBookViews(CatalogCollation.BINARY);
+        rebuilt.onBooksReplaced(current);
+        for (Field field : Field.values()) {
+            assertArrayEquals(rebuilt.slice(field, false, 0, null), incremental.slice(field, false, 0, null),
+                    field.name());
+        }
+        int[] byTitle = incremental.slice(Field.TITLE, false, 0, null);
+        List<Integer> expected = current.stream()
+                .sorted(Comparator.comparing((BookRecord book) -> CatalogCollation.key(book.getTitle()))
+                        .thenComparingInt(BookRecord::getId))
+                .map(BookRecord::getId).toList();
+        assertEquals(expected, Arrays.stream(byTitle).boxed().toList());
+    }
+
+    @Test
+    void localeCollationOrdersLikeALinguisticDatabase() {
+        CatalogCollation russian = CatalogCollation.of("ru-RU");
+        // Двоичный порядок ставит «ё» после «я», языковой — рядом с «е»
+        assertTrue(CatalogCollation.BINARY.compare("ёж", "яма") > 0);
+        assertTrue(russian.compare("ёж", "яма") < 0);
+        assertTrue(russian.compare("еж", "ёж") < 0);
+        assertSame(CatalogCollation.BINARY, CatalogCollation.of(" "));
+
+        SortedBookViews views = new SortedBookViews(russian);
+        views.onBooksReplaced(List.of(record(1, "Яма", "", 2000), record(2, "Ёж", "", 2000), record(3, "Енот", "", 2000)));
+        assertArrayEquals(new int[]{2, 3, 1}, views.slice(Field.TITLE, false, 0, null));
+    }
+
+    private static BookRecord record(int id, String title, String author, Integer year) {
+        return new BookRecord(id, title, author, year, null);
+    }
+}
@@ -0,0 +1,101 @@
+package crud.tests;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Считает запросы на уровне JDBC, поэтому видит и Hibernate, и JdbcTemplate (outbox, задания, идемпотентность)
+public class SqlStatementRecorder extends DelegatingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    public SqlStatementRecorder(DataSource target) {
+        super(target);
+    }
+
+    static void start() {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    static List<String> stop() {
+        List<String> recorded = RECORDED.get();
+        RECORDED.remove();
+        return recorded != null ? recorded : List.of();
+    }
+
+    private static void record(String sql) {
+        List<String> recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+    }
+
+    // Пул закрывается вместе с контекстом, хотя бином теперь является обёртка
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, target, (method, args) -> {
+            Object result = method.invoke(target, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> statement(PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall" -> statement(CallableStatement.class, (Statement) result, (String) args[0]);
+                case "createStatement" -> statement(Statement.class, (Statement) result, null);
+                default -> result;
+            };
+        });
+    }
+
+    // Один выполненный запрос или один пакет — одна запись; текст берётся из подготовки или из аргумента execute
+    private static <T extends Statement> T statement(Class<T> type, Statement target, String prepared) {
+        return proxy(type, target, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : prepared;
+                record(name.endsWith("Batch") ? "batch: " + sql : sql);
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Invocation invocation) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return invocation.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(SqlStatementRecorder.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private interface Invocation {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+}